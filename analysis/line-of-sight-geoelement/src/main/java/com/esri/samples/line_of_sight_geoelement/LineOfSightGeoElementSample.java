@@ -20,8 +20,7 @@ import java.io.File;
 import java.util.Arrays;
 import java.util.List;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.geometry.Insets;
 import javafx.geometry.Orientation;
@@ -36,7 +35,6 @@ import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.Paint;
 import javafx.stage.Stage;
-import javafx.util.Duration;
 
 import com.esri.arcgisruntime.ArcGISRuntimeEnvironment;
 import com.esri.arcgisruntime.geoanalysis.GeoElementLineOfSight;
@@ -73,12 +71,20 @@ public class LineOfSightGeoElementSample extends Application {
   private SceneView sceneView;
   private List<Point> waypoints;
   private int waypointIndex = 0;
-  private Timeline animation;
+  private AnimationTimer animation;
+  private long lastFrameTime;
+  private long elapsedTime;
   private Graphic taxi;
 
   private static final LinearUnit METERS = new LinearUnit(LinearUnitId.METERS);
   private static final AngularUnit DEGREES = new AngularUnit(AngularUnitId.DEGREES);
 
+  // the speed the taxi drives at, in meters per second
+  private static final double SPEED = 10.0;
+
+  // the time between moves of the taxi, in nanoseconds
+  private static final long MOVE_INTERVAL = 100_000_000;
+
   @Override
   public void start(Stage stage) {
 
@@ -187,11 +193,22 @@ public class LineOfSightGeoElementSample extends Application {
         taxi.setSelected(targetVisibilityChangedEvent.getTargetVisibility() == LineOfSight.TargetVisibility.VISIBLE)
       );
 
-      // create a timeline to animate the taxi driving around the block
-      animation = new Timeline();
-      animation.setCycleCount(-1);
-      animation.getKeyFrames().add(new KeyFrame(Duration.millis(100), e -> animate()));
-      animation.play();
+      // animate the taxi driving around the block ten times a second, moving it by the time since it last moved so
+      // that it keeps its speed when pulses are late
+      animation = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+          if (lastFrameTime > 0) {
+            elapsedTime += now - lastFrameTime;
+          }
+          lastFrameTime = now;
+          if (elapsedTime >= MOVE_INTERVAL) {
+            animate(elapsedTime / 1e9);
+            elapsedTime = 0;
+          }
+        }
+      };
+      animation.start();
 
       // zoom to show the observer
       Camera camera = new Camera((Point) observer.getGeometry(), 700, -30, 45, 0);
@@ -204,9 +221,11 @@ public class LineOfSightGeoElementSample extends Application {
   }
 
   /**
-   * Moves the taxi toward the current waypoint a short distance.
+   * Moves the taxi toward the current waypoint by the distance it drives in the given time.
+   *
+   * @param elapsedSeconds the time since the taxi was last moved, in seconds
    */
-  private void animate() {
+  private void animate(double elapsedSeconds) {
     Point waypoint = waypoints.get(waypointIndex);
     // get current location and distance from waypoint
     Point location = (Point) taxi.getGeometry();
@@ -214,7 +233,8 @@ public class LineOfSightGeoElementSample extends Application {
         GeodeticCurveType.GEODESIC);
 
     // move toward waypoint a short distance
-    location = GeometryEngine.moveGeodetic(location, 1.0, METERS, distance.getAzimuth1(), DEGREES,
+    double moveDistance = Math.min(SPEED * elapsedSeconds, distance.getDistance());
+    location = GeometryEngine.moveGeodetic(location, moveDistance, METERS, distance.getAzimuth1(), DEGREES,
         GeodeticCurveType.GEODESIC);
     taxi.setGeometry(location);
 
@@ -18,15 +18,13 @@ package com.esri.samples.viewshed_geoelement;
 
 import java.io.File;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.geometry.Point2D;
 import javafx.scene.Scene;
 import javafx.scene.input.MouseButton;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
-import javafx.util.Duration;
 
 import com.esri.arcgisruntime.ArcGISRuntimeEnvironment;
 import com.esri.arcgisruntime.geoanalysis.GeoElementViewshed;
@@ -59,12 +57,20 @@ public class ViewshedGeoElementSample extends Application {
 
   private SceneView sceneView;
   private Graphic tank;
-  private Timeline animation;
+  private AnimationTimer animation;
+  private long lastFrameTime;
+  private long elapsedTime;
   private Point waypoint;
 
   private static final LinearUnit METERS = new LinearUnit(LinearUnitId.METERS);
   private static final AngularUnit DEGREES = new AngularUnit(AngularUnitId.DEGREES);
 
+  // the speed the tank drives at, in meters per second
+  private static final double SPEED = 10.0;
+
+  // the time between moves of the tank, in nanoseconds
+  private static final long MOVE_INTERVAL = 100_000_000;
+
   @Override
   public void start(Stage stage) {
 
@@ -152,11 +158,22 @@ public class ViewshedGeoElementSample extends Application {
       cameraController.setCameraPitchOffset(45.0);
       sceneView.setCameraController(cameraController);
 
-      // create a timeline to animate the tank
-      animation = new Timeline();
-      animation.setCycleCount(-1);
-      animation.getKeyFrames().add(new KeyFrame(Duration.millis(100), e -> animate()));
-      animation.play();
+      // animate the tank ten times a second, moving it by the time since it last moved so that it keeps its speed when
+      // pulses are late
+      animation = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+          if (lastFrameTime > 0) {
+            elapsedTime += now - lastFrameTime;
+          }
+          lastFrameTime = now;
+          if (elapsedTime >= MOVE_INTERVAL) {
+            animate(elapsedTime / 1e9);
+            elapsedTime = 0;
+          }
+        }
+      };
+      animation.start();
 
     } catch (Exception e) {
       // on any error, display the stack trace.
@@ -165,9 +182,11 @@ public class ViewshedGeoElementSample extends Application {
   }
 
   /**
-   * Moves the tank toward the current waypoint a short distance.
+   * Moves the tank toward the current waypoint by the distance it drives in the given time.
+   *
+   * @param elapsedSeconds the time since the tank was last moved, in seconds
    */
-  private void animate() {
+  private void animate(double elapsedSeconds) {
     if (waypoint != null) {
       // get current location and distance from waypoint
       Point location = (Point) tank.getGeometry();
@@ -175,13 +194,15 @@ public class ViewshedGeoElementSample extends Application {
           GeodeticCurveType.GEODESIC);
 
       // move toward waypoint a short distance
-      location = GeometryEngine.moveGeodetic(location, 1.0, METERS, distance.getAzimuth1(), DEGREES,
+      double moveDistance = Math.min(SPEED * elapsedSeconds, distance.getDistance());
+      location = GeometryEngine.moveGeodetic(location, moveDistance, METERS, distance.getAzimuth1(), DEGREES,
           GeodeticCurveType.GEODESIC);
       tank.setGeometry(location);
 
-      // rotate toward waypoint
+      // rotate toward waypoint, closing a tenth of the remaining angle every tenth of a second
       double heading = (double) tank.getAttributes().get("HEADING");
-      tank.getAttributes().put("HEADING", heading + ((distance.getAzimuth1() - heading) / 10));
+      double turn = 1 - Math.pow(0.9, elapsedSeconds * 10);
+      tank.getAttributes().put("HEADING", heading + ((distance.getAzimuth1() - heading) * turn));
 
       // reached waypoint, stop moving
       if (distance.getDistance() <= 5) {
@@ -46,16 +46,32 @@ import com.esri.arcgisruntime.symbology.SimpleMarkerSymbol;
 import com.esri.arcgisruntime.symbology.SimpleRenderer;
 
 import javafx.application.Application;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.BackgroundFill;
+import javafx.scene.layout.CornerRadii;
 import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
 import javafx.stage.Stage;
 
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class AddGraphicsWithRendererSample extends Application {
 
   private MapView mapView;
+  private BulkGraphicsLoader bulkGraphicsLoader;
+
+  // the number of point graphics added by the bulk load button
+  private static final int BULK_POINT_COUNT = 1_000_000;
 
   @Override
   public void start(Stage stage) {
@@ -152,8 +168,56 @@ public class AddGraphicsWithRendererSample extends Application {
       ellipseGraphicOverlay.getGraphics().add(ellipseGraphic);
       mapView.getGraphicsOverlays().add(ellipseGraphicOverlay);
 
-      // add the map view to stack pane
-      stackPane.getChildren().add(mapView);
+      // overlay of many small points, added in bulk without freezing the map view
+      GraphicsOverlay bulkGraphicOverlay = new GraphicsOverlay();
+      SimpleMarkerSymbol bulkPointSymbol = new SimpleMarkerSymbol(SimpleMarkerSymbol.Style.CIRCLE, Color.ORANGE, 3);
+      bulkGraphicOverlay.setRenderer(new SimpleRenderer(bulkPointSymbol));
+      mapView.getGraphicsOverlays().add(bulkGraphicOverlay);
+      bulkGraphicsLoader = new BulkGraphicsLoader(bulkGraphicOverlay);
+
+      // create a control panel with a button to add the points and a label showing the loading statistics
+      VBox controlsVBox = new VBox(6);
+      controlsVBox.setBackground(new Background(new BackgroundFill(Paint.valueOf("rgba(0,0,0,0.3)"), CornerRadii.EMPTY,
+        Insets.EMPTY)));
+      controlsVBox.setPadding(new Insets(10.0));
+      controlsVBox.setMaxSize(220, 80);
+      Button bulkLoadButton = new Button(String.format("Add %,d points", BULK_POINT_COUNT));
+      bulkLoadButton.setMaxWidth(Double.MAX_VALUE);
+      Label statisticsLabel = new Label();
+      statisticsLabel.setTextFill(Color.WHITE);
+      controlsVBox.getChildren().addAll(bulkLoadButton, statisticsLabel);
+
+      // show the number of points added, the rate they are added at and the longest the map view was blocked for
+      Runnable updateStatistics = () -> statisticsLabel.setText(String.format("%,d added, %,.0f/s%nmax stall %.1f ms",
+        bulkGraphicsLoader.addedProperty().get(), bulkGraphicsLoader.graphicsPerSecondProperty().get(),
+        bulkGraphicsLoader.maxStallTimeProperty().get()));
+      bulkGraphicsLoader.addedProperty().addListener(o -> updateStatistics.run());
+      bulkGraphicsLoader.setOnFinished(() -> {
+        updateStatistics.run();
+        bulkLoadButton.setDisable(false);
+      });
+      bulkGraphicsLoader.setOnFailed(exception -> {
+        updateStatistics.run();
+        bulkLoadButton.setDisable(false);
+        new Alert(Alert.AlertType.ERROR, "Failed to add points: " + exception.getMessage()).show();
+      });
+
+      // replace any points already added with randomly placed points, each with an attribute
+      bulkLoadButton.setOnAction(e -> {
+        bulkLoadButton.setDisable(true);
+        bulkGraphicOverlay.getGraphics().clear();
+        bulkGraphicsLoader.load(BULK_POINT_COUNT, i -> {
+          var random = ThreadLocalRandom.current();
+          Point bulkPoint = new Point(random.nextDouble(-20e6, 20e6), random.nextDouble(-15e6, 15e6),
+            SpatialReferences.getWebMercator());
+          return new Graphic(bulkPoint, Map.<String, Object>of("ID", i));
+        });
+      });
+
+      // add the map view and control panel to stack pane
+      stackPane.getChildren().addAll(mapView, controlsVBox);
+      StackPane.setAlignment(controlsVBox, Pos.TOP_LEFT);
+      StackPane.setMargin(controlsVBox, new Insets(10, 0, 0, 10));
 
     } catch (Exception e) {
       e.printStackTrace();
@@ -239,6 +303,9 @@ public class AddGraphicsWithRendererSample extends Application {
   @Override
   public void stop() {
 
+    if (bulkGraphicsLoader != null) {
+      bulkGraphicsLoader.dispose();
+    }
     if (mapView != null) {
       mapView.dispose();
     }
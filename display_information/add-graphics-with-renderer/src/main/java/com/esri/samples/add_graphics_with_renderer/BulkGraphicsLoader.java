@@ -0,0 +1,251 @@
+/*
+ * Copyright 2017 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.add_graphics_with_renderer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import javafx.animation.AnimationTimer;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+
+import com.esri.arcgisruntime.mapping.view.Graphic;
+import com.esri.arcgisruntime.mapping.view.GraphicsOverlay;
+
+/**
+ * Adds a large number of graphics to a graphics overlay without freezing the map view.
+ * <p>
+ * The graphics, with their geometries and attributes, are created in batches on a pool of worker threads. The batches
+ * are added to the graphics overlay from an {@link AnimationTimer} on the JavaFX application thread, as many graphics
+ * per pulse as fit in a fixed time budget, so that the map view keeps drawing and responding between pulses. Only a few
+ * batches wait to be added at a time, so the workers do not run ahead of the overlay. If creating a graphic fails, the
+ * rest of the batches are skipped and loading stops with the graphics added so far left in the overlay.
+ * <p>
+ * The number of graphics added per second, and the longest time the JavaFX application thread was blocked adding
+ * graphics in a single pulse, are measured so the cost of loading can be seen.
+ */
+class BulkGraphicsLoader {
+
+  // the number of graphics created by a worker at once
+  private static final int BATCH_SIZE = 10_000;
+
+  // the number of graphics added to the graphics overlay in a single call
+  private static final int COMMIT_SIZE = 2_000;
+
+  // the time allowed for adding graphics in each pulse, in nanoseconds, leaving most of a 60 fps frame for drawing
+  private static final long FRAME_BUDGET = 4_000_000;
+
+  private final GraphicsOverlay graphicsOverlay;
+  private final ExecutorService executorService;
+  private final int maxWaitingBatches;
+
+  // the batches of the current load waiting to be added, and the first exception thrown creating its graphics
+  private BlockingQueue<List<Graphic>> batches;
+  private AtomicReference<RuntimeException> failure;
+
+  private final AnimationTimer timer = new AnimationTimer() {
+    @Override
+    public void handle(long now) {
+      pulse();
+    }
+  };
+
+  private List<Graphic> batch;
+  private int batchPosition;
+  private int total;
+  private long startTime;
+  private Runnable onFinished;
+  private Consumer<Exception> onFailed;
+
+  private final ReadOnlyIntegerWrapper added = new ReadOnlyIntegerWrapper();
+  private final ReadOnlyDoubleWrapper graphicsPerSecond = new ReadOnlyDoubleWrapper();
+  private final ReadOnlyDoubleWrapper maxStallTime = new ReadOnlyDoubleWrapper();
+
+  /**
+   * Creates a loader for a graphics overlay.
+   *
+   * @param graphicsOverlay the graphics overlay to add graphics to
+   */
+  BulkGraphicsLoader(GraphicsOverlay graphicsOverlay) {
+    this.graphicsOverlay = graphicsOverlay;
+    int workers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    executorService = Executors.newFixedThreadPool(workers, runnable -> {
+      var thread = new Thread(runnable, "bulk-graphics-loader");
+      thread.setDaemon(true);
+      return thread;
+    });
+    maxWaitingBatches = 2 * workers;
+    batches = new ArrayBlockingQueue<>(maxWaitingBatches);
+    failure = new AtomicReference<>();
+  }
+
+  /**
+   * Starts creating graphics and adding them to the graphics overlay. Must be called on the JavaFX application thread,
+   * and not while a previous load is running.
+   *
+   * @param count the number of graphics to add
+   * @param createGraphic creates the graphic for an index from 0 to count, on a worker thread
+   */
+  void load(int count, IntFunction<Graphic> createGraphic) {
+    total = count;
+    added.set(0);
+    graphicsPerSecond.set(0);
+    maxStallTime.set(0);
+    startTime = System.nanoTime();
+    // each load has its own queue and failure, so the batches of a failed load cannot be added by a later one
+    BlockingQueue<List<Graphic>> loadBatches = new ArrayBlockingQueue<>(maxWaitingBatches);
+    AtomicReference<RuntimeException> loadFailure = new AtomicReference<>();
+    batches = loadBatches;
+    failure = loadFailure;
+    for (int start = 0; start < count; start += BATCH_SIZE) {
+      int batchStart = start;
+      int batchEnd = Math.min(start + BATCH_SIZE, count);
+      executorService.execute(() -> {
+        // skip the batch if creating the graphics of another batch has failed
+        if (loadFailure.get() != null) {
+          return;
+        }
+        List<Graphic> graphics = new ArrayList<>(batchEnd - batchStart);
+        try {
+          for (int i = batchStart; i < batchEnd; i++) {
+            graphics.add(createGraphic.apply(i));
+          }
+        } catch (RuntimeException e) {
+          loadFailure.compareAndSet(null, e);
+          return;
+        }
+        try {
+          // wait for the overlay to catch up if enough batches are already waiting
+          loadBatches.put(graphics);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+    }
+    timer.start();
+  }
+
+  /**
+   * Sets an action run on the JavaFX application thread once all the graphics have been added.
+   *
+   * @param onFinished the action, or null for none
+   */
+  void setOnFinished(Runnable onFinished) {
+    this.onFinished = onFinished;
+  }
+
+  /**
+   * Sets an action run on the JavaFX application thread if creating a graphic fails, after loading has stopped.
+   *
+   * @param onFailed the action, given the exception thrown creating the graphic, or null for none
+   */
+  void setOnFailed(Consumer<Exception> onFailed) {
+    this.onFailed = onFailed;
+  }
+
+  /**
+   * Stops loading and releases the worker threads. Graphics already added are left in the graphics overlay.
+   */
+  void dispose() {
+    timer.stop();
+    executorService.shutdownNow();
+    batches.clear();
+  }
+
+  /**
+   * Number of graphics added to the graphics overlay so far.
+   *
+   * @return the added property
+   */
+  ReadOnlyIntegerProperty addedProperty() {
+    return added.getReadOnlyProperty();
+  }
+
+  /**
+   * Mean number of graphics added per second since loading started.
+   *
+   * @return the graphics per second property
+   */
+  ReadOnlyDoubleProperty graphicsPerSecondProperty() {
+    return graphicsPerSecond.getReadOnlyProperty();
+  }
+
+  /**
+   * Longest time spent adding graphics in a single pulse since loading started.
+   *
+   * @return the maximum stall time property, in milliseconds
+   */
+  ReadOnlyDoubleProperty maxStallTimeProperty() {
+    return maxStallTime.getReadOnlyProperty();
+  }
+
+  /**
+   * Adds graphics from the waiting batches until the frame budget is used up or all the graphics are added, or stops
+   * loading if creating a graphic has failed.
+   */
+  private void pulse() {
+    RuntimeException exception = failure.get();
+    if (exception != null) {
+      timer.stop();
+      batch = null;
+      // let any workers waiting to queue a batch finish, as the remaining batches are skipped
+      batches.clear();
+      if (onFailed != null) {
+        onFailed.accept(exception);
+      }
+      return;
+    }
+
+    long pulseStart = System.nanoTime();
+    int count = added.get();
+    while (count < total && System.nanoTime() - pulseStart < FRAME_BUDGET) {
+      if (batch == null || batchPosition == batch.size()) {
+        batch = batches.poll();
+        batchPosition = 0;
+        if (batch == null) {
+          // the workers have not finished the next batch yet
+          break;
+        }
+      }
+      int end = Math.min(batchPosition + COMMIT_SIZE, batch.size());
+      graphicsOverlay.getGraphics().addAll(batch.subList(batchPosition, end));
+      count += end - batchPosition;
+      batchPosition = end;
+    }
+    long pulseEnd = System.nanoTime();
+
+    added.set(count);
+    graphicsPerSecond.set(count * 1e9 / (pulseEnd - startTime));
+    maxStallTime.set(Math.max(maxStallTime.get(), (pulseEnd - pulseStart) / 1e6));
+    if (count == total) {
+      timer.stop();
+      batch = null;
+      if (onFinished != null) {
+        onFinished.run();
+      }
+    }
+  }
+}
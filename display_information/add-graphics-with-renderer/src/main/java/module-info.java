@@ -23,6 +23,7 @@ module com.esri.samples.add_graphics_with_renderer {
 
   // require JavaFX modules that the application uses
   requires javafx.graphics;
+  requires javafx.controls;
 
   exports com.esri.samples.add_graphics_with_renderer;
 }
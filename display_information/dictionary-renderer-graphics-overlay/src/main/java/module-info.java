@@ -23,6 +23,7 @@ module com.esri.samples.dictionary_renderer_graphics_overlay {
 
   // require JavaFX modules that the application uses
   requires javafx.graphics;
+  requires javafx.controls;
 
   // require other modules that the application uses
   requires java.xml;
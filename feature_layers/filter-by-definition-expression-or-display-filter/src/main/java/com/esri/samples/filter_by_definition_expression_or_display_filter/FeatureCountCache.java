@@ -0,0 +1,276 @@
+/*
+ * Copyright 2022 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.filter_by_definition_expression_or_display_filter;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javafx.animation.PauseTransition;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.util.Duration;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.layers.FeatureLayer;
+
+/**
+ * Counts the features of a feature layer in an extent with a single query, keeping the counts of extents and of the
+ * grid tiles inside them counted before.
+ * <p>
+ * The map is divided into a grid of square tiles at a series of levels, where the tiles of each level are half the
+ * size of the tiles of the level before. For each extent, a level is chosen so that many tiles span the extent, and
+ * only the tiles wholly inside the extent are kept. The count of the extent is the sum of the counts of the kept tiles
+ * already counted, and the count of the rest of the extent, which is queried once the extent has stayed the same for a
+ * moment. The counts of extents and tiles are kept for the layer's definition expression at the time, so returning to
+ * an extent or switching back to a filter shows the count at once. While the count of the extent is up to date, up to
+ * a set number of the tiles inside it that have not been counted are queried one at a time, so that less of the next
+ * extents nearby needs to be queried.
+ * <p>
+ * A feature exactly on the border of a counted tile is counted both in the tile and in the rest of the extent. All
+ * methods must be called on the JavaFX application thread.
+ */
+class FeatureCountCache {
+
+  // the number of tiles that span the width of an extent, at least
+  private static final int TILES_ACROSS = 8;
+
+  // the smallest tiles, as a level
+  private static final int MAX_LEVEL = 24;
+
+  // the number of counts kept
+  private static final int MAX_COUNTS = 4_096;
+
+  // the number of tiles of each extent counted while the count of the extent is up to date, at most
+  private static final int MAX_TILE_QUERIES = 4;
+
+  // the time the extent must stay the same before the rest of it is queried
+  private static final Duration DEBOUNCE_TIME = Duration.millis(250);
+
+  private final FeatureLayer featureLayer;
+  private final double baseTileSize;
+
+  // the counts of extents and tiles, in order of least to most recently used
+  private final Map<CountKey, Long> counts = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<CountKey, Long> eldest) {
+      return size() > MAX_COUNTS;
+    }
+  };
+
+  // the extents being counted
+  private final Set<CountKey> pendingExtents = new HashSet<>();
+
+  private final PauseTransition debounce = new PauseTransition(DEBOUNCE_TIME);
+  private final ReadOnlyObjectWrapper<Long> count = new ReadOnlyObjectWrapper<>();
+  private CountKey requestedExtent;
+  private List<CountKey> requestedTiles = List.of();
+  private int tileQueriesLeft;
+  private boolean countingTile;
+
+  /**
+   * Creates an empty cache for a feature layer.
+   *
+   * @param featureLayer the feature layer whose features are counted, with its definition expression
+   * @param baseTileSize the size of the tiles of the first level, in the units of the extents, such as the width of
+   *                     the world
+   */
+  FeatureCountCache(FeatureLayer featureLayer, double baseTileSize) {
+    this.featureLayer = featureLayer;
+    this.baseTileSize = baseTileSize;
+    debounce.setOnFinished(e -> countRequestedExtent());
+  }
+
+  /**
+   * Sets the extent to count the features in with the layer's current definition expression. The count is updated at
+   * once if the extent has been counted before, or else set to null until the extent is counted.
+   *
+   * @param extent the extent
+   */
+  void requestCount(Envelope extent) {
+    var extentKey = new CountKey(currentExpression(), extent);
+    if (!extentKey.equals(requestedExtent)) {
+      requestedExtent = extentKey;
+      requestedTiles = tilesIn(extentKey.expression(), extent);
+      tileQueriesLeft = MAX_TILE_QUERIES;
+    }
+    Long total = counts.get(requestedExtent);
+    count.set(total);
+    if (total == null) {
+      debounce.playFromStart();
+    } else {
+      debounce.stop();
+      countNextTile();
+    }
+  }
+
+  /**
+   * Number of features in the extent last requested, or null while the features are being counted.
+   *
+   * @return the count property
+   */
+  ReadOnlyObjectProperty<Long> countProperty() {
+    return count.getReadOnlyProperty();
+  }
+
+  /**
+   * Queries the count of the part of the requested extent outside the tiles counted before, and keeps the count of the
+   * extent.
+   */
+  private void countRequestedExtent() {
+    CountKey extentKey = requestedExtent;
+    if (counts.containsKey(extentKey) || !pendingExtents.add(extentKey)) {
+      return;
+    }
+
+    long countedTilesTotal = 0;
+    List<Geometry> countedTiles = new ArrayList<>();
+    for (CountKey tile : requestedTiles) {
+      Long tileCount = counts.get(tile);
+      if (tileCount != null) {
+        countedTilesTotal += tileCount;
+        countedTiles.add(tile.extent());
+      }
+    }
+    Geometry rest = countedTiles.isEmpty() ? extentKey.extent() :
+      GeometryEngine.difference(extentKey.extent(), GeometryEngine.union(countedTiles));
+    if (rest.isEmpty()) {
+      pendingExtents.remove(extentKey);
+      counts.put(extentKey, countedTilesTotal);
+      count.set(countedTilesTotal);
+      return;
+    }
+
+    long tilesTotal = countedTilesTotal;
+    var queryParameters = new QueryParameters();
+    queryParameters.setGeometry(rest);
+    ListenableFuture<Long> query = featureLayer.getFeatureTable().queryFeatureCountAsync(queryParameters);
+    query.addDoneListener(() -> {
+      pendingExtents.remove(extentKey);
+      try {
+        long extentCount = tilesTotal + query.get();
+        // only keep the count if the definition expression did not change while counting
+        if (extentKey.expression().equals(currentExpression())) {
+          counts.put(extentKey, extentCount);
+        }
+        if (extentKey.equals(requestedExtent)) {
+          count.set(extentCount);
+          countNextTile();
+        }
+      } catch (Exception e) {
+        e.printStackTrace();
+      }
+    });
+  }
+
+  /**
+   * Queries the count of the next tile of the requested extent that has not been counted, unless a tile is already
+   * being counted or enough tiles of the extent have been, and continues with the tile after it while the count of the
+   * requested extent is up to date.
+   */
+  private void countNextTile() {
+    if (countingTile || tileQueriesLeft == 0) {
+      return;
+    }
+    CountKey tile = requestedTiles.stream().filter(key -> !counts.containsKey(key)).findFirst().orElse(null);
+    if (tile == null) {
+      return;
+    }
+
+    countingTile = true;
+    tileQueriesLeft--;
+    var queryParameters = new QueryParameters();
+    queryParameters.setGeometry(tile.extent());
+    ListenableFuture<Long> query = featureLayer.getFeatureTable().queryFeatureCountAsync(queryParameters);
+    query.addDoneListener(() -> {
+      countingTile = false;
+      try {
+        long tileCount = query.get();
+        // only keep the count if the definition expression did not change while counting
+        if (tile.expression().equals(currentExpression())) {
+          counts.put(tile, tileCount);
+        }
+        // stop while the requested extent is being counted, so its query is not held up
+        if (count.get() != null) {
+          countNextTile();
+        }
+      } catch (Exception e) {
+        e.printStackTrace();
+      }
+    });
+  }
+
+  /**
+   * Gets the layer's definition expression, or an empty string if it has none.
+   */
+  private String currentExpression() {
+    String expression = featureLayer.getDefinitionExpression();
+    return expression == null ? "" : expression;
+  }
+
+  /**
+   * Gets the tiles wholly inside an extent, at a level where many tiles span the extent.
+   */
+  private List<CountKey> tilesIn(String expression, Envelope extent) {
+    double size = Math.max(extent.getWidth(), extent.getHeight());
+    int level = (int) Math.ceil(Math.log(baseTileSize * TILES_ACROSS / size) / Math.log(2));
+    level = Math.max(0, Math.min(MAX_LEVEL, level));
+    double tileSize = baseTileSize / Math.pow(2, level);
+
+    List<CountKey> tiles = new ArrayList<>();
+    long firstColumn = (long) Math.ceil(extent.getXMin() / tileSize);
+    long lastColumn = (long) Math.floor(extent.getXMax() / tileSize) - 1;
+    long firstRow = (long) Math.ceil(extent.getYMin() / tileSize);
+    long lastRow = (long) Math.floor(extent.getYMax() / tileSize) - 1;
+    for (long row = firstRow; row <= lastRow; row++) {
+      for (long column = firstColumn; column <= lastColumn; column++) {
+        tiles.add(new CountKey(expression, new Envelope(column * tileSize, row * tileSize, (column + 1) * tileSize,
+          (row + 1) * tileSize, extent.getSpatialReference())));
+      }
+    }
+    return tiles;
+  }
+
+  /**
+   * An extent or tile, and the definition expression it is counted with.
+   */
+  private record CountKey(String expression, Envelope extent) {
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof CountKey key && expression.equals(key.expression) &&
+        extent.getXMin() == key.extent.getXMin() && extent.getYMin() == key.extent.getYMin() &&
+        extent.getXMax() == key.extent.getXMax() && extent.getYMax() == key.extent.getYMax();
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = expression.hashCode();
+      hash = 31 * hash + Double.hashCode(extent.getXMin());
+      hash = 31 * hash + Double.hashCode(extent.getYMin());
+      hash = 31 * hash + Double.hashCode(extent.getXMax());
+      return 31 * hash + Double.hashCode(extent.getYMax());
+    }
+  }
+}
@@ -17,9 +17,9 @@
 package com.esri.samples.filter_by_definition_expression_or_display_filter;
 
 import java.util.Collections;
-import java.util.concurrent.ExecutionException;
 
 import javafx.application.Application;
+import javafx.beans.binding.Bindings;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -37,7 +37,6 @@ import javafx.scene.paint.Paint;
 import javafx.stage.Stage;
 
 import com.esri.arcgisruntime.ArcGISRuntimeEnvironment;
-import com.esri.arcgisruntime.data.QueryParameters;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.geometry.Envelope;
 import com.esri.arcgisruntime.geometry.Point;
@@ -61,9 +60,12 @@ public class FilterByDefinitionExpressionOrDisplayFilterSample extends Applicati
 
   private MapView mapView;
   private FeatureLayer featureLayer; // keep loadable in scope to avoid garbage collection
+  private FeatureCountCache featureCountCache;
 
   private static final String FEATURE_SERVICE_URL =
     "https://services2.arcgis.com/ZQgQTuoyBrtmoGdP/arcgis/rest/services/SF_311_Incidents/FeatureServer/0";
+  // the width of the world in web mercator, in meters, which is the size of the largest tile of the count cache
+  private static final double WEB_MERCATOR_WORLD_WIDTH = 40_075_016.69;
 
   @Override
   public void start(Stage stage) {
@@ -97,6 +99,8 @@ public class FilterByDefinitionExpressionOrDisplayFilterSample extends Applicati
       featureLayer = new FeatureLayer(new ServiceFeatureTable(FEATURE_SERVICE_URL));
       // add the feature layer to the map's operational layers
       map.getOperationalLayers().add(featureLayer);
+      // create a cache of the feature counts of the parts of the extents counted before
+      featureCountCache = new FeatureCountCache(featureLayer, WEB_MERCATOR_WORLD_WIDTH);
 
       // starting location for sample
       Point startPoint = new Point(-122.45044007080793, 37.775915492745874, SpatialReferences.getWgs84());
@@ -121,6 +125,7 @@ public class FilterByDefinitionExpressionOrDisplayFilterSample extends Applicati
           featureLayer.setDefinitionExpression("");
           // set the display filter definition to the feature layer
           featureLayer.setDisplayFilterDefinition(manualDisplayFilterDefinition);
+          updateFeatureCount();
         }
       );
 
@@ -130,6 +135,7 @@ public class FilterByDefinitionExpressionOrDisplayFilterSample extends Applicati
         featureLayer.setDisplayFilterDefinition(null);
         // set the definition expression to the feature layer
         featureLayer.setDefinitionExpression("req_Type = 'Tree Maintenance or Damage'");
+        updateFeatureCount();
       });
 
       // reset the definition expression and display filter definition on the feature layer
@@ -138,37 +144,22 @@ public class FilterByDefinitionExpressionOrDisplayFilterSample extends Applicati
         featureLayer.setDisplayFilterDefinition(null);
         // reset the definition expression on the feature layer
         featureLayer.setDefinitionExpression("");
+        updateFeatureCount();
       });
 
       // check that the feature layer has loaded, then add a listener to the mapview to count
       // the features visible in the viewpoint extent every time the map is redrawn
       featureLayer.addDoneLoadingListener(() -> {
         if (featureLayer.getLoadStatus() == LoadStatus.LOADED) {
+          // show the count of features in the extent, or that it is being updated while the features are counted
+          featureCountLabel.textProperty().bind(Bindings.createStringBinding(() -> {
+            Long count = featureCountCache.countProperty().get();
+            return count == null ? "updating.." : count.toString();
+          }, featureCountCache.countProperty()));
+
           mapView.drawStatusProperty().addListener((observable, oldValue, newValue) -> {
-            if (newValue == DrawStatus.IN_PROGRESS) {
-              // set the count label text
-              featureCountLabel.setText("updating..");
-            } else {
-              // get the map view's current view point, create query parameters and set the view point to it
-              Envelope viewPointExtent =
-                mapView.getCurrentViewpoint(Viewpoint.Type.BOUNDING_GEOMETRY).getTargetGeometry().getExtent();
-              QueryParameters queryParameters = new QueryParameters();
-              queryParameters.setGeometry(viewPointExtent);
-
-              // update the UI with the count of features in the extent
-              if (!viewPointExtent.isEmpty()) {
-                var queryFeatures = featureLayer.getFeatureTable().queryFeatureCountAsync(queryParameters);
-                // once the query feature count is done, update the label to show the total incidents counted
-                queryFeatures.addDoneListener(() -> {
-                  Long totalIncidentReported;
-                  try {
-                    totalIncidentReported = queryFeatures.get();
-                    featureCountLabel.setText(totalIncidentReported.toString());
-                  } catch (InterruptedException | ExecutionException e) {
-                    e.printStackTrace();
-                  }
-                });
-              }
+            if (newValue == DrawStatus.COMPLETED) {
+              updateFeatureCount();
             }
           });
         } else {
@@ -187,6 +178,20 @@ public class FilterByDefinitionExpressionOrDisplayFilterSample extends Applicati
     }
   }
 
+  /**
+   * Updates the feature count label with the count of features in the map view's current extent, from the counts of
+   * the parts of the extent counted before where possible.
+   */
+  private void updateFeatureCount() {
+    Viewpoint viewpoint = mapView.getCurrentViewpoint(Viewpoint.Type.BOUNDING_GEOMETRY);
+    if (viewpoint != null && featureLayer.getLoadStatus() == LoadStatus.LOADED) {
+      Envelope viewpointExtent = viewpoint.getTargetGeometry().getExtent();
+      if (!viewpointExtent.isEmpty()) {
+        featureCountCache.requestCount(viewpointExtent);
+      }
+    }
+  }
+
   /**
    * Creates a UI with three buttons and a label.
    * @return a vBox populated with buttons and labels
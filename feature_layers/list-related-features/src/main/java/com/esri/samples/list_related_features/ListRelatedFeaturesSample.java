@@ -49,6 +49,7 @@ public class ListRelatedFeaturesSample extends Application {
 
   private MapView mapView;
   private ArcGISMap map; // keep loadable in scope to avoid garbage collection
+  private RelatedFeaturesPrefetcher relatedFeaturesPrefetcher;
 
   @Override
   public void start(Stage stage) {
@@ -92,6 +93,14 @@ public class ListRelatedFeaturesSample extends Application {
         // get the first feature layer for querying
         FeatureLayer featureLayer = (FeatureLayer) map.getOperationalLayers().get(0);
 
+        // fetch the related features of the features in view before they are clicked
+        relatedFeaturesPrefetcher = new RelatedFeaturesPrefetcher((ArcGISFeatureTable) featureLayer.getFeatureTable());
+        mapView.drawStatusProperty().addListener((observable, oldStatus, newStatus) -> {
+          if (newStatus == DrawStatus.COMPLETED && mapView.getVisibleArea() != null) {
+            relatedFeaturesPrefetcher.prefetch(mapView.getVisibleArea().getExtent());
+          }
+        });
+
         mapView.setOnMouseClicked(event -> {
           // check for primary or secondary mouse click
           if (event.isStillSincePress() && event.getButton() == MouseButton.PRIMARY) {
@@ -114,18 +123,16 @@ public class ListRelatedFeaturesSample extends Application {
                 for (GeoElement geoElement : identifiedLayerGeoElements) {
                   ArcGISFeature selectedFeature = (ArcGISFeature) geoElement;
                   featureLayer.selectFeature(selectedFeature);
-                  // get the feature's feature table
-                  ArcGISFeatureTable featureTable = selectedFeature.getFeatureTable();
-
-                  // query related features
-                  final ListenableFuture<List<RelatedFeatureQueryResult>> relatedFeatureQuery = featureTable
-                    .queryRelatedFeaturesAsync(selectedFeature);
-                  relatedFeatureQuery.addDoneListener(() -> {
-                    try {
+
+                  // get the related features, which are usually fetched already
+                  relatedFeaturesPrefetcher.getRelatedFeatures(selectedFeature).whenComplete((results, ex) -> {
+                    if (ex != null) {
+                      Alert alert = new Alert(Alert.AlertType.ERROR, "Failed to get related features");
+                      alert.show();
+                    } else {
                       //clear previous results
                       accordion.getPanes().clear();
                       // add all related features (grouped) into panes of the accordion
-                      List<RelatedFeatureQueryResult> results = relatedFeatureQuery.get();
                       for (RelatedFeatureQueryResult relatedFeatureQueryResult : results) {
                         ListView<String> featureList = new ListView<>();
                         String relatedTableName = relatedFeatureQueryResult.getRelatedTable().getTableName();
@@ -142,9 +149,6 @@ public class ListRelatedFeaturesSample extends Application {
                       }
                       //expand the accordion's last pane to show the related features
                       accordion.setExpandedPane(accordion.getPanes().get(accordion.getPanes().size() - 1));
-                    } catch (InterruptedException | ExecutionException e) {
-                      Alert alert = new Alert(Alert.AlertType.ERROR, "Failed to get related features");
-                      alert.show();
                     }
                   });
                 }
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2017 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.list_related_features;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.esri.arcgisruntime.arcgisservices.RelationshipInfo;
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.ArcGISFeature;
+import com.esri.arcgisruntime.data.ArcGISFeatureTable;
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureQueryResult;
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.data.RelatedFeatureQueryResult;
+import com.esri.arcgisruntime.data.RelatedQueryParameters;
+import com.esri.arcgisruntime.geometry.Envelope;
+
+/**
+ * Fetches the related features of the features of a feature table before they are asked for, and keeps them for the
+ * features used most recently.
+ * <p>
+ * When the visible extent changes, the features in it are queried, and the related features of each one that has not
+ * been fetched are queried with a separate query for each of the table's relationships. Up to a set number of queries
+ * are in progress at once, across features and relationships, and the queries of features that are no longer in view
+ * are dropped before they start. Asking for the related features of a feature, such as when it is clicked, returns the
+ * kept related features at once, joins the queries in progress for it, or queries them ahead of those of the other
+ * features in view.
+ * <p>
+ * All methods must be called on the JavaFX application thread.
+ */
+class RelatedFeaturesPrefetcher {
+
+  // the number of related feature queries in progress at once, at most
+  private static final int MAX_QUERIES = 6;
+
+  // the number of features in the visible extent whose related features are fetched, at most
+  private static final int MAX_FEATURES_IN_VIEW = 100;
+
+  // the number of features whose related features are kept
+  private static final int MAX_CACHED_FEATURES = 500;
+
+  private final ArcGISFeatureTable featureTable;
+
+  // the related features of each feature, keyed by object id, in order of least to most recently used
+  private final Map<Long, List<RelatedFeatureQueryResult>> relatedFeatures = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Long, List<RelatedFeatureQueryResult>> eldest) {
+      return size() > MAX_CACHED_FEATURES;
+    }
+  };
+
+  // the features whose related features are being fetched, keyed by object id, and the queries waiting to start
+  private final Map<Long, Fetch> fetches = new HashMap<>();
+  private final Deque<RelationshipQuery> waitingQueries = new ArrayDeque<>();
+  private int queryCount;
+  private ListenableFuture<FeatureQueryResult> featuresInViewQuery;
+
+  /**
+   * Creates an empty prefetcher for a feature table.
+   *
+   * @param featureTable the loaded feature table whose features' related features are fetched
+   */
+  RelatedFeaturesPrefetcher(ArcGISFeatureTable featureTable) {
+    this.featureTable = featureTable;
+  }
+
+  /**
+   * Drops the waiting queries of the features of the last visible extent, and fetches the related features of the
+   * features in a new visible extent that have not been fetched.
+   *
+   * @param visibleExtent the visible extent
+   */
+  void prefetch(Envelope visibleExtent) {
+    if (featuresInViewQuery != null) {
+      featuresInViewQuery.cancel(true);
+    }
+    // drop the fetches that were neither asked for nor started, as their features may no longer be in view
+    waitingQueries.removeIf(query -> !query.fetch().askedFor && query.fetch().startedCount == 0);
+    fetches.values().removeIf(fetch -> !fetch.askedFor && fetch.startedCount == 0);
+
+    var queryParameters = new QueryParameters();
+    queryParameters.setGeometry(visibleExtent);
+    queryParameters.setMaxFeatures(MAX_FEATURES_IN_VIEW);
+    ListenableFuture<FeatureQueryResult> query = featureTable.queryFeaturesAsync(queryParameters);
+    featuresInViewQuery = query;
+    query.addDoneListener(() -> {
+      if (query.isCancelled()) {
+        return;
+      }
+      featuresInViewQuery = null;
+      try {
+        for (Feature feature : query.get()) {
+          Long objectId = objectIdOf(feature);
+          if (!relatedFeatures.containsKey(objectId) && !fetches.containsKey(objectId)) {
+            fetch(objectId, (ArcGISFeature) feature, false);
+          }
+        }
+        startWaitingQueries();
+      } catch (Exception e) {
+        // the features' related features will be queried when asked for
+        e.printStackTrace();
+      }
+    });
+  }
+
+  /**
+   * Gets the related features of a feature, from those already fetched if possible, or else by fetching them ahead of
+   * those of the features in view.
+   *
+   * @param feature a feature of the table
+   * @return a future that completes on the JavaFX application thread with the results for each relationship
+   */
+  CompletableFuture<List<RelatedFeatureQueryResult>> getRelatedFeatures(ArcGISFeature feature) {
+    Long objectId = objectIdOf(feature);
+    List<RelatedFeatureQueryResult> results = relatedFeatures.get(objectId);
+    if (results != null) {
+      return CompletableFuture.completedFuture(results);
+    }
+
+    Fetch fetch = fetches.get(objectId);
+    if (fetch == null) {
+      fetch = fetch(objectId, feature, true);
+    } else if (!fetch.askedFor) {
+      // move the fetch's waiting queries to the front of the queue
+      fetch.askedFor = true;
+      List<RelationshipQuery> queries = new ArrayList<>();
+      for (RelationshipQuery query : waitingQueries) {
+        if (query.fetch() == fetch) {
+          queries.add(query);
+        }
+      }
+      waitingQueries.removeAll(queries);
+      queueFirst(queries);
+    }
+    startWaitingQueries();
+    return fetch.result;
+  }
+
+  /**
+   * Queues the queries of a feature's related features for each of the table's relationships, ahead of the other
+   * waiting queries if the feature was asked for.
+   */
+  private Fetch fetch(Long objectId, ArcGISFeature feature, boolean askedFor) {
+    List<RelationshipInfo> relationshipInfos = featureTable.getLayerInfo().getRelationshipInfos();
+    var fetch = new Fetch(feature, relationshipInfos.size(), askedFor);
+    if (relationshipInfos.isEmpty()) {
+      relatedFeatures.put(objectId, List.of());
+      fetch.result.complete(List.of());
+      return fetch;
+    }
+
+    fetches.put(objectId, fetch);
+    List<RelationshipQuery> queries = new ArrayList<>();
+    for (int i = 0; i < relationshipInfos.size(); i++) {
+      queries.add(new RelationshipQuery(objectId, fetch, i, new RelatedQueryParameters(relationshipInfos.get(i))));
+    }
+    if (askedFor) {
+      queueFirst(queries);
+    } else {
+      waitingQueries.addAll(queries);
+    }
+    return fetch;
+  }
+
+  /**
+   * Adds queries to the front of the waiting queries, in order.
+   */
+  private void queueFirst(List<RelationshipQuery> queries) {
+    for (int i = queries.size() - 1; i >= 0; i--) {
+      waitingQueries.addFirst(queries.get(i));
+    }
+  }
+
+  /**
+   * Starts waiting queries, until the most queries allowed at once are in progress.
+   */
+  private void startWaitingQueries() {
+    while (queryCount < MAX_QUERIES && !waitingQueries.isEmpty()) {
+      start(waitingQueries.removeFirst());
+    }
+  }
+
+  /**
+   * Starts a query for the related features of a relationship, and when it finishes, keeps the feature's related
+   * features once all its relationships have been queried, and starts the next waiting query.
+   */
+  private void start(RelationshipQuery query) {
+    Fetch fetch = query.fetch();
+    fetch.startedCount++;
+    queryCount++;
+    ListenableFuture<List<RelatedFeatureQueryResult>> future =
+      featureTable.queryRelatedFeaturesAsync(fetch.feature, query.parameters());
+    future.addDoneListener(() -> {
+      queryCount--;
+      try {
+        fetch.results.set(query.index(), future.get());
+        fetch.remainingCount--;
+        if (fetch.remainingCount == 0 && fetches.remove(query.objectId()) == fetch) {
+          List<RelatedFeatureQueryResult> results = new ArrayList<>();
+          fetch.results.forEach(results::addAll);
+          relatedFeatures.put(query.objectId(), results);
+          fetch.result.complete(results);
+        }
+      } catch (Exception e) {
+        // forget the fetch, so the feature's related features are queried again when next asked for
+        if (fetches.remove(query.objectId()) == fetch) {
+          waitingQueries.removeIf(waiting -> waiting.fetch() == fetch);
+          fetch.result.completeExceptionally(e);
+        }
+      }
+      startWaitingQueries();
+    });
+  }
+
+  /**
+   * Gets the object id of a feature of the table.
+   */
+  private Long objectIdOf(Feature feature) {
+    return ((Number) feature.getAttributes().get(featureTable.getObjectIdField())).longValue();
+  }
+
+  /**
+   * The fetching of a feature's related features, with the results of the relationships queried so far.
+   */
+  private static class Fetch {
+
+    private final ArcGISFeature feature;
+    private final List<List<RelatedFeatureQueryResult>> results;
+    private final CompletableFuture<List<RelatedFeatureQueryResult>> result = new CompletableFuture<>();
+    private int remainingCount;
+    private int startedCount;
+    private boolean askedFor;
+
+    Fetch(ArcGISFeature feature, int relationshipCount, boolean askedFor) {
+      this.feature = feature;
+      results = new ArrayList<>(Collections.nCopies(relationshipCount, List.of()));
+      remainingCount = relationshipCount;
+      this.askedFor = askedFor;
+    }
+  }
+
+  /**
+   * A query for a feature's related features of one of the table's relationships.
+   */
+  private record RelationshipQuery(Long objectId, Fetch fetch, int index, RelatedQueryParameters parameters) {
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2018 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.statistical_query_group_and_sort;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureCollectionTable;
+import com.esri.arcgisruntime.data.Field;
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.data.StatisticDefinition;
+import com.esri.arcgisruntime.data.StatisticType;
+import com.esri.arcgisruntime.data.StatisticsQueryParameters;
+import com.esri.arcgisruntime.geometry.GeometryType;
+import com.esri.arcgisruntime.geometry.SpatialReferences;
+
+/**
+ * Measures the time taken by a {@link LocalStatisticsEngine} to copy the values of synthetic county features into its
+ * columns, and to compute the statistics of the population of each state, as when the group-by fields, order-by fields
+ * or statistics of the sample's query are changed.
+ */
+public class LocalStatisticsEngineBenchmark {
+
+  private static final int FEATURE_COUNT = 50_000;
+  private static final int STATE_COUNT = 50;
+  private static final int WARM_UP_RUNS = 2;
+  private static final int RUNS = 5;
+
+  /**
+   * Runs the benchmark and prints the mean time taken to create the engine and to run each query.
+   *
+   * @param args not used
+   */
+  public static void main(String[] args) {
+    List<Feature> features = createFeatures();
+    List<String> fieldNames = List.of("STATE_NAME", "SUB_REGION", "POP2007", "AGE_65_UP");
+    System.out.printf("%d features, %d processors%n", FEATURE_COUNT, Runtime.getRuntime().availableProcessors());
+
+    // statistics of the population of each state, ordered by the total population
+    var groupedParameters = new StatisticsQueryParameters(List.of(
+      new StatisticDefinition("POP2007", StatisticType.COUNT, null),
+      new StatisticDefinition("POP2007", StatisticType.SUM, null),
+      new StatisticDefinition("POP2007", StatisticType.AVERAGE, null),
+      new StatisticDefinition("POP2007", StatisticType.MINIMUM, null),
+      new StatisticDefinition("POP2007", StatisticType.MAXIMUM, null),
+      new StatisticDefinition("AGE_65_UP", StatisticType.STANDARD_DEVIATION, null)));
+    groupedParameters.getGroupByFieldNames().addAll(List.of("SUB_REGION", "STATE_NAME"));
+    groupedParameters.getOrderByFields().add(new QueryParameters.OrderBy("SUM_POP2007",
+      QueryParameters.SortOrder.DESCENDING));
+
+    // the same statistics over all the features
+    var totalParameters = new StatisticsQueryParameters(groupedParameters.getStatisticDefinitions());
+
+    long createTime = 0;
+    long groupedTime = 0;
+    long totalTime = 0;
+    int groupCount = 0;
+    for (int run = 0; run < WARM_UP_RUNS + RUNS; run++) {
+      long start = System.nanoTime();
+      var engine = new LocalStatisticsEngine(features, fieldNames);
+      long createEnd = System.nanoTime();
+      groupCount = engine.query(groupedParameters).size();
+      long groupedEnd = System.nanoTime();
+      engine.query(totalParameters);
+      long totalEnd = System.nanoTime();
+
+      // only time the runs after the warm up
+      if (run >= WARM_UP_RUNS) {
+        createTime += createEnd - start;
+        groupedTime += groupedEnd - createEnd;
+        totalTime += totalEnd - groupedEnd;
+      }
+    }
+
+    System.out.printf("Create engine: %.1f ms%n", createTime / 1e6 / RUNS);
+    System.out.printf("Query grouped by state: %.1f ms, %d groups%n", groupedTime / 1e6 / RUNS, groupCount);
+    System.out.printf("Query without grouping: %.1f ms%n", totalTime / 1e6 / RUNS);
+  }
+
+  /**
+   * Creates synthetic county features, each with a state, a region, an integer population and a share of the
+   * population aged 65 and over, a few of which are missing.
+   */
+  private static List<Feature> createFeatures() {
+    var featureTable = new FeatureCollectionTable(List.of(
+      Field.createString("STATE_NAME", null, 25),
+      Field.createString("SUB_REGION", null, 7),
+      Field.createInteger("POP2007", null),
+      Field.createDouble("AGE_65_UP", null)), GeometryType.POINT, SpatialReferences.getWgs84());
+    String[] regions = {"Pacific", "Mtn", "W N Cen", "W S Cen", "E N Cen", "E S Cen", "New Eng", "Mid Atl", "S Atl"};
+
+    var random = new Random(0);
+    List<Feature> features = new ArrayList<>(FEATURE_COUNT);
+    for (int i = 0; i < FEATURE_COUNT; i++) {
+      int state = random.nextInt(STATE_COUNT);
+      Map<String, Object> attributes = new HashMap<>();
+      attributes.put("STATE_NAME", "State " + state);
+      attributes.put("SUB_REGION", regions[state % regions.length]);
+      attributes.put("POP2007", (int) Math.exp(8 + 2 * random.nextDouble() + random.nextGaussian()));
+      attributes.put("AGE_65_UP", random.nextInt(100) == 0 ? null : 0.1 + 0.1 * random.nextDouble());
+      features.add(featureTable.createFeature(attributes, null));
+    }
+    return features;
+  }
+}
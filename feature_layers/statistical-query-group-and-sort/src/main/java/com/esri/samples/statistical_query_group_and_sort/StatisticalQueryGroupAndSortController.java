@@ -1,14 +1,20 @@
 package com.esri.samples.statistical_query_group_and_sort;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TablePosition;
@@ -20,6 +26,8 @@ import javafx.scene.control.cell.ComboBoxTableCell;
 import javafx.scene.control.cell.PropertyValueFactory;
 
 import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureQueryResult;
 import com.esri.arcgisruntime.data.Field;
 import com.esri.arcgisruntime.data.QueryParameters;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
@@ -45,8 +53,14 @@ public class StatisticalQueryGroupAndSortController {
   @FXML private TableColumn<OrderByField, QueryParameters.SortOrder> orderBySortOrderTableColumn;
   @FXML private Button addOrderByFieldButton;
   @FXML private Button removeOrderByFieldButton;
+  @FXML private CheckBox computeLocallyCheckBox;
+  @FXML private Label statusLabel;
 
   private ServiceFeatureTable featureTable;
+  private LocalStatisticsEngine statisticsEngine;
+
+  // ignore counties with missing data
+  private static final String WHERE_CLAUSE = "\"State\" IS NOT NULL";
 
   public void initialize() {
 
@@ -84,12 +98,62 @@ public class StatisticalQueryGroupAndSortController {
             .toList()).get(0).setGrouping(true);
         orderByTableView.getItems().add(new OrderByField(new QueryParameters.OrderBy("State", QueryParameters.SortOrder
             .ASCENDING)));
+
+        // load the features into memory to compute statistics locally
+        statusLabel.setText("Loading features...");
+        loadFeatures(new ArrayList<>(), fieldNames);
       } else {
         new Alert(Alert.AlertType.ERROR, "Failed to load feature table").show();
       }
     });
   }
 
+  /**
+   * Queries all the features a page at a time, as the service returns a limited number of features for each query, and
+   * creates a local statistics engine from them once they have all been loaded.
+   *
+   * @param features the features loaded so far
+   * @param fieldNames the names of the fields to copy into the engine
+   */
+  private void loadFeatures(List<Feature> features, List<String> fieldNames) {
+    QueryParameters queryParameters = new QueryParameters();
+    queryParameters.setWhereClause(WHERE_CLAUSE);
+    queryParameters.getOrderByFields().add(new QueryParameters.OrderBy(featureTable.getObjectIdField(),
+        QueryParameters.SortOrder.ASCENDING));
+    queryParameters.setResultOffset(features.size());
+    // only the attributes are used by the engine, so leave out the county polygons
+    queryParameters.setReturnGeometry(false);
+
+    ListenableFuture<FeatureQueryResult> query =
+        featureTable.queryFeaturesAsync(queryParameters, ServiceFeatureTable.QueryFeatureFields.LOAD_ALL);
+    query.addDoneListener(() -> {
+      try {
+        FeatureQueryResult result = query.get();
+        result.forEach(features::add);
+        if (result.isTransferLimitExceeded()) {
+          // request the next page
+          loadFeatures(features, fieldNames);
+        } else {
+          // copy the features' values into the engine's columns on a background thread
+          CompletableFuture.supplyAsync(() -> new LocalStatisticsEngine(features, fieldNames))
+              .whenCompleteAsync((engine, ex) -> {
+                if (ex != null) {
+                  statusLabel.setText("Failed to load features for local statistics");
+                  ex.printStackTrace();
+                } else {
+                  statisticsEngine = engine;
+                  computeLocallyCheckBox.setDisable(false);
+                  statusLabel.setText("Loaded " + engine.getFeatureCount() + " features");
+                }
+              }, Platform::runLater);
+        }
+      } catch (Exception ex) {
+        statusLabel.setText("Failed to load features for local statistics");
+        ex.printStackTrace();
+      }
+    });
+  }
+
   /**
    * Add a CheckBox to each Group By field which sets whether that field should be grouped by.
    */
@@ -246,34 +310,62 @@ public class StatisticalQueryGroupAndSortController {
     queryParameters.getOrderByFields().addAll(orderByTableView.getItems().stream().map(OrderByField::getOrderBy).collect(Collectors.toList()));
 
     // ignore counties with missing data
-    queryParameters.setWhereClause("\"State\" IS NOT NULL");
+    queryParameters.setWhereClause(WHERE_CLAUSE);
+
+    // compute the statistics from the features in memory, which have already been filtered by the where clause
+    if (computeLocallyCheckBox.isSelected()) {
+      try {
+        long start = System.nanoTime();
+        List<LocalStatisticsEngine.LocalStatisticRecord> records = statisticsEngine.query(queryParameters);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        records.forEach(record -> addStatisticRecordTreeItem(record.getGroup(), record.getStatistics()));
+        statusLabel.setText(records.size() + " groups computed locally in " + elapsedMillis + " ms");
+      } catch (IllegalArgumentException ex) {
+        new Alert(Alert.AlertType.ERROR, ex.getMessage()).show();
+      }
+      return;
+    }
 
     // execute the statistics query
+    long start = System.nanoTime();
     ListenableFuture<StatisticsQueryResult> statisticsQuery = featureTable.queryStatisticsAsync(queryParameters);
     statisticsQuery.addDoneListener(() -> {
       try {
         // get the query result
         StatisticsQueryResult result = statisticsQuery.get();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
 
         // iterate through the result records
+        int recordCount = 0;
         for (Iterator<StatisticRecord> records = result.iterator(); records.hasNext();) {
           StatisticRecord record = records.next();
-
-          // create a tree item representing the group list
-          TreeItem<String> groupTreeItem = new TreeItem<>(String.join(", ", record.getGroup().values().stream().map
-              (Object::toString).collect(Collectors.toList())));
-          statisticRecordTreeView.getRoot().getChildren().add(groupTreeItem);
-
-          // add child tree items for each record's statistics, showing the statistic name and value
-          List<TreeItem<String>> statisticTreeItems = record.getStatistics().entrySet().stream().map(statistic ->
-            new TreeItem<>(statistic.getKey() + " : " + statistic.getValue())
-          ).collect(Collectors.toList());
-          groupTreeItem.getChildren().addAll(statisticTreeItems);
+          addStatisticRecordTreeItem(record.getGroup(), record.getStatistics());
+          recordCount++;
         }
+        statusLabel.setText(recordCount + " groups queried from the service in " + elapsedMillis + " ms");
       } catch (Exception ex) {
         new Alert(Alert.AlertType.ERROR, ex.getCause().getMessage()).show();
       }
     });
   }
 
+  /**
+   * Adds a tree item for the statistics of a group to the results tree.
+   *
+   * @param group the group-by values of the group
+   * @param statistics the statistics of the group, keyed by name
+   */
+  private void addStatisticRecordTreeItem(Map<String, Object> group, Map<String, Object> statistics) {
+    // create a tree item representing the group list
+    TreeItem<String> groupTreeItem = new TreeItem<>(String.join(", ", group.values().stream().map
+        (String::valueOf).collect(Collectors.toList())));
+    statisticRecordTreeView.getRoot().getChildren().add(groupTreeItem);
+
+    // add child tree items for each record's statistics, showing the statistic name and value
+    List<TreeItem<String>> statisticTreeItems = statistics.entrySet().stream().map(statistic ->
+      new TreeItem<>(statistic.getKey() + " : " + statistic.getValue())
+    ).collect(Collectors.toList());
+    groupTreeItem.getChildren().addAll(statisticTreeItems);
+  }
+
 }
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2018 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.time_based_query;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javafx.concurrent.Task;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.FeatureQueryResult;
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.data.ServiceFeatureTable;
+import com.esri.arcgisruntime.data.StatisticDefinition;
+import com.esri.arcgisruntime.data.StatisticRecord;
+import com.esri.arcgisruntime.data.StatisticType;
+import com.esri.arcgisruntime.data.StatisticsQueryParameters;
+import com.esri.arcgisruntime.data.StatisticsQueryResult;
+
+/**
+ * Populates a service feature table in manual cache mode with all the features matching a query, fetching them a page
+ * at a time with several requests in progress at once.
+ * <p>
+ * A single call to {@link ServiceFeatureTable#populateFromServiceAsync(QueryParameters, boolean, List)} returns at
+ * most the service's maximum record count, and waits for the whole response of one request. This task first queries
+ * the smallest and largest object ids of the features matching the query, then splits that range into pages of object
+ * ids, each no larger than the maximum record count, and populates the table with each page's features without
+ * clearing the features already populated. Up to a set number of pages are requested at once, so the time to load a
+ * large layer falls roughly in proportion to the number of requests at once, until the service is the bottleneck.
+ * <p>
+ * A page that still reaches the service's record limit, such as when the page size is larger than the limit, is split
+ * in two and each half requested again. A page whose request fails is retried a few times, waiting longer each time,
+ * and the task fails once all the other pages have finished if a page could not be populated. Progress is updated as
+ * pages finish, and cancelling the task cancels the requests in progress.
+ */
+class PagedPopulateTask extends Task<Long> {
+
+  // the number of times a page is requested before giving up
+  private static final int MAX_ATTEMPTS = 3;
+
+  // the time waited before retrying a failed page the first time, which doubles on each retry
+  private static final long RETRY_DELAY_MILLIS = 500;
+
+  private static final String MIN_OBJECT_ID = "MIN_OBJECT_ID";
+  private static final String MAX_OBJECT_ID = "MAX_OBJECT_ID";
+
+  private final ServiceFeatureTable featureTable;
+  private final QueryParameters query;
+  private final List<String> outFields;
+  private final int pageSize;
+  private final Semaphore requestPermits;
+
+  // the pages waiting to be requested, and the number of pages not yet finished, including those waiting
+  private final BlockingQueue<Page> pages = new LinkedBlockingQueue<>();
+  private final AtomicInteger unfinishedPageCount = new AtomicInteger();
+  private final AtomicInteger finishedPageCount = new AtomicInteger();
+  private final Set<ListenableFuture<FeatureQueryResult>> requests = ConcurrentHashMap.newKeySet();
+  private final AtomicLong featureCount = new AtomicLong();
+  private final AtomicInteger failedPageCount = new AtomicInteger();
+  private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+  /**
+   * Creates a task to populate a table.
+   *
+   * @param featureTable the table, which must be loaded and in manual cache mode
+   * @param query the query the features must match. Its where clause, geometry, spatial relationship and time extent
+   *              are used.
+   * @param outFields the fields to populate, or {@code List.of("*")} for all fields
+   * @param pageSize the number of object ids in each page, at most the service's maximum record count
+   * @param maxRequests the number of pages that can be requested at once
+   */
+  PagedPopulateTask(ServiceFeatureTable featureTable, QueryParameters query, List<String> outFields, int pageSize,
+      int maxRequests) {
+    this.featureTable = featureTable;
+    this.query = query;
+    this.outFields = List.copyOf(outFields);
+    this.pageSize = pageSize;
+    requestPermits = new Semaphore(maxRequests);
+  }
+
+  /**
+   * Clears the table, and populates it with the features matching the query.
+   *
+   * @return the number of features populated
+   * @throws Exception if the range of object ids cannot be queried, or a page cannot be populated
+   */
+  @Override
+  protected Long call() throws Exception {
+    // find the range of object ids of the features matching the query
+    String objectIdField = featureTable.getObjectIdField();
+    var statisticsQuery = new StatisticsQueryParameters(List.of(
+      new StatisticDefinition(objectIdField, StatisticType.MINIMUM, MIN_OBJECT_ID),
+      new StatisticDefinition(objectIdField, StatisticType.MAXIMUM, MAX_OBJECT_ID)));
+    statisticsQuery.setWhereClause(query.getWhereClause());
+    statisticsQuery.setGeometry(query.getGeometry());
+    statisticsQuery.setSpatialRelationship(query.getSpatialRelationship());
+    StatisticsQueryResult statistics = featureTable.queryStatisticsAsync(statisticsQuery).get();
+    StatisticRecord record = statistics.iterator().next();
+    Map<String, Object> values = record.getStatistics();
+    if (values.get(MIN_OBJECT_ID) == null) {
+      // no features match the query
+      featureTable.clearCache(false);
+      updateProgress(1, 1);
+      return 0L;
+    }
+    long minObjectId = ((Number) values.get(MIN_OBJECT_ID)).longValue();
+    long maxObjectId = ((Number) values.get(MAX_OBJECT_ID)).longValue();
+
+    // split the range into pages, and populate them into the cleared table
+    for (long first = minObjectId; first <= maxObjectId; first += pageSize) {
+      pages.add(new Page(first, Math.min(first + pageSize - 1, maxObjectId), 1));
+    }
+    unfinishedPageCount.set(pages.size());
+    featureTable.clearCache(false);
+    updateProgress(0, pages.size());
+
+    try {
+      while (unfinishedPageCount.get() > 0) {
+        if (isCancelled()) {
+          return featureCount.get();
+        }
+        requestPermits.acquire();
+        // wait for a page, which may be a page split or retried by a request in progress
+        Page page = pages.poll(100, TimeUnit.MILLISECONDS);
+        if (page == null) {
+          requestPermits.release();
+        } else {
+          request(page);
+        }
+      }
+    } finally {
+      requests.forEach(request -> request.cancel(true));
+    }
+
+    if (firstFailure.get() != null) {
+      throw new Exception("Failed to populate " + failedPageCount.get() + " pages of features", firstFailure.get());
+    }
+    return featureCount.get();
+  }
+
+  /**
+   * Requests a page of features, and when it finishes, splits, retries or counts it and releases its permit.
+   */
+  private void request(Page page) {
+    var pageQuery = new QueryParameters();
+    String whereClause = query.getWhereClause();
+    String objectIdClause = featureTable.getObjectIdField() + " >= " + page.firstObjectId() + " AND " +
+      featureTable.getObjectIdField() + " <= " + page.lastObjectId();
+    pageQuery.setWhereClause(whereClause == null || whereClause.isEmpty() ? objectIdClause :
+      "(" + whereClause + ") AND " + objectIdClause);
+    pageQuery.setGeometry(query.getGeometry());
+    pageQuery.setSpatialRelationship(query.getSpatialRelationship());
+    pageQuery.setTimeExtent(query.getTimeExtent());
+
+    ListenableFuture<FeatureQueryResult> result = featureTable.populateFromServiceAsync(pageQuery, false, outFields);
+    requests.add(result);
+    result.addDoneListener(() -> {
+      requests.remove(result);
+      try {
+        FeatureQueryResult features = result.get();
+        if (features.isTransferLimitExceeded() && page.firstObjectId() < page.lastObjectId()) {
+          // the page holds more features than the service returns at once, so request each half of it again
+          long middle = page.firstObjectId() + (page.lastObjectId() - page.firstObjectId()) / 2;
+          unfinishedPageCount.addAndGet(2);
+          pages.add(new Page(page.firstObjectId(), middle, 1));
+          pages.add(new Page(middle + 1, page.lastObjectId(), 1));
+        } else {
+          long count = 0;
+          for (var ignored : features) {
+            count++;
+          }
+          featureCount.addAndGet(count);
+        }
+        finishPage();
+      } catch (Exception e) {
+        if (isCancelled()) {
+          finishPage();
+        } else if (page.attempt() < MAX_ATTEMPTS) {
+          // request the page again after a delay, leaving it unfinished
+          long delay = RETRY_DELAY_MILLIS << (page.attempt() - 1);
+          CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() ->
+            pages.add(new Page(page.firstObjectId(), page.lastObjectId(), page.attempt() + 1)));
+        } else {
+          failedPageCount.incrementAndGet();
+          firstFailure.compareAndSet(null, e);
+          finishPage();
+        }
+      } finally {
+        requestPermits.release();
+      }
+    });
+  }
+
+  /**
+   * Counts a page as finished, and updates the progress.
+   */
+  private void finishPage() {
+    int finished = finishedPageCount.incrementAndGet();
+    updateProgress(finished, finished + unfinishedPageCount.decrementAndGet());
+  }
+
+  /**
+   * A range of object ids to request, and the number of times it has been requested including this time.
+   */
+  private record Page(long firstObjectId, long lastObjectId, int attempt) {
+  }
+}
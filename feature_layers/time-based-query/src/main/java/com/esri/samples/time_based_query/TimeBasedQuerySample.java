@@ -38,8 +38,14 @@ import com.esri.arcgisruntime.mapping.view.MapView;
 
 public class TimeBasedQuerySample extends Application {
 
+  // the maximum number of features the service returns for a request
+  private static final int MAX_RECORD_COUNT = 1000;
+  // the number of pages of features requested at once
+  private static final int MAX_CONCURRENT_REQUESTS = 4;
+
   private MapView mapView;
   private ServiceFeatureTable serviceFeatureTable; // keep loadable in scope to avoid garbage collection
+  private PagedPopulateTask populateTask;
 
   @Override
   public void start(Stage stage) throws Exception {
@@ -88,10 +94,18 @@ public class TimeBasedQuerySample extends Application {
           // return all fields
           List<String> outputFields = Collections.singletonList("*");
 
-          // populate the service with features that fit the time extent, when done zoom to the layer's extent
-          serviceFeatureTable.populateFromServiceAsync(queryParameters, true, outputFields).addDoneListener(() -> {
-            mapView.setViewpointGeometryAsync(serviceFeatureTable.getExtent());
-          });
+          // populate the service with features that fit the time extent, a page of features at a time with several
+          // pages requested at once, when done zoom to the layer's extent
+          populateTask = new PagedPopulateTask(serviceFeatureTable, queryParameters, outputFields, MAX_RECORD_COUNT,
+            MAX_CONCURRENT_REQUESTS);
+          populateTask.setOnSucceeded(e -> mapView.setViewpointGeometryAsync(serviceFeatureTable.getExtent()));
+          populateTask.setOnFailed(e -> new Alert(Alert.AlertType.ERROR, "Error populating features: " +
+            populateTask.getException().getMessage()).show());
+
+          // run the task on a background thread, as it waits for the pages to be populated
+          Thread thread = new Thread(populateTask);
+          thread.setDaemon(true);
+          thread.start();
 
         } else {
           new Alert(Alert.AlertType.ERROR, serviceFeatureTable.getLoadError().getMessage()).show();
@@ -120,6 +134,9 @@ public class TimeBasedQuerySample extends Application {
   public void stop() {
 
     // release resources when the application closes
+    if (populateTask != null) {
+      populateTask.cancel();
+    }
     if (mapView != null) {
       mapView.dispose();
     }
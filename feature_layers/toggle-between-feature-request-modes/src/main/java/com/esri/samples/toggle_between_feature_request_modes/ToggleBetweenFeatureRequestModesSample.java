@@ -18,7 +18,6 @@ package com.esri.samples.toggle_between_feature_request_modes;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import javafx.application.Application;
 import javafx.geometry.Insets;
@@ -34,8 +33,6 @@ import javafx.scene.paint.Paint;
 import javafx.stage.Stage;
 
 import com.esri.arcgisruntime.ArcGISRuntimeEnvironment;
-import com.esri.arcgisruntime.concurrent.ListenableFuture;
-import com.esri.arcgisruntime.data.FeatureQueryResult;
 import com.esri.arcgisruntime.data.QueryParameters;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.layers.FeatureLayer;
@@ -60,8 +57,14 @@ public class ToggleBetweenFeatureRequestModesSample extends Application {
   private ToggleGroup toggleGroup;
   private VBox controlsVBox;
 
+  private PagedPopulateTask populateTask;
+
   private static final String SERVICE_FEATURE_URL =
       "https://services2.arcgis.com/ZQgQTuoyBrtmoGdP/arcgis/rest/services/Trees_of_Portland/FeatureServer/0";
+  // the maximum number of features the service returns for a request
+  private static final int MAX_RECORD_COUNT = 2000;
+  // the number of pages of features requested at once when populating the cache manually
+  private static final int MAX_CONCURRENT_REQUESTS = 4;
 
   @Override
   public void start(Stage stage) {
@@ -96,6 +99,11 @@ public class ToggleBetweenFeatureRequestModesSample extends Application {
       // listen for when a radio button within the toggle group is selected
       toggleGroup.selectedToggleProperty().addListener(e -> {
 
+        // stop populating the cache manually if another request mode is selected
+        if (populateTask != null) {
+          populateTask.cancel();
+        }
+
         // check if the feature layer has already been added to the map's operational layers, and if not, add it
         if (map.getOperationalLayers().size() == 0){
           map.getOperationalLayers().add(featureLayer);
@@ -149,7 +157,8 @@ public class ToggleBetweenFeatureRequestModesSample extends Application {
   }
 
   /**
-   * Fetches the cache from a Service Feature Table manually.
+   * Fetches the cache from a Service Feature Table manually, a page of features at a time with several pages requested
+   * at once.
    */
   private void fetchCacheManually() {
 
@@ -160,23 +169,39 @@ public class ToggleBetweenFeatureRequestModesSample extends Application {
     queryParams.setGeometry(mapView.getVisibleArea().getExtent());
 
     List<String> outfields = Collections.singletonList("*");     // * means all features
-    // get queried features from service feature table and clear previous cache
-    ListenableFuture<FeatureQueryResult> tableResult = featureTable.populateFromServiceAsync(queryParams, true, outfields);
-
-    tableResult.addDoneListener(() -> {
-      try {
-        // find the number of features returned from query
-        AtomicInteger featuresReturned = new AtomicInteger();
-        tableResult.get().forEach(feature -> featuresReturned.getAndIncrement());
-
-        // display number of returned features to the user
-        // note the service has a maximum record count of 2000
-        label.setText("Populated " + featuresReturned + " features.");
-      } catch (Exception e) {
-        // on any error, display the stack trace
-        e.printStackTrace();
+    // get queried features from service feature table and clear previous cache, requesting pages of features no
+    // larger than the service's maximum record count
+    var task = new PagedPopulateTask(featureTable, queryParams, outfields, MAX_RECORD_COUNT, MAX_CONCURRENT_REQUESTS);
+    populateTask = task;
+    populateButton.setDisable(true);
+    label.setText("Populating features...");
+
+    // display the progress of the task as pages of features are populated
+    task.progressProperty().addListener((observable, oldProgress, newProgress) -> {
+      if (newProgress.doubleValue() >= 0 && task.isRunning()) {
+        label.setText(String.format("Populating features... %.0f%%", newProgress.doubleValue() * 100));
+      }
+    });
+
+    // display number of returned features to the user
+    task.setOnSucceeded(e -> label.setText("Populated " + task.getValue() + " features."));
+    task.setOnFailed(e -> {
+      label.setText("Failed to populate features.");
+      new Alert(Alert.AlertType.ERROR, "Error populating features: " + task.getException().getMessage()).show();
+    });
+    task.setOnCancelled(e -> label.setText(""));
+
+    // when the task succeeds, fails or is cancelled, enable the populate button again if manual cache is selected
+    task.runningProperty().addListener((observable, wasRunning, isRunning) -> {
+      if (!isRunning) {
+        populateButton.setDisable(!manualCacheButton.isSelected());
       }
     });
+
+    // run the task on a background thread, as it waits for the pages to be populated
+    Thread thread = new Thread(task);
+    thread.setDaemon(true);
+    thread.start();
   }
 
   /**
@@ -225,6 +250,9 @@ public class ToggleBetweenFeatureRequestModesSample extends Application {
   @Override
   public void stop() {
 
+    if (populateTask != null) {
+      populateTask.cancel();
+    }
     if (mapView != null) {
       mapView.dispose();
     }
@@ -19,6 +19,7 @@ package com.esri.samples.buffer_list;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import javafx.application.Application;
 import javafx.geometry.Insets;
@@ -28,6 +29,7 @@ import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.Spinner;
 import javafx.scene.input.MouseButton;
 import javafx.scene.layout.Background;
@@ -39,6 +41,7 @@ import javafx.scene.paint.Color;
 import javafx.scene.paint.Paint;
 import javafx.stage.Stage;
 
+import com.esri.arcgisruntime.geometry.Envelope;
 import com.esri.arcgisruntime.geometry.Geometry;
 import com.esri.arcgisruntime.geometry.GeometryEngine;
 import com.esri.arcgisruntime.geometry.LinearUnit;
@@ -61,7 +64,11 @@ import com.esri.arcgisruntime.symbology.SimpleMarkerSymbol;
 
 public class BufferListSample extends Application {
 
+  // the number of random points added at once, to buffer many geometries
+  private static final int RANDOM_POINT_COUNT = 10_000;
+
   private MapView mapView;
+  private ParallelBufferTask bufferTask;
 
   @Override
   public void start(Stage stage) {
@@ -130,7 +137,7 @@ public class BufferListSample extends Application {
       controlsVBox.setBackground(new Background(new BackgroundFill(Paint.valueOf("rgba(0,0,0,0.3)"), CornerRadii.EMPTY,
           Insets.EMPTY)));
       controlsVBox.setPadding(new Insets(10.0));
-      controlsVBox.setMaxSize(200, 150);
+      controlsVBox.setMaxSize(200, 220);
       controlsVBox.getStyleClass().add("panel-region");
 
       // create a spinner to set the buffer size (in miles)
@@ -154,6 +161,16 @@ public class BufferListSample extends Application {
       Button clearButton = new Button("Clear");
       controlsVBox.getChildren().add(clearButton);
 
+      // create a button to add many random points to buffer
+      Button randomPointsButton = new Button("Add 10,000 random points");
+      controlsVBox.getChildren().add(randomPointsButton);
+
+      // create a progress bar to show the progress of buffering
+      ProgressBar progressBar = new ProgressBar();
+      progressBar.setMaxWidth(Double.MAX_VALUE);
+      progressBar.setVisible(false);
+      controlsVBox.getChildren().add(progressBar);
+
       // when the user clicks the map, save the clicked location, along with the current distance value
       List<Geometry> geometries = new ArrayList<>();
       List<Double> distances = new ArrayList<>();
@@ -176,19 +193,67 @@ public class BufferListSample extends Application {
         }
       });
 
+      // add random points within the valid area, with the current distance value
+      Random random = new Random();
+      randomPointsButton.setOnAction(e -> {
+        Envelope extent = boundaryPolygon.getExtent();
+        double distance = miles.convertTo(meters, distanceSpinner.getValue());
+        List<Graphic> markers = new ArrayList<>(RANDOM_POINT_COUNT);
+        while (markers.size() < RANDOM_POINT_COUNT) {
+          Point point = new Point(extent.getXMin() + random.nextDouble() * extent.getWidth(),
+              extent.getYMin() + random.nextDouble() * extent.getHeight(), statePlaneNorthCentralTexas);
+          if (GeometryEngine.contains(boundaryPolygon, point)) {
+            geometries.add(point);
+            distances.add(distance);
+            markers.add(new Graphic(point, markerSymbol));
+          }
+        }
+        bufferGraphicsOverlay.getGraphics().addAll(markers);
+      });
+
       // draw the buffer(s) when the button is clicked
       createButton.setOnAction(e -> {
         // if the buffers are unioned, only one polygon is returned
         if (!geometries.isEmpty() && !distances.isEmpty()) {
-          List<Polygon> buffers = GeometryEngine.buffer(geometries, distances, unionCheckBox.isSelected());
-          buffers.forEach(bufferGeometry -> {
-            Graphic bufferGraphic = new Graphic(bufferGeometry, fillSymbol);
-            bufferGraphicsOverlay.getGraphics().add(bufferGraphic);
+          // buffer the geometries in parallel on background threads, so the map view keeps responding
+          ParallelBufferTask task = new ParallelBufferTask(geometries, distances, unionCheckBox.isSelected());
+          bufferTask = task;
+          progressBar.progressProperty().bind(task.progressProperty());
+          progressBar.setVisible(true);
+          createButton.setDisable(true);
+          randomPointsButton.setDisable(true);
+
+          task.setOnSucceeded(event -> {
+            List<Graphic> bufferGraphics = new ArrayList<>();
+            task.getValue().forEach(bufferGeometry -> bufferGraphics.add(new Graphic(bufferGeometry, fillSymbol)));
+            bufferGraphicsOverlay.getGraphics().addAll(bufferGraphics);
+          });
+          task.setOnFailed(event -> {
+            Alert alert = new Alert(Alert.AlertType.ERROR, "Error creating buffers: " + task.getException().getMessage());
+            alert.initOwner(mapView.getScene().getWindow());
+            alert.show();
           });
+          // when the task succeeds, fails or is cancelled, enable the controls again
+          task.runningProperty().addListener((observable, wasRunning, isRunning) -> {
+            if (!isRunning) {
+              progressBar.progressProperty().unbind();
+              progressBar.setVisible(false);
+              createButton.setDisable(false);
+              randomPointsButton.setDisable(false);
+            }
+          });
+
+          Thread thread = new Thread(task);
+          thread.setDaemon(true);
+          thread.start();
         }
       });
 
       clearButton.setOnAction(e -> {
+        // stop any buffering in progress
+        if (bufferTask != null) {
+          bufferTask.cancel();
+        }
         bufferGraphicsOverlay.getGraphics().clear();
         geometries.clear();
         distances.clear();
@@ -210,6 +275,9 @@ public class BufferListSample extends Application {
   @Override
   public void stop() {
 
+    if (bufferTask != null) {
+      bufferTask.cancel();
+    }
     if (mapView != null) {
       mapView.dispose();
     }
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2018 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.buffer_list;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javafx.concurrent.Task;
+
+import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.Polygon;
+
+/**
+ * Buffers a large list of geometries on a fork-join pool, optionally unioning the buffers into one polygon.
+ * <p>
+ * The geometries are split into chunks that are buffered in parallel on the common fork-join pool. To union the
+ * buffers, the geometries are first sorted along a Z-order curve of their centers, so that each chunk holds geometries
+ * near each other. Each chunk is buffered and unioned into a single polygon, and neighbouring polygons are then unioned
+ * in pairs, and the pairs in pairs, up a tree to a single polygon. Each union combines polygons of a similar size that
+ * mostly overlap, which is much faster than unioning every buffer at once, and the unions of different branches also
+ * run in parallel.
+ * <p>
+ * Progress is updated as chunks are buffered and unioned, and cancelling the task stops it before the next chunk or
+ * union starts.
+ */
+class ParallelBufferTask extends Task<List<Polygon>> {
+
+  // the number of geometries buffered together in each chunk
+  private static final int CHUNK_SIZE = 512;
+
+  private final List<Geometry> geometries;
+  private final List<Double> distances;
+  private final boolean union;
+
+  private final AtomicLong workDone = new AtomicLong();
+  private long workTotal;
+
+  /**
+   * Creates a task to buffer geometries.
+   *
+   * @param geometries the geometries to buffer, all in the same projected spatial reference
+   * @param distances the buffer distance of each geometry, in the units of the spatial reference
+   * @param union whether to union the buffers into one polygon
+   */
+  ParallelBufferTask(List<Geometry> geometries, List<Double> distances, boolean union) {
+    // copy the lists, as the originals may change on the JavaFX application thread while the task runs
+    this.geometries = List.copyOf(geometries);
+    this.distances = List.copyOf(distances);
+    this.union = union;
+  }
+
+  /**
+   * Buffers the geometries.
+   *
+   * @return the buffer of each geometry in the order given, or a single polygon if the buffers are unioned
+   */
+  @Override
+  protected List<Polygon> call() {
+    int count = geometries.size();
+    if (count == 0) {
+      return List.of();
+    }
+    int chunkCount = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    // each geometry buffered, and each union of two chunks, is a unit of work
+    workTotal = count + (union ? chunkCount - 1 : 0);
+    updateProgress(0, workTotal);
+
+    int[] order = union ? zOrder() : null;
+    return ForkJoinPool.commonPool().invoke(new BufferChunks(order, 0, chunkCount));
+  }
+
+  /**
+   * Gets the order of the geometries along a Z-order curve of the centers of their extents, so that geometries near
+   * each other are near each other in the order.
+   */
+  private int[] zOrder() {
+    int count = geometries.size();
+    double[] xs = new double[count];
+    double[] ys = new double[count];
+    double xMin = Double.POSITIVE_INFINITY;
+    double yMin = Double.POSITIVE_INFINITY;
+    double xMax = Double.NEGATIVE_INFINITY;
+    double yMax = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < count; i++) {
+      Envelope extent = geometries.get(i).getExtent();
+      xs[i] = (extent.getXMin() + extent.getXMax()) / 2;
+      ys[i] = (extent.getYMin() + extent.getYMax()) / 2;
+      xMin = Math.min(xMin, xs[i]);
+      yMin = Math.min(yMin, ys[i]);
+      xMax = Math.max(xMax, xs[i]);
+      yMax = Math.max(yMax, ys[i]);
+    }
+
+    // scale the centers to 15 bit cells and interleave the bits of the cells, keeping the keys positive
+    long[] keys = new long[count];
+    double xScale = xMax > xMin ? 32767 / (xMax - xMin) : 0;
+    double yScale = yMax > yMin ? 32767 / (yMax - yMin) : 0;
+    for (int i = 0; i < count; i++) {
+      long key = interleave((int) ((xs[i] - xMin) * xScale)) | (interleave((int) ((ys[i] - yMin) * yScale)) << 1);
+      // keep the index in the low bits so that sorting the keys sorts the indexes
+      keys[i] = (key << 32) | i;
+    }
+    Arrays.sort(keys);
+    int[] order = new int[count];
+    for (int i = 0; i < count; i++) {
+      order[i] = (int) keys[i];
+    }
+    return order;
+  }
+
+  /**
+   * Spreads the 15 bits of a value out to the even bits of the result.
+   */
+  private static long interleave(int value) {
+    long bits = value & 0x7FFF;
+    bits = (bits | (bits << 8)) & 0x00FF00FFL;
+    bits = (bits | (bits << 4)) & 0x0F0F0F0FL;
+    bits = (bits | (bits << 2)) & 0x33333333L;
+    bits = (bits | (bits << 1)) & 0x55555555L;
+    return bits;
+  }
+
+  /**
+   * Adds to the work done and updates the progress.
+   */
+  private void addWork(long work) {
+    updateProgress(workDone.addAndGet(work), workTotal);
+  }
+
+  /**
+   * Stops the branch of work if the task has been cancelled.
+   */
+  private void checkCancelled() {
+    if (isCancelled()) {
+      throw new CancellationException();
+    }
+  }
+
+  /**
+   * Buffers a range of chunks, by buffering a single chunk, or splitting the range in two and buffering the halves in
+   * parallel. If the buffers are unioned, the union of each half is unioned into a single polygon.
+   */
+  private class BufferChunks extends RecursiveTask<List<Polygon>> {
+
+    private final int[] order;
+    private final int startChunk;
+    private final int endChunk;
+
+    /**
+     * Creates a task to buffer a range of chunks.
+     */
+    BufferChunks(int[] order, int startChunk, int endChunk) {
+      this.order = order;
+      this.startChunk = startChunk;
+      this.endChunk = endChunk;
+    }
+
+    @Override
+    protected List<Polygon> compute() {
+      checkCancelled();
+      if (endChunk - startChunk == 1) {
+        return bufferChunk();
+      }
+
+      int middleChunk = (startChunk + endChunk) >>> 1;
+      var first = new BufferChunks(order, startChunk, middleChunk);
+      var second = new BufferChunks(order, middleChunk, endChunk);
+      first.fork();
+      List<Polygon> secondBuffers = second.compute();
+      List<Polygon> firstBuffers = first.join();
+      checkCancelled();
+
+      if (union) {
+        addWork(1);
+        // a chunk with no area, such as points buffered by zero, has no buffer to union
+        if (firstBuffers.isEmpty() || secondBuffers.isEmpty()) {
+          return firstBuffers.isEmpty() ? secondBuffers : firstBuffers;
+        }
+        return List.of((Polygon) GeometryEngine.union(firstBuffers.get(0), secondBuffers.get(0)));
+      }
+      List<Polygon> buffers = new ArrayList<>(firstBuffers.size() + secondBuffers.size());
+      buffers.addAll(firstBuffers);
+      buffers.addAll(secondBuffers);
+      return buffers;
+    }
+
+    /**
+     * Buffers the geometries of a single chunk.
+     */
+    private List<Polygon> bufferChunk() {
+      int start = startChunk * CHUNK_SIZE;
+      int end = Math.min(start + CHUNK_SIZE, geometries.size());
+      List<Geometry> chunkGeometries = new ArrayList<>(end - start);
+      List<Double> chunkDistances = new ArrayList<>(end - start);
+      for (int i = start; i < end; i++) {
+        int index = order != null ? order[i] : i;
+        chunkGeometries.add(geometries.get(index));
+        chunkDistances.add(distances.get(index));
+      }
+      List<Polygon> buffers = GeometryEngine.buffer(chunkGeometries, chunkDistances, union);
+      addWork(end - start);
+      return buffers;
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.convex_hull;
+
+import java.util.Random;
+
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.Multipoint;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.PointCollection;
+import com.esri.arcgisruntime.geometry.Polygon;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+import com.esri.arcgisruntime.geometry.SpatialReferences;
+
+/**
+ * Compares the time taken to find the convex hull of millions of points with a single call to
+ * {@link GeometryEngine#convexHull(Geometry)} on a multipoint of all the points, and with a {@link ConvexHullBuilder}
+ * streaming the points. The points are scattered around a location like GPS fixes, and are generated again for each
+ * run, as if read from a query.
+ */
+public class ConvexHullBenchmark {
+
+  private static final int POINT_COUNT = 2_000_000;
+  private static final int WARM_UP_RUNS = 2;
+  private static final int RUNS = 5;
+
+  /**
+   * Runs the benchmark and prints the mean time of each method.
+   *
+   * @param args not used
+   * @throws InterruptedException if interrupted while hulling
+   */
+  public static void main(String[] args) throws InterruptedException {
+    SpatialReference spatialReference = SpatialReferences.getWebMercator();
+    System.out.printf("%d points, %d processors%n", POINT_COUNT, Runtime.getRuntime().availableProcessors());
+
+    Geometry singleCallHull = null;
+    Geometry builderHull = null;
+    long singleCallTime = 0;
+    long builderTime = 0;
+    long candidates = 0;
+    for (int run = 0; run < WARM_UP_RUNS + RUNS; run++) {
+      long start = System.nanoTime();
+      var random = new Random(run);
+      var points = new PointCollection(spatialReference);
+      for (int i = 0; i < POINT_COUNT; i++) {
+        points.add(new Point(x(random), y(random)));
+      }
+      singleCallHull = GeometryEngine.convexHull(new Multipoint(points));
+      long singleCallEnd = System.nanoTime();
+
+      random = new Random(run);
+      var builder = new ConvexHullBuilder(spatialReference);
+      for (int i = 0; i < POINT_COUNT; i++) {
+        builder.add(x(random), y(random));
+      }
+      builderHull = builder.toGeometry();
+      long builderEnd = System.nanoTime();
+
+      // only time the runs after the warm up
+      if (run >= WARM_UP_RUNS) {
+        singleCallTime += singleCallEnd - start;
+        builderTime += builderEnd - singleCallEnd;
+        candidates += builder.getCandidateCount();
+      }
+    }
+
+    System.out.printf("Single call: %.1f ms, %d hull vertices%n", singleCallTime / 1e6 / RUNS,
+      vertexCount(singleCallHull));
+    System.out.printf("Builder: %.1f ms, %d hull vertices, %.1f%% of points hulled after the quadrilateral filter%n",
+      builderTime / 1e6 / RUNS, vertexCount(builderHull), 100.0 * candidates / RUNS / POINT_COUNT);
+    System.out.printf("Hulls equal: %b%n", GeometryEngine.equals(singleCallHull, builderHull));
+  }
+
+  /**
+   * Gets a random x coordinate, in meters, of a point scattered around a location.
+   */
+  private static double x(Random random) {
+    return -13_046_000 + random.nextGaussian() * 5_000;
+  }
+
+  /**
+   * Gets a random y coordinate, in meters, of a point scattered around a location.
+   */
+  private static double y(Random random) {
+    return 4_036_000 + random.nextGaussian() * 5_000;
+  }
+
+  /**
+   * Gets the number of vertices of a hull polygon.
+   */
+  private static int vertexCount(Geometry hull) {
+    return hull instanceof Polygon polygon ? polygon.getParts().get(0).getPointCount() : 1;
+  }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2018 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.convex_hull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.Multipart;
+import com.esri.arcgisruntime.geometry.Multipoint;
+import com.esri.arcgisruntime.geometry.Part;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.PointCollection;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+
+/**
+ * Builds the convex hull of a stream of points, such as the points of a query result read one feature at a time,
+ * without keeping all the points in memory.
+ * <p>
+ * Points are collected as coordinates into chunks, and each full chunk is hulled on the common fork-join pool while the
+ * next chunk is collected. The hull of a chunk is found in two steps. First, the points with the smallest and largest x
+ * and y make a quadrilateral, and every point inside it is dropped, as it cannot be on the hull (the Akl-Toussaint
+ * heuristic). This usually drops most of the points. Second, the hull of the points left is found with Andrew's
+ * monotone chain algorithm. Only the vertices of each chunk's hull are kept, and as the hull of all the points is the
+ * hull of the chunk hulls, {@link GeometryEngine#convexHull(Geometry)} is finally called with just those vertices.
+ * <p>
+ * Points must be added from one thread at a time.
+ */
+class ConvexHullBuilder {
+
+  // the number of points hulled together in each chunk
+  private static final int CHUNK_SIZE = 65_536;
+
+  // the number of chunks that can be waiting to be hulled, which limits the points held in memory
+  private static final int MAX_PENDING_CHUNKS = 2 * Runtime.getRuntime().availableProcessors();
+
+  private final SpatialReference spatialReference;
+  private final Semaphore pendingChunks = new Semaphore(MAX_PENDING_CHUNKS);
+  private final List<CompletableFuture<double[]>> chunkHulls = new ArrayList<>();
+  private final AtomicLong candidateCount = new AtomicLong();
+
+  private double[] chunk = new double[2 * CHUNK_SIZE];
+  private int chunkSize;
+  private long pointCount;
+
+  /**
+   * Creates a builder with no points.
+   *
+   * @param spatialReference the spatial reference of the points, which should be projected for the hull to be
+   *                         accurate
+   */
+  ConvexHullBuilder(SpatialReference spatialReference) {
+    this.spatialReference = spatialReference;
+  }
+
+  /**
+   * Adds a point from its coordinates.
+   *
+   * @param x the x coordinate
+   * @param y the y coordinate
+   * @throws InterruptedException if interrupted while waiting for a chunk to be hulled
+   */
+  void add(double x, double y) throws InterruptedException {
+    chunk[2 * chunkSize] = x;
+    chunk[2 * chunkSize + 1] = y;
+    pointCount++;
+    if (++chunkSize == CHUNK_SIZE) {
+      submitChunk();
+    }
+  }
+
+  /**
+   * Adds the points of a geometry: a point, the points of a multipoint, or the vertices of a polyline or polygon.
+   *
+   * @param geometry the geometry, in the spatial reference of the builder
+   * @throws InterruptedException if interrupted while waiting for a chunk to be hulled
+   */
+  void add(Geometry geometry) throws InterruptedException {
+    if (geometry instanceof Point point) {
+      add(point.getX(), point.getY());
+    } else if (geometry instanceof Multipoint multipoint) {
+      for (Point point : multipoint.getPoints()) {
+        add(point.getX(), point.getY());
+      }
+    } else if (geometry instanceof Multipart multipart) {
+      for (Part part : multipart.getParts()) {
+        for (Point point : part.getPoints()) {
+          add(point.getX(), point.getY());
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the convex hull of all the points added, waiting for any chunks still being hulled.
+   *
+   * @return a point, polyline or polygon, as returned by {@link GeometryEngine#convexHull(Geometry)}, or null if no
+   * points have been added
+   */
+  Geometry toGeometry() {
+    if (chunkSize > 0) {
+      // hull the last chunk on this thread, as there is nothing else to do while it is hulled
+      chunkHulls.add(CompletableFuture.completedFuture(hullOf(chunk, chunkSize)));
+      chunk = new double[2 * CHUNK_SIZE];
+      chunkSize = 0;
+    }
+    if (chunkHulls.isEmpty()) {
+      return null;
+    }
+
+    // the hull of all the points is the hull of the vertices of the chunk hulls
+    var vertices = new PointCollection(spatialReference);
+    for (CompletableFuture<double[]> chunkHull : chunkHulls) {
+      double[] hull = chunkHull.join();
+      for (int i = 0; i < hull.length; i += 2) {
+        vertices.add(new Point(hull[i], hull[i + 1]));
+      }
+    }
+    return GeometryEngine.convexHull(new Multipoint(vertices));
+  }
+
+  /**
+   * Gets the number of points added.
+   *
+   * @return the number of points
+   */
+  long getPointCount() {
+    return pointCount;
+  }
+
+  /**
+   * Gets the number of points left after dropping the points inside each chunk's quadrilateral, which were hulled.
+   *
+   * @return the number of points hulled
+   */
+  long getCandidateCount() {
+    return candidateCount.get();
+  }
+
+  /**
+   * Starts hulling the full chunk on the common fork-join pool, waiting first if too many chunks are still waiting to
+   * be hulled.
+   */
+  private void submitChunk() throws InterruptedException {
+    pendingChunks.acquire();
+    double[] points = chunk;
+    int size = chunkSize;
+    chunkHulls.add(CompletableFuture.supplyAsync(() -> {
+      try {
+        return hullOf(points, size);
+      } finally {
+        pendingChunks.release();
+      }
+    }));
+    chunk = new double[2 * CHUNK_SIZE];
+    chunkSize = 0;
+  }
+
+  /**
+   * Finds the vertices of the convex hull of a chunk of points.
+   *
+   * @param points the coordinates of the points, as x, y pairs
+   * @param size the number of points
+   * @return the coordinates of the hull vertices, as x, y pairs
+   */
+  private double[] hullOf(double[] points, int size) {
+    // find the points with the smallest and largest x and y
+    int left = 0;
+    int right = 0;
+    int bottom = 0;
+    int top = 0;
+    for (int i = 1; i < size; i++) {
+      if (points[2 * i] < points[2 * left]) left = i;
+      if (points[2 * i] > points[2 * right]) right = i;
+      if (points[2 * i + 1] < points[2 * bottom + 1]) bottom = i;
+      if (points[2 * i + 1] > points[2 * top + 1]) top = i;
+    }
+
+    // drop the points strictly inside the quadrilateral of those points, whose corners are in counterclockwise order
+    int[] corners = {left, bottom, right, top};
+    List<Integer> candidates = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      if (!insideQuadrilateral(points, corners, points[2 * i], points[2 * i + 1])) {
+        candidates.add(i);
+      }
+    }
+    candidateCount.addAndGet(candidates.size());
+
+    // sort the points left by x, then y, and find the lower and upper halves of the hull with the monotone chain
+    candidates.sort(Comparator.<Integer>comparingDouble(i -> points[2 * i])
+      .thenComparingDouble(i -> points[2 * i + 1]));
+    int[] hull = new int[2 * candidates.size()];
+    int hullSize = 0;
+    for (int pass = 0; pass < 2; pass++) {
+      int lowerSize = hullSize;
+      for (int c = 0; c < candidates.size(); c++) {
+        int i = candidates.get(pass == 0 ? c : candidates.size() - 1 - c);
+        while (hullSize >= lowerSize + 2 && cross(points, hull[hullSize - 2], hull[hullSize - 1], i) <= 0) {
+          hullSize--;
+        }
+        hull[hullSize++] = i;
+      }
+      // the last point of each half is the first point of the other
+      hullSize--;
+    }
+
+    double[] coordinates = new double[2 * Math.max(hullSize, 1)];
+    for (int i = 0; i < coordinates.length / 2; i++) {
+      coordinates[2 * i] = points[2 * hull[i]];
+      coordinates[2 * i + 1] = points[2 * hull[i] + 1];
+    }
+    return coordinates;
+  }
+
+  /**
+   * Checks if a point is strictly inside a convex quadrilateral. A quadrilateral with repeated corners contains no
+   * points.
+   */
+  private static boolean insideQuadrilateral(double[] points, int[] corners, double x, double y) {
+    for (int c = 0; c < 4; c++) {
+      int from = corners[c];
+      int to = corners[(c + 1) % 4];
+      double edgeX = points[2 * to] - points[2 * from];
+      double edgeY = points[2 * to + 1] - points[2 * from + 1];
+      if (edgeX * (y - points[2 * from + 1]) - edgeY * (x - points[2 * from]) <= 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Gets the cross product of the vectors from point o to points a and b, which is positive if o, a, b turn
+   * counterclockwise.
+   */
+  private static double cross(double[] points, int o, int a, int b) {
+    return (points[2 * a] - points[2 * o]) * (points[2 * b + 1] - points[2 * o + 1]) -
+      (points[2 * a + 1] - points[2 * o + 1]) * (points[2 * b] - points[2 * o]);
+  }
+}
@@ -16,8 +16,12 @@
 
 package com.esri.samples.densify_and_generalize;
 
+import java.util.Random;
+
+import javafx.beans.binding.Bindings;
 import javafx.fxml.FXML;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
 import javafx.scene.control.Slider;
 import javafx.scene.paint.Color;
 
@@ -26,28 +30,38 @@ import com.esri.arcgisruntime.geometry.GeometryEngine;
 import com.esri.arcgisruntime.geometry.Multipoint;
 import com.esri.arcgisruntime.geometry.Point;
 import com.esri.arcgisruntime.geometry.PointCollection;
+import com.esri.arcgisruntime.geometry.Polygon;
 import com.esri.arcgisruntime.geometry.Polyline;
 import com.esri.arcgisruntime.geometry.SpatialReference;
+import com.esri.arcgisruntime.geometry.SpatialReferences;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.BasemapStyle;
 import com.esri.arcgisruntime.mapping.view.Graphic;
 import com.esri.arcgisruntime.mapping.view.GraphicsOverlay;
 import com.esri.arcgisruntime.mapping.view.MapView;
+import com.esri.arcgisruntime.symbology.SimpleFillSymbol;
 import com.esri.arcgisruntime.symbology.SimpleLineSymbol;
 import com.esri.arcgisruntime.symbology.SimpleMarkerSymbol;
 
 public class DensifyAndGeneralizeController {
 
+  // the number of detailed polygons to show, and the number of vertices of each
+  private static final int DETAILED_POLYGON_COUNT = 100;
+  private static final int DETAILED_POLYGON_VERTICES = 2000;
+
   @FXML private MapView mapView;
   @FXML private Slider maxSegmentLengthSlider;
   @FXML private Slider maxDeviationSlider;
   @FXML private CheckBox resultVisibilityCheckBox;
   @FXML private CheckBox densifyCheckBox;
   @FXML private CheckBox generalizeCheckBox;
+  @FXML private CheckBox detailedPolygonsCheckBox;
+  @FXML private Label vertexCountLabel;
 
   private Polyline originalPolyline;
   private Graphic resultPointsGraphic;
   private Graphic resultPolylineGraphic;
+  private GraphicsOverlay detailedPolygonsGraphicsOverlay;
 
   @FXML
   public void initialize() {
@@ -98,6 +112,38 @@ public class DensifyAndGeneralizeController {
     maxSegmentLengthSlider.setValue(100);
     maxDeviationSlider.setValue(10);
 
+    // show detailed polygons around the river, with generalized versions kept for resolutions from a quarter of a
+    // meter to 256 meters of the polygons' spatial reference per pixel
+    detailedPolygonsGraphicsOverlay = new GraphicsOverlay();
+    detailedPolygonsGraphicsOverlay.setVisible(detailedPolygonsCheckBox.isSelected());
+    mapView.getGraphicsOverlays().add(0, detailedPolygonsGraphicsOverlay);
+    var generalizationCache = new GeneralizationCache(0.25, 256);
+    var fillSymbol = new SimpleFillSymbol(SimpleFillSymbol.Style.SOLID, Color.web("cyan", 0.3),
+      new SimpleLineSymbol(SimpleLineSymbol.Style.SOLID, Color.CYAN, 1));
+    PointCollection centerPoints = createShipPoints();
+    Point center = centerPoints.get(centerPoints.size() / 2);
+    var random = new Random(0);
+    for (int i = 0; i < DETAILED_POLYGON_COUNT; i++) {
+      var polygonGraphic = new Graphic(createDetailedPolygon(center, random), fillSymbol);
+      detailedPolygonsGraphicsOverlay.getGraphics().add(polygonGraphic);
+      generalizationCache.add(i, polygonGraphic);
+    }
+
+    // the map's Web Mercator units are stretched by about 1.4 times at this latitude compared to the meters of the
+    // polygons' spatial reference, so measure how many map units a kilometer around the polygons spans
+    var kilometerPoints = new PointCollection(center.getSpatialReference());
+    kilometerPoints.add(center.getX(), center.getY());
+    kilometerPoints.add(center.getX() + 1000, center.getY());
+    var kilometer = new Polyline(kilometerPoints);
+    double mapUnitsPerMeter =
+      ((Polyline) GeometryEngine.project(kilometer, SpatialReferences.getWebMercator())).getExtent().getWidth() / 1000;
+
+    // swap the version of each polygon suited to the map resolution into its graphic as the map is zoomed
+    mapView.addViewpointChangedListener(e ->
+      generalizationCache.update(mapView.getUnitsPerDensityIndependentPixel() / mapUnitsPerMeter));
+    vertexCountLabel.textProperty().bind(Bindings.format("Vertices drawn: %,d of %,d",
+      generalizationCache.vertexCountProperty(), generalizationCache.originalVertexCountProperty()));
+
     // zoom to the original polyline
     mapView.setViewpointGeometryAsync(originalPolyline.getExtent(), 100);
   }
@@ -129,6 +175,39 @@ public class DensifyAndGeneralizeController {
     resultPointsGraphic.setVisible(resultVisibilityCheckBox.isSelected());
   }
 
+  /**
+   * Toggles the visibility of the detailed polygons depending on the state of the detailed polygons checkbox.
+   */
+  @FXML
+  private void updateDetailedPolygonsVisibility() {
+    detailedPolygonsGraphicsOverlay.setVisible(detailedPolygonsCheckBox.isSelected());
+  }
+
+  /**
+   * Creates a polygon with many vertices and an irregular outline, like a lake, at a random location near a point.
+   *
+   * @param center the point to create the polygon near
+   * @param random the source of random locations and shapes
+   * @return polygon
+   */
+  private Polygon createDetailedPolygon(Point center, Random random) {
+    double centerX = center.getX() + (random.nextDouble() - 0.5) * 30000;
+    double centerY = center.getY() + (random.nextDouble() - 0.5) * 30000;
+    double radius = 200 + random.nextDouble() * 1300;
+    double phase1 = random.nextDouble() * 2 * Math.PI;
+    double phase2 = random.nextDouble() * 2 * Math.PI;
+
+    PointCollection points = new PointCollection(center.getSpatialReference());
+    for (int i = 0; i < DETAILED_POLYGON_VERTICES; i++) {
+      double angle = 2 * Math.PI * i / DETAILED_POLYGON_VERTICES;
+      // vary the distance of the outline from the center in large and small waves, with some noise
+      double distance = radius * (1 + 0.15 * Math.sin(5 * angle + phase1) + 0.05 * Math.sin(23 * angle + phase2) +
+        0.01 * random.nextGaussian());
+      points.add(new Point(centerX + distance * Math.cos(angle), centerY + distance * Math.sin(angle)));
+    }
+    return new Polygon(points);
+  }
+
   /**
    * Creates a collection of points along the Willamette River in Portland, OR.
    *
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2018 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.densify_and_generalize;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.ReadOnlyLongWrapper;
+
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.Multipart;
+import com.esri.arcgisruntime.geometry.Part;
+import com.esri.arcgisruntime.mapping.view.Graphic;
+
+/**
+ * Keeps generalized versions of the geometries of graphics for a range of map scales, and sets the version suited to
+ * the current scale on each graphic.
+ * <p>
+ * The scales are split into bands, where each band has twice the units per pixel of the band before. For each
+ * band, a geometry is generalized with a maximum deviation of half a pixel at the most detailed scale of the band, so
+ * the generalized geometry looks the same as the original, but has far fewer vertices when zoomed out. The versions
+ * are generalized on background threads when a graphic is added, and swapping them into the graphics when the scale
+ * moves to another band is then only a matter of setting the graphics' geometries.
+ * <p>
+ * Resolutions are in the units of the graphics' geometries per pixel, which differ from the map's units per pixel when
+ * the geometries are in a different spatial reference from the map.
+ */
+class GeneralizationCache {
+
+  // the maximum deviation of a generalized geometry from the original, in pixels
+  private static final double PIXEL_TOLERANCE = 0.5;
+
+  private final double minUnitsPerPixel;
+  private final int bandCount;
+
+  // the versions of the geometry of each graphic, keyed by id, in order of band
+  private final Map<Object, CachedGraphic> graphics = new LinkedHashMap<>();
+  private int currentBand = -1;
+
+  private final ReadOnlyLongWrapper vertexCount = new ReadOnlyLongWrapper();
+  private final ReadOnlyLongWrapper originalVertexCount = new ReadOnlyLongWrapper();
+
+  /**
+   * Creates an empty cache for a range of map resolutions. Graphics are shown with their original geometries when the
+   * map is more detailed than the range, and with the most generalized geometries when less detailed.
+   *
+   * @param minUnitsPerPixel the units of the geometries per pixel of the most detailed band
+   * @param maxUnitsPerPixel the units of the geometries per pixel of the least detailed band
+   */
+  GeneralizationCache(double minUnitsPerPixel, double maxUnitsPerPixel) {
+    this.minUnitsPerPixel = minUnitsPerPixel;
+    bandCount = bandOf(maxUnitsPerPixel) + 1;
+  }
+
+  /**
+   * Adds a graphic, and starts generalizing its geometry for each band. Until the geometry has been generalized, the
+   * graphic keeps its original geometry. Must be called on the JavaFX application thread.
+   *
+   * @param id the id of the graphic's geometry, such as a feature's object id
+   * @param graphic the graphic, with its original geometry
+   */
+  void add(Object id, Graphic graphic) {
+    var cachedGraphic = new CachedGraphic(graphic);
+    graphics.put(id, cachedGraphic);
+    originalVertexCount.set(originalVertexCount.get() + cachedGraphic.originalVertexCount);
+    vertexCount.set(vertexCount.get() + cachedGraphic.originalVertexCount);
+
+    CompletableFuture.supplyAsync(() -> generalize(cachedGraphic.original))
+      .whenCompleteAsync((versions, ex) -> {
+        if (ex != null) {
+          ex.printStackTrace();
+        } else if (graphics.get(id) == cachedGraphic) {
+          cachedGraphic.versions = versions;
+          show(cachedGraphic);
+        }
+      }, Platform::runLater);
+  }
+
+  /**
+   * Sets the versions of the geometries suited to a map resolution on the graphics, if it is in a different band from
+   * the last resolution. Must be called on the JavaFX application thread.
+   *
+   * @param unitsPerPixel the units of the geometries per pixel, such as from
+   *                      {@code MapView.getUnitsPerDensityIndependentPixel()} converted from the map's units
+   */
+  void update(double unitsPerPixel) {
+    int band = Math.min(bandOf(unitsPerPixel), bandCount - 1);
+    if (band != currentBand) {
+      currentBand = band;
+      graphics.values().forEach(this::show);
+    }
+  }
+
+  /**
+   * Number of vertices of the geometries currently set on the graphics.
+   *
+   * @return the vertex count property
+   */
+  ReadOnlyLongProperty vertexCountProperty() {
+    return vertexCount.getReadOnlyProperty();
+  }
+
+  /**
+   * Number of vertices of the original geometries of the graphics.
+   *
+   * @return the original vertex count property
+   */
+  ReadOnlyLongProperty originalVertexCountProperty() {
+    return originalVertexCount.getReadOnlyProperty();
+  }
+
+  /**
+   * Sets the version of a graphic's geometry for the current band on the graphic.
+   */
+  private void show(CachedGraphic cachedGraphic) {
+    Geometry geometry = cachedGraphic.original;
+    int geometryVertexCount = cachedGraphic.originalVertexCount;
+    if (currentBand >= 0 && cachedGraphic.versions != null) {
+      geometry = cachedGraphic.versions[currentBand];
+      geometryVertexCount = vertexCountOf(geometry);
+    }
+    if (cachedGraphic.shown != geometry) {
+      vertexCount.set(vertexCount.get() - cachedGraphic.shownVertexCount + geometryVertexCount);
+      cachedGraphic.shown = geometry;
+      cachedGraphic.shownVertexCount = geometryVertexCount;
+      cachedGraphic.graphic.setGeometry(geometry);
+    }
+  }
+
+  /**
+   * Generalizes a geometry for each band. A geometry too small to be seen in a band keeps the version of the band
+   * before, so that it does not disappear when zoomed out.
+   */
+  private Geometry[] generalize(Geometry original) {
+    Geometry[] versions = new Geometry[bandCount];
+    Geometry previous = original;
+    for (int band = 0; band < bandCount; band++) {
+      double maxDeviation = PIXEL_TOLERANCE * minUnitsPerPixel * Math.pow(2, band);
+      Geometry generalized = GeometryEngine.generalize(original, maxDeviation, true);
+      versions[band] = generalized == null || generalized.isEmpty() ? previous : generalized;
+      previous = versions[band];
+    }
+    return versions;
+  }
+
+  /**
+   * Gets the band of a map resolution, or -1 if it is more detailed than the first band.
+   */
+  private int bandOf(double unitsPerPixel) {
+    return unitsPerPixel < minUnitsPerPixel ? -1 :
+      (int) Math.floor(Math.log(unitsPerPixel / minUnitsPerPixel) / Math.log(2));
+  }
+
+  /**
+   * Gets the number of vertices of a polyline or polygon.
+   */
+  private static int vertexCountOf(Geometry geometry) {
+    int count = 0;
+    if (geometry instanceof Multipart multipart) {
+      for (Part part : multipart.getParts()) {
+        count += part.getPointCount();
+      }
+    }
+    return count;
+  }
+
+  /**
+   * A graphic with its original geometry and the generalized versions once they have been found.
+   */
+  private static class CachedGraphic {
+
+    private final Graphic graphic;
+    private final Geometry original;
+    private final int originalVertexCount;
+    private Geometry[] versions;
+    private Geometry shown;
+    private int shownVertexCount;
+
+    CachedGraphic(Graphic graphic) {
+      this.graphic = graphic;
+      original = graphic.getGeometry();
+      originalVertexCount = vertexCountOf(original);
+      shown = original;
+      shownVertexCount = originalVertexCount;
+    }
+  }
+}
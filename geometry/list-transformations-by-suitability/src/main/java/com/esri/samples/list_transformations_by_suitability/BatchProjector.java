@@ -0,0 +1,199 @@
+/*
+ * Copyright 2017 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.list_transformations_by_suitability;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import com.esri.arcgisruntime.geometry.DatumTransformation;
+import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.Multipoint;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.PointCollection;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+import com.esri.arcgisruntime.geometry.TransformationCatalog;
+
+/**
+ * Projects large batches of geometries from one spatial reference to another.
+ * <p>
+ * The transformation between the spatial references is looked up in the {@link TransformationCatalog} once, when the
+ * projector is created, rather than for every geometry. Batches are split into chunks that are projected in parallel.
+ * Points are projected a chunk at a time as a single {@link Multipoint}, so a million points take a few hundred calls
+ * to {@link GeometryEngine#project(Geometry, SpatialReference, DatumTransformation)} rather than a million.
+ * <p>
+ * Projectors are kept for each pair of spatial references, and the lists of transformations ordered by suitability
+ * are kept for the most recently used spatial references and extents, as looking them up in the catalog is slow
+ * compared with projecting a geometry.
+ */
+class BatchProjector {
+
+  // the number of geometries, or points, projected together by each parallel task
+  private static final int CHUNK_SIZE = 4_096;
+
+  // the number of lists of transformations ordered by suitability to keep
+  private static final int MAX_SUITABILITY_LISTS = 64;
+
+  private static final Map<SpatialReferencePair, BatchProjector> projectors = new ConcurrentHashMap<>();
+
+  // the lists of transformations ordered by suitability, in order of least to most recently used
+  private static final Map<SuitabilityKey, List<DatumTransformation>> suitabilityLists =
+    new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<SuitabilityKey, List<DatumTransformation>> eldest) {
+        return size() > MAX_SUITABILITY_LISTS;
+      }
+    };
+
+  private final SpatialReference inputSpatialReference;
+  private final SpatialReference outputSpatialReference;
+  private final DatumTransformation transformation;
+
+  /**
+   * Creates a projector that projects with a transformation.
+   *
+   * @param inputSpatialReference the spatial reference of the geometries to project
+   * @param outputSpatialReference the spatial reference to project to
+   * @param transformation the transformation to project with, or null if none is needed
+   */
+  BatchProjector(SpatialReference inputSpatialReference, SpatialReference outputSpatialReference,
+      DatumTransformation transformation) {
+    this.inputSpatialReference = inputSpatialReference;
+    this.outputSpatialReference = outputSpatialReference;
+    this.transformation = transformation;
+  }
+
+  /**
+   * Gets a projector between two spatial references that projects with the default transformation between them. The
+   * transformation is looked up in the catalog the first time a pair of spatial references is used.
+   *
+   * @param inputSpatialReference the spatial reference of the geometries to project
+   * @param outputSpatialReference the spatial reference to project to
+   * @return the projector
+   */
+  static BatchProjector of(SpatialReference inputSpatialReference, SpatialReference outputSpatialReference) {
+    return projectors.computeIfAbsent(new SpatialReferencePair(inputSpatialReference, outputSpatialReference),
+      pair -> new BatchProjector(inputSpatialReference, outputSpatialReference,
+        TransformationCatalog.getTransformation(inputSpatialReference, outputSpatialReference)));
+  }
+
+  /**
+   * Gets the transformations between two spatial references ordered by their suitability, using a list found before
+   * for the same spatial references and extent if there is one.
+   *
+   * @param inputSpatialReference the spatial reference of the geometries to project
+   * @param outputSpatialReference the spatial reference to project to
+   * @param extent the area of interest, or null for the whole of the input spatial reference
+   * @return the transformations, most suitable first
+   */
+  static List<DatumTransformation> getTransformationsBySuitability(SpatialReference inputSpatialReference,
+      SpatialReference outputSpatialReference, Envelope extent) {
+    var key = new SuitabilityKey(inputSpatialReference, outputSpatialReference, extent == null ? null :
+      new double[] {extent.getXMin(), extent.getYMin(), extent.getXMax(), extent.getYMax()});
+    synchronized (suitabilityLists) {
+      List<DatumTransformation> transformations = suitabilityLists.get(key);
+      if (transformations == null) {
+        transformations = List.copyOf(extent == null ?
+          TransformationCatalog.getTransformationsBySuitability(inputSpatialReference, outputSpatialReference) :
+          TransformationCatalog.getTransformationsBySuitability(inputSpatialReference, outputSpatialReference, extent));
+        suitabilityLists.put(key, transformations);
+      }
+      return transformations;
+    }
+  }
+
+  /**
+   * Projects a geometry.
+   *
+   * @param geometry the geometry to project
+   * @return the projected geometry
+   */
+  Geometry project(Geometry geometry) {
+    return transformation == null ? GeometryEngine.project(geometry, outputSpatialReference) :
+      GeometryEngine.project(geometry, outputSpatialReference, transformation);
+  }
+
+  /**
+   * Projects a batch of point coordinates in parallel, without creating a point object for each.
+   *
+   * @param coordinates the coordinates of the points as x, y pairs, in the input spatial reference
+   * @return the projected coordinates as x, y pairs, in the same order
+   */
+  double[] projectCoordinates(double[] coordinates) {
+    int count = coordinates.length / 2;
+    double[] projected = new double[2 * count];
+    IntStream.range(0, chunkCount(count)).parallel().forEach(chunk -> {
+      int start = chunk * CHUNK_SIZE;
+      int end = Math.min(start + CHUNK_SIZE, count);
+      var points = new PointCollection(inputSpatialReference);
+      for (int i = start; i < end; i++) {
+        points.add(coordinates[2 * i], coordinates[2 * i + 1]);
+      }
+      var projectedPoints = ((Multipoint) project(new Multipoint(points))).getPoints();
+      if (projectedPoints.size() == end - start) {
+        for (int i = start; i < end; i++) {
+          Point point = projectedPoints.get(i - start);
+          projected[2 * i] = point.getX();
+          projected[2 * i + 1] = point.getY();
+        }
+      } else {
+        // a point that cannot be projected was dropped from the multipoint, so project the points one at a time
+        for (int i = start; i < end; i++) {
+          var point = (Point) project(new Point(coordinates[2 * i], coordinates[2 * i + 1], inputSpatialReference));
+          projected[2 * i] = point == null || point.isEmpty() ? Double.NaN : point.getX();
+          projected[2 * i + 1] = point == null || point.isEmpty() ? Double.NaN : point.getY();
+        }
+      }
+    });
+    return projected;
+  }
+
+  /**
+   * Gets the number of chunks a batch is split into.
+   */
+  private static int chunkCount(int count) {
+    return (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+  }
+
+  /**
+   * The spatial references a projector projects between.
+   */
+  private record SpatialReferencePair(SpatialReference input, SpatialReference output) {
+  }
+
+  /**
+   * The spatial references and extent of a list of transformations ordered by suitability.
+   */
+  private record SuitabilityKey(SpatialReference input, SpatialReference output, double[] extent) {
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof SuitabilityKey key && input.equals(key.input) && output.equals(key.output) &&
+        Arrays.equals(extent, key.extent);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * input.hashCode() + output.hashCode()) + Arrays.hashCode(extent);
+    }
+  }
+}
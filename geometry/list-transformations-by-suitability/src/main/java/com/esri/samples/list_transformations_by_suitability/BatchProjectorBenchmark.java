@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.list_transformations_by_suitability;
+
+import java.util.Random;
+
+import com.esri.arcgisruntime.geometry.DatumTransformation;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+import com.esri.arcgisruntime.geometry.TransformationCatalog;
+
+/**
+ * Compares the throughput of projecting batches of points from the British National Grid to web mercator, as the
+ * sample does, by looking up the transformation and projecting each point on its own, and with a
+ * {@link BatchProjector}. Projecting points one at a time is only timed for batches of up to a million points, as larger
+ * batches take too long. Both are run on a batch of points before timing, so that neither is timed while the JIT
+ * compiler, the parallel stream's threads or the projection engine are warming up.
+ */
+public class BatchProjectorBenchmark {
+
+  private static final int[] BATCH_SIZES = {1_000, 10_000, 100_000, 1_000_000, 10_000_000};
+  private static final int MAX_SINGLE_POINT_BATCH_SIZE = 1_000_000;
+  private static final int WARM_UP_BATCH_SIZE = 100_000;
+
+  /**
+   * Runs the benchmark and prints the points projected per second for each batch size.
+   *
+   * @param args not used
+   */
+  public static void main(String[] args) {
+    SpatialReference britishNationalGrid = SpatialReference.create(27700);
+    SpatialReference webMercator = SpatialReference.create(3857);
+    var random = new Random(0);
+
+    // warm up both ways of projecting before timing either
+    double[] warmUpCoordinates = createCoordinates(WARM_UP_BATCH_SIZE, random);
+    projectSingly(warmUpCoordinates, britishNationalGrid, webMercator);
+    BatchProjector.of(britishNationalGrid, webMercator).projectCoordinates(warmUpCoordinates);
+
+    System.out.printf("%d processors%n", Runtime.getRuntime().availableProcessors());
+    System.out.printf("%12s %20s %20s%n", "points", "single points/s", "batch points/s");
+    for (int batchSize : BATCH_SIZES) {
+      double[] coordinates = createCoordinates(batchSize, random);
+
+      String singleRate = "-";
+      if (batchSize <= MAX_SINGLE_POINT_BATCH_SIZE) {
+        long start = System.nanoTime();
+        projectSingly(coordinates, britishNationalGrid, webMercator);
+        singleRate = String.format("%.0f", batchSize * 1e9 / (System.nanoTime() - start));
+      }
+
+      long start = System.nanoTime();
+      BatchProjector.of(britishNationalGrid, webMercator).projectCoordinates(coordinates);
+      double batchRate = batchSize * 1e9 / (System.nanoTime() - start);
+
+      System.out.printf("%12d %20s %20.0f%n", batchSize, singleRate, batchRate);
+    }
+  }
+
+  /**
+   * Creates the coordinates of points spread over Great Britain, as x, y pairs in the British National Grid.
+   */
+  private static double[] createCoordinates(int count, Random random) {
+    double[] coordinates = new double[2 * count];
+    for (int i = 0; i < count; i++) {
+      coordinates[2 * i] = random.nextDouble() * 600_000;
+      coordinates[2 * i + 1] = random.nextDouble() * 1_000_000;
+    }
+    return coordinates;
+  }
+
+  /**
+   * Projects points one at a time, looking up the transformation for each point, as the sample does.
+   */
+  private static void projectSingly(double[] coordinates, SpatialReference input, SpatialReference output) {
+    for (int i = 0; i < coordinates.length / 2; i++) {
+      DatumTransformation transformation = TransformationCatalog.getTransformation(input, output);
+      GeometryEngine.project(new Point(coordinates[2 * i], coordinates[2 * i + 1], input), output, transformation);
+    }
+  }
+}
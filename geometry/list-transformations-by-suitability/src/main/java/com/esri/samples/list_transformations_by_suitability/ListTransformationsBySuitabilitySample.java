@@ -42,7 +42,6 @@ import com.esri.arcgisruntime.geometry.DatumTransformation;
 import com.esri.arcgisruntime.geometry.GeometryEngine;
 import com.esri.arcgisruntime.geometry.Point;
 import com.esri.arcgisruntime.geometry.SpatialReference;
-import com.esri.arcgisruntime.geometry.TransformationCatalog;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.BasemapStyle;
 import com.esri.arcgisruntime.mapping.view.Graphic;
@@ -127,14 +126,11 @@ public class ListTransformationsBySuitabilitySample extends Application {
       CheckBox suitabilityCheckBox = new CheckBox("Order by extent suitability");
       suitabilityCheckBox.setOnAction(e -> {
         transformationsListView.getItems().clear();
-        List<DatumTransformation> transformations;
-        if (suitabilityCheckBox.isSelected()) {
-          transformations = TransformationCatalog.getTransformationsBySuitability(
-            originalGraphic.getGeometry().getSpatialReference(), map.getSpatialReference(), mapView.getVisibleArea().getExtent());
-        } else {
-          transformations = TransformationCatalog.getTransformationsBySuitability(
-            originalGraphic.getGeometry().getSpatialReference(), map.getSpatialReference());
-        }
+        // the lists are looked up in the transformation catalog once for each extent, and kept for when they are used
+        // again
+        List<DatumTransformation> transformations = BatchProjector.getTransformationsBySuitability(
+          originalGraphic.getGeometry().getSpatialReference(), map.getSpatialReference(),
+          suitabilityCheckBox.isSelected() ? mapView.getVisibleArea().getExtent() : null);
         transformationsListView.getItems().addAll(transformations);
       });
 
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2018 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.spatial_relationships;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import com.esri.arcgisruntime.geometry.Envelope;
+
+/**
+ * A read-only R-tree of envelopes, for finding the envelopes that intersect a query envelope without testing every one.
+ * <p>
+ * The tree is packed with the sort-tile-recursive (STR) algorithm: the envelopes are sorted into vertical slices by
+ * the x of their centers, each slice is sorted by the y of the centers, and runs of {@link #NODE_CAPACITY} envelopes
+ * become the leaf nodes. The nodes are packed the same way into the level above, until a single root is left. Nodes
+ * are therefore full and cover little empty space, and the tree is stored in flat arrays rather than node objects.
+ */
+class EnvelopeRTree {
+
+  // the maximum number of children of each node
+  private static final int NODE_CAPACITY = 16;
+
+  // the bounds of the entries of each level as xmin, ymin, xmax, ymax, where level 0 is the envelopes themselves
+  private final List<double[]> levelBounds = new ArrayList<>();
+
+  // the range of entries of the level below that are the children of each node, for every level above level 0
+  private final List<int[]> levelChildStarts = new ArrayList<>();
+  private final List<int[]> levelChildEnds = new ArrayList<>();
+
+  // the index of the envelope given to the tree for each entry of level 0
+  private final int[] items;
+
+  /**
+   * Creates a tree of envelopes.
+   *
+   * @param envelopes the envelopes, which are identified by their index in the list
+   */
+  EnvelopeRTree(List<Envelope> envelopes) {
+    int count = envelopes.size();
+    double[] bounds = new double[4 * count];
+    int[] ids = new int[count];
+    for (int i = 0; i < count; i++) {
+      Envelope envelope = envelopes.get(i);
+      bounds[4 * i] = envelope.getXMin();
+      bounds[4 * i + 1] = envelope.getYMin();
+      bounds[4 * i + 2] = envelope.getXMax();
+      bounds[4 * i + 3] = envelope.getYMax();
+      ids[i] = i;
+    }
+
+    // sort the envelopes into leaves
+    int[] order = strOrder(bounds, count);
+    bounds = permute(bounds, order);
+    items = new int[count];
+    for (int i = 0; i < count; i++) {
+      items[i] = ids[order[i]];
+    }
+    levelBounds.add(bounds);
+
+    // pack each level into nodes until there is a single root
+    while (count > 1 || levelChildStarts.isEmpty()) {
+      int parentCount = Math.max(1, (count + NODE_CAPACITY - 1) / NODE_CAPACITY);
+      double[] parentBounds = new double[4 * parentCount];
+      int[] childStarts = new int[parentCount];
+      int[] childEnds = new int[parentCount];
+      for (int parent = 0; parent < parentCount; parent++) {
+        int start = parent * NODE_CAPACITY;
+        int end = Math.min(start + NODE_CAPACITY, count);
+        childStarts[parent] = start;
+        childEnds[parent] = end;
+        parentBounds[4 * parent] = Double.POSITIVE_INFINITY;
+        parentBounds[4 * parent + 1] = Double.POSITIVE_INFINITY;
+        parentBounds[4 * parent + 2] = Double.NEGATIVE_INFINITY;
+        parentBounds[4 * parent + 3] = Double.NEGATIVE_INFINITY;
+        for (int child = start; child < end; child++) {
+          parentBounds[4 * parent] = Math.min(parentBounds[4 * parent], bounds[4 * child]);
+          parentBounds[4 * parent + 1] = Math.min(parentBounds[4 * parent + 1], bounds[4 * child + 1]);
+          parentBounds[4 * parent + 2] = Math.max(parentBounds[4 * parent + 2], bounds[4 * child + 2]);
+          parentBounds[4 * parent + 3] = Math.max(parentBounds[4 * parent + 3], bounds[4 * child + 3]);
+        }
+      }
+      count = parentCount;
+
+      // sort the new nodes into nodes of the level above, moving their child ranges with them
+      if (count > 1) {
+        order = strOrder(parentBounds, count);
+        parentBounds = permute(parentBounds, order);
+        childStarts = permuteRanges(childStarts, order);
+        childEnds = permuteRanges(childEnds, order);
+      }
+      bounds = parentBounds;
+      levelBounds.add(bounds);
+      levelChildStarts.add(childStarts);
+      levelChildEnds.add(childEnds);
+    }
+  }
+
+  /**
+   * Finds the envelopes that intersect an envelope, including those that only touch it.
+   *
+   * @param envelope the envelope to query
+   * @param action called with the index of each envelope found, in no particular order
+   */
+  void query(Envelope envelope, IntConsumer action) {
+    if (items.length > 0) {
+      visit(levelBounds.size() - 1, 0, envelope.getXMin(), envelope.getYMin(), envelope.getXMax(), envelope.getYMax(),
+        action);
+    }
+  }
+
+  /**
+   * Visits an entry of a level, and the entries below it if it intersects the query.
+   */
+  private void visit(int level, int entry, double xMin, double yMin, double xMax, double yMax, IntConsumer action) {
+    double[] bounds = levelBounds.get(level);
+    if (bounds[4 * entry] > xMax || bounds[4 * entry + 2] < xMin ||
+      bounds[4 * entry + 1] > yMax || bounds[4 * entry + 3] < yMin) {
+      return;
+    }
+    if (level == 0) {
+      action.accept(items[entry]);
+      return;
+    }
+    int end = levelChildEnds.get(level - 1)[entry];
+    for (int child = levelChildStarts.get(level - 1)[entry]; child < end; child++) {
+      visit(level - 1, child, xMin, yMin, xMax, yMax, action);
+    }
+  }
+
+  /**
+   * Gets the order of entries that sorts them into slices by x, and each slice by y, so that each run of
+   * {@link #NODE_CAPACITY} entries is a compact node.
+   */
+  private static int[] strOrder(double[] bounds, int count) {
+    Integer[] order = new Integer[count];
+    for (int i = 0; i < count; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.comparingDouble(i -> bounds[4 * i] + bounds[4 * i + 2]));
+
+    int nodeCount = (count + NODE_CAPACITY - 1) / NODE_CAPACITY;
+    int sliceCount = (int) Math.ceil(Math.sqrt(nodeCount));
+    int sliceSize = sliceCount * NODE_CAPACITY;
+    for (int start = 0; start < count; start += sliceSize) {
+      Arrays.sort(order, start, Math.min(start + sliceSize, count),
+        Comparator.comparingDouble(i -> bounds[4 * i + 1] + bounds[4 * i + 3]));
+    }
+    return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Reorders bounds so that the entry at each position is the entry at the given index of the original.
+   */
+  private static double[] permute(double[] bounds, int[] order) {
+    double[] permuted = new double[bounds.length];
+    for (int i = 0; i < order.length; i++) {
+      System.arraycopy(bounds, 4 * order[i], permuted, 4 * i, 4);
+    }
+    return permuted;
+  }
+
+  /**
+   * Reorders child range bounds so that the entry at each position is the entry at the given index of the original.
+   */
+  private static int[] permuteRanges(int[] ranges, int[] order) {
+    int[] permuted = new int[ranges.length];
+    for (int i = 0; i < order.length; i++) {
+      permuted[i] = ranges[order[i]];
+    }
+    return permuted;
+  }
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2018 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.spatial_relationships;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+
+/**
+ * The spatial relationships of every geometry of one list to every geometry of another, such as parcels to zones.
+ * <p>
+ * The relationships of each pair are kept as a bit mask of {@link SpatialRelationship}s. Most pairs of large lists are
+ * far apart, so the envelopes of the second list are put in an {@link EnvelopeRTree}, and only the pairs whose
+ * envelopes intersect are tested with {@link GeometryEngine}. All other pairs are disjoint. The rows of the matrix are
+ * evaluated in parallel, and only the pairs that are not disjoint are stored.
+ */
+class SpatialRelationshipMatrix {
+
+  /**
+   * The relationships a geometry can have to another geometry.
+   */
+  enum SpatialRelationship {
+    CROSSES, CONTAINS, DISJOINT, INTERSECTS, OVERLAPS, TOUCHES, WITHIN;
+
+    /**
+     * Gets the bit of this relationship in a relationship mask.
+     *
+     * @return the bit
+     */
+    int bit() {
+      return 1 << ordinal();
+    }
+  }
+
+  // the number of rows evaluated together by each parallel task
+  private static final int ROW_CHUNK_SIZE = 64;
+
+  private final int rowCount;
+  private final int columnCount;
+
+  // for each row, the range of its entries in the columns and masks arrays, in ascending column order
+  private final int[] rowStarts;
+  private final int[] columns;
+  private final byte[] masks;
+  private final long candidatePairCount;
+
+  /**
+   * Evaluates the relationships of every geometry of one list to every geometry of another.
+   *
+   * @param rows the geometries whose relationships are found, which make the rows of the matrix
+   * @param columns the geometries they are related to, in the same spatial reference, which make the columns
+   */
+  SpatialRelationshipMatrix(List<? extends Geometry> rows, List<? extends Geometry> columns) {
+    rowCount = rows.size();
+    columnCount = columns.size();
+    List<Envelope> columnEnvelopes = columns.stream().map(Geometry::getExtent).toList();
+    var tree = new EnvelopeRTree(columnEnvelopes);
+
+    // evaluate chunks of rows in parallel, then join the chunks in order
+    int chunkCount = (rowCount + ROW_CHUNK_SIZE - 1) / ROW_CHUNK_SIZE;
+    List<Chunk> chunks = IntStream.range(0, chunkCount).parallel()
+      .mapToObj(chunk -> new Chunk(rows, columns, columnEnvelopes, tree, chunk * ROW_CHUNK_SIZE,
+        Math.min((chunk + 1) * ROW_CHUNK_SIZE, rowCount)))
+      .toList();
+
+    int entryCount = chunks.stream().mapToInt(chunk -> chunk.size).sum();
+    rowStarts = new int[rowCount + 1];
+    this.columns = new int[entryCount];
+    masks = new byte[entryCount];
+    long candidates = 0;
+    int entry = 0;
+    for (Chunk chunk : chunks) {
+      for (int i = 0; i < chunk.rowEnds.length; i++) {
+        rowStarts[chunk.firstRow + i + 1] = entry + chunk.rowEnds[i];
+      }
+      System.arraycopy(chunk.columns, 0, this.columns, entry, chunk.size);
+      System.arraycopy(chunk.masks, 0, masks, entry, chunk.size);
+      entry += chunk.size;
+      candidates += chunk.candidateCount;
+    }
+    candidatePairCount = candidates;
+  }
+
+  /**
+   * Gets the relationships of one geometry to another as a mask of {@link SpatialRelationship#bit()}s.
+   *
+   * @param a the first geometry
+   * @param b the second geometry
+   * @return the relationships a has to b
+   */
+  static int relate(Geometry a, Geometry b) {
+    return relate(a, a.getExtent(), b, b.getExtent());
+  }
+
+  /**
+   * Gets the relationships in a mask.
+   *
+   * @param mask a mask of {@link SpatialRelationship#bit()}s
+   * @return the relationships
+   */
+  static EnumSet<SpatialRelationship> toSet(int mask) {
+    EnumSet<SpatialRelationship> relationships = EnumSet.noneOf(SpatialRelationship.class);
+    for (SpatialRelationship relationship : SpatialRelationship.values()) {
+      if ((mask & relationship.bit()) != 0) {
+        relationships.add(relationship);
+      }
+    }
+    return relationships;
+  }
+
+  /**
+   * Gets the relationships of a geometry of the rows to a geometry of the columns.
+   *
+   * @param row the index of the geometry in the rows
+   * @param column the index of the geometry in the columns
+   * @return a mask of {@link SpatialRelationship#bit()}s
+   */
+  int get(int row, int column) {
+    int index = Arrays.binarySearch(columns, rowStarts[row], rowStarts[row + 1], column);
+    return index >= 0 ? masks[index] : SpatialRelationship.DISJOINT.bit();
+  }
+
+  /**
+   * Gets the columns that a row is not disjoint from.
+   *
+   * @param row the index of the geometry in the rows
+   * @return the indexes of the geometries in the columns, in ascending order
+   */
+  int[] getIntersectingColumns(int row) {
+    return Arrays.copyOfRange(columns, rowStarts[row], rowStarts[row + 1]);
+  }
+
+  /**
+   * Gets the number of rows.
+   *
+   * @return the number of geometries in the rows
+   */
+  int getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * Gets the number of columns.
+   *
+   * @return the number of geometries in the columns
+   */
+  int getColumnCount() {
+    return columnCount;
+  }
+
+  /**
+   * Gets the number of pairs whose envelopes intersect, which were tested with the geometry engine.
+   *
+   * @return the number of pairs tested
+   */
+  long getCandidatePairCount() {
+    return candidatePairCount;
+  }
+
+  /**
+   * Gets the number of pairs that are not disjoint.
+   *
+   * @return the number of pairs that intersect
+   */
+  int getIntersectingPairCount() {
+    return columns.length;
+  }
+
+  /**
+   * Gets the relationships of one geometry to another, skipping the tests that their envelopes or dimensions rule out.
+   * Every relationship other than disjoint requires the geometries to intersect, so they are only tested if they do.
+   */
+  private static int relate(Geometry a, Envelope aExtent, Geometry b, Envelope bExtent) {
+    if (!envelopesIntersect(aExtent, bExtent) || !GeometryEngine.intersects(a, b)) {
+      return SpatialRelationship.DISJOINT.bit();
+    }
+    int mask = SpatialRelationship.INTERSECTS.bit();
+    int aDimension = dimension(a);
+    int bDimension = dimension(b);
+    // two points or two areas never cross
+    if ((aDimension != bDimension || aDimension == 1) && GeometryEngine.crosses(a, b)) {
+      mask |= SpatialRelationship.CROSSES.bit();
+    }
+    if (envelopeContains(aExtent, bExtent) && GeometryEngine.contains(a, b)) {
+      mask |= SpatialRelationship.CONTAINS.bit();
+    }
+    // only geometries of the same dimension overlap
+    if (aDimension == bDimension && GeometryEngine.overlaps(a, b)) {
+      mask |= SpatialRelationship.OVERLAPS.bit();
+    }
+    // points have no boundary, so two points never touch
+    if ((aDimension != 0 || bDimension != 0) && GeometryEngine.touches(a, b)) {
+      mask |= SpatialRelationship.TOUCHES.bit();
+    }
+    if (envelopeContains(bExtent, aExtent) && GeometryEngine.within(a, b)) {
+      mask |= SpatialRelationship.WITHIN.bit();
+    }
+    return mask;
+  }
+
+  /**
+   * Gets the dimension of a geometry: 0 for points, 1 for lines and 2 for areas.
+   */
+  private static int dimension(Geometry geometry) {
+    return switch (geometry.getGeometryType()) {
+      case POINT, MULTIPOINT -> 0;
+      case POLYLINE -> 1;
+      default -> 2;
+    };
+  }
+
+  /**
+   * Checks if two envelopes intersect, including if they only touch.
+   */
+  private static boolean envelopesIntersect(Envelope a, Envelope b) {
+    return a.getXMin() <= b.getXMax() && b.getXMin() <= a.getXMax() &&
+      a.getYMin() <= b.getYMax() && b.getYMin() <= a.getYMax();
+  }
+
+  /**
+   * Checks if the first envelope contains the second, including its boundary.
+   */
+  private static boolean envelopeContains(Envelope a, Envelope b) {
+    return a.getXMin() <= b.getXMin() && a.getXMax() >= b.getXMax() &&
+      a.getYMin() <= b.getYMin() && a.getYMax() >= b.getYMax();
+  }
+
+  /**
+   * The pairs of a range of rows that are not disjoint, evaluated by one parallel task.
+   */
+  private static class Chunk {
+
+    private final int firstRow;
+    private final int[] rowEnds;
+    private int[] columns = new int[ROW_CHUNK_SIZE];
+    private byte[] masks = new byte[ROW_CHUNK_SIZE];
+    private int size;
+    private long candidateCount;
+
+    /**
+     * Evaluates the relationships of a range of rows.
+     */
+    Chunk(List<? extends Geometry> rows, List<? extends Geometry> columnGeometries, List<Envelope> columnEnvelopes,
+          EnvelopeRTree tree, int firstRow, int endRow) {
+      this.firstRow = firstRow;
+      rowEnds = new int[endRow - firstRow];
+      List<Integer> candidates = new ArrayList<>();
+      for (int row = firstRow; row < endRow; row++) {
+        Geometry geometry = rows.get(row);
+        Envelope extent = geometry.getExtent();
+        candidates.clear();
+        tree.query(extent, candidates::add);
+        candidates.sort(null);
+        candidateCount += candidates.size();
+        for (int column : candidates) {
+          int mask = relate(geometry, extent, columnGeometries.get(column), columnEnvelopes.get(column));
+          if (mask != SpatialRelationship.DISJOINT.bit()) {
+            add(column, mask);
+          }
+        }
+        rowEnds[row - firstRow] = size;
+      }
+    }
+
+    /**
+     * Adds a pair that is not disjoint, growing the arrays if they are full.
+     */
+    private void add(int column, int mask) {
+      if (size == columns.length) {
+        columns = Arrays.copyOf(columns, 2 * size);
+        masks = Arrays.copyOf(masks, 2 * size);
+      }
+      columns[size] = column;
+      masks[size] = (byte) mask;
+      size++;
+    }
+  }
+}
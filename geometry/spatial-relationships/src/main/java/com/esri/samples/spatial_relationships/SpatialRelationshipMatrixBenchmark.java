@@ -0,0 +1,123 @@
+/*
+ * Copyright 2018 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.spatial_relationships;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.PointCollection;
+import com.esri.arcgisruntime.geometry.Polygon;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+import com.esri.arcgisruntime.geometry.SpatialReferences;
+
+/**
+ * Compares the time taken to find the relationships of a grid of parcels to a set of zones with a
+ * {@link SpatialRelationshipMatrix}, and by testing every pair with the seven {@link GeometryEngine} predicates. Testing
+ * every pair takes too long to finish for all the parcels, so it is timed for a sample of parcels and scaled up, and
+ * its results are checked against the matrix.
+ */
+public class SpatialRelationshipMatrixBenchmark {
+
+  private static final int PARCEL_GRID_SIZE = 200;
+  private static final double PARCEL_SIZE = 100;
+  private static final int ZONE_COUNT = 500;
+  private static final int SAMPLE_PARCELS = 200;
+
+  /**
+   * Runs the benchmark and prints the times taken.
+   *
+   * @param args not used
+   */
+  public static void main(String[] args) {
+    SpatialReference spatialReference = SpatialReferences.getWebMercator();
+    var random = new Random(0);
+
+    // a grid of square parcels
+    List<Polygon> parcels = new ArrayList<>();
+    for (int row = 0; row < PARCEL_GRID_SIZE; row++) {
+      for (int column = 0; column < PARCEL_GRID_SIZE; column++) {
+        parcels.add(rectangle(column * PARCEL_SIZE, row * PARCEL_SIZE, PARCEL_SIZE, PARCEL_SIZE, spatialReference));
+      }
+    }
+
+    // zones of random sizes scattered over the grid
+    List<Polygon> zones = new ArrayList<>();
+    double gridSize = PARCEL_GRID_SIZE * PARCEL_SIZE;
+    for (int i = 0; i < ZONE_COUNT; i++) {
+      double width = PARCEL_SIZE * (1 + random.nextInt(20)) + random.nextDouble() * PARCEL_SIZE;
+      double height = PARCEL_SIZE * (1 + random.nextInt(20)) + random.nextDouble() * PARCEL_SIZE;
+      zones.add(rectangle(random.nextDouble() * (gridSize - width), random.nextDouble() * (gridSize - height), width,
+        height, spatialReference));
+    }
+
+    // warm up, then time the matrix of every parcel to every zone
+    new SpatialRelationshipMatrix(parcels.subList(0, SAMPLE_PARCELS), zones);
+    long start = System.nanoTime();
+    var matrix = new SpatialRelationshipMatrix(parcels, zones);
+    double matrixTime = (System.nanoTime() - start) / 1e6;
+    System.out.printf("%d parcels x %d zones = %d pairs%n", parcels.size(), zones.size(),
+      (long) parcels.size() * zones.size());
+    System.out.printf("Matrix: %.1f ms, %d pairs tested, %d pairs not disjoint, %d processors%n", matrixTime,
+      matrix.getCandidatePairCount(), matrix.getIntersectingPairCount(), Runtime.getRuntime().availableProcessors());
+
+    // time every pair for a sample of parcels, and check the results match
+    int mismatches = 0;
+    start = System.nanoTime();
+    for (int i = 0; i < SAMPLE_PARCELS; i++) {
+      int row = random.nextInt(parcels.size());
+      for (int column = 0; column < zones.size(); column++) {
+        if (relateEveryPredicate(parcels.get(row), zones.get(column)) != matrix.get(row, column)) {
+          mismatches++;
+        }
+      }
+    }
+    double pairTime = (System.nanoTime() - start) / 1e6 / SAMPLE_PARCELS * parcels.size();
+    System.out.printf("Every pair: %.1f ms estimated from %d parcels, %d mismatches%n", pairTime, SAMPLE_PARCELS,
+      mismatches);
+  }
+
+  /**
+   * Gets the relationships of one geometry to another by testing every predicate.
+   */
+  private static int relateEveryPredicate(Geometry a, Geometry b) {
+    int mask = 0;
+    if (GeometryEngine.crosses(a, b)) mask |= SpatialRelationshipMatrix.SpatialRelationship.CROSSES.bit();
+    if (GeometryEngine.contains(a, b)) mask |= SpatialRelationshipMatrix.SpatialRelationship.CONTAINS.bit();
+    if (GeometryEngine.disjoint(a, b)) mask |= SpatialRelationshipMatrix.SpatialRelationship.DISJOINT.bit();
+    if (GeometryEngine.intersects(a, b)) mask |= SpatialRelationshipMatrix.SpatialRelationship.INTERSECTS.bit();
+    if (GeometryEngine.overlaps(a, b)) mask |= SpatialRelationshipMatrix.SpatialRelationship.OVERLAPS.bit();
+    if (GeometryEngine.touches(a, b)) mask |= SpatialRelationshipMatrix.SpatialRelationship.TOUCHES.bit();
+    if (GeometryEngine.within(a, b)) mask |= SpatialRelationshipMatrix.SpatialRelationship.WITHIN.bit();
+    return mask;
+  }
+
+  /**
+   * Creates a rectangular polygon.
+   */
+  private static Polygon rectangle(double x, double y, double width, double height, SpatialReference spatialReference) {
+    var points = new PointCollection(spatialReference);
+    points.add(new Point(x, y));
+    points.add(new Point(x, y + height));
+    points.add(new Point(x + width, y + height));
+    points.add(new Point(x + width, y));
+    return new Polygon(points);
+  }
+}
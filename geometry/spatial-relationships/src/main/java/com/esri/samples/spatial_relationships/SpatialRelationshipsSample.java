@@ -36,7 +36,6 @@ import javafx.stage.Stage;
 import com.esri.arcgisruntime.ArcGISRuntimeEnvironment;
 import com.esri.arcgisruntime.concurrent.ListenableFuture;
 import com.esri.arcgisruntime.geometry.Geometry;
-import com.esri.arcgisruntime.geometry.GeometryEngine;
 import com.esri.arcgisruntime.geometry.GeometryType;
 import com.esri.arcgisruntime.geometry.Point;
 import com.esri.arcgisruntime.geometry.PointCollection;
@@ -57,10 +56,6 @@ public class SpatialRelationshipsSample extends Application {
 
   private MapView mapView;
 
-  private enum SpatialRelationship {
-    CROSSES, CONTAINS, DISJOINT, INTERSECTS, OVERLAPS, TOUCHES, WITHIN
-  }
-
   @Override
   public void start(Stage stage) {
 
@@ -202,16 +197,8 @@ public class SpatialRelationshipsSample extends Application {
    * @param b second geometry
    * @return list of relationships a has to b
    */
-  private List<SpatialRelationship> getSpatialRelationships(Geometry a, Geometry b) {
-    List<SpatialRelationship> relationships = new ArrayList<>();
-    if (GeometryEngine.crosses(a, b)) relationships.add(SpatialRelationship.CROSSES);
-    if (GeometryEngine.contains(a, b)) relationships.add(SpatialRelationship.CONTAINS);
-    if (GeometryEngine.disjoint(a, b)) relationships.add(SpatialRelationship.DISJOINT);
-    if (GeometryEngine.intersects(a, b)) relationships.add(SpatialRelationship.INTERSECTS);
-    if (GeometryEngine.overlaps(a, b)) relationships.add(SpatialRelationship.OVERLAPS);
-    if (GeometryEngine.touches(a, b)) relationships.add(SpatialRelationship.TOUCHES);
-    if (GeometryEngine.within(a, b)) relationships.add(SpatialRelationship.WITHIN);
-    return relationships;
+  private List<SpatialRelationshipMatrix.SpatialRelationship> getSpatialRelationships(Geometry a, Geometry b) {
+    return new ArrayList<>(SpatialRelationshipMatrix.toSet(SpatialRelationshipMatrix.relate(a, b)));
   }
 
   /**
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.esri.samples.show_location_history;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.Polyline;
+import com.esri.arcgisruntime.geometry.PolylineBuilder;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+import com.esri.arcgisruntime.mapping.view.Graphic;
+import com.esri.arcgisruntime.mapping.view.GraphicsOverlay;
+
+/**
+ * A route line that grows as points are added to it, drawn as a few line graphics in a graphics overlay.
+ * <p>
+ * The line is split into segments of a fixed number of points. Points are only added to the newest segment, so each
+ * update rebuilds a geometry of at most {@link #SEGMENT_SIZE} points however long the line is. Once a segment is full
+ * it is left as it is, and a new segment is started from its last point. As segments age they are generalized and
+ * merged into blocks, so a line tracked for many hours is drawn with a small number of graphics and far fewer points
+ * than were added.
+ */
+class LocationTrack {
+
+  // the number of points in each segment of the line, including the point shared with the previous segment
+  private static final int SEGMENT_SIZE = 100;
+
+  // the number of full segments kept at full detail behind the newest segment
+  private static final int DETAILED_SEGMENTS = 10;
+
+  // the number of generalized segments merged into each block
+  private static final int BLOCK_SEGMENTS = 50;
+
+  // the maximum distance, in meters, that a generalized segment can move from the points added
+  private static final double MAX_DEVIATION = 2.0;
+
+  // the approximate length of a degree at the equator, in meters
+  private static final double METERS_PER_DEGREE = 111_320;
+
+  private final GraphicsOverlay graphicsOverlay;
+  private SpatialReference spatialReference;
+  private double maxDeviation;
+  private final Deque<Graphic> detailedSegments = new ArrayDeque<>();
+
+  private PolylineBuilder segmentBuilder;
+  private Graphic segmentGraphic;
+  private int segmentPointCount;
+  private Point lastPoint;
+
+  private PolylineBuilder blockBuilder;
+  private Graphic blockGraphic;
+  private int blockSegmentCount;
+
+  /**
+   * Creates an empty track.
+   *
+   * @param graphicsOverlay the graphics overlay to draw the line in, which should have a line renderer
+   */
+  LocationTrack(GraphicsOverlay graphicsOverlay) {
+    this.graphicsOverlay = graphicsOverlay;
+  }
+
+  /**
+   * Adds a point to the end of the line.
+   *
+   * @param point the point, in the same spatial reference as the first point added
+   */
+  void addPoint(Point point) {
+    if (segmentBuilder == null) {
+      // use the spatial reference of the first point for the whole line
+      spatialReference = point.getSpatialReference();
+      maxDeviation = spatialReference.isGeographic() ? MAX_DEVIATION / METERS_PER_DEGREE : MAX_DEVIATION;
+      segmentBuilder = new PolylineBuilder(spatialReference);
+      segmentGraphic = new Graphic();
+      graphicsOverlay.getGraphics().add(segmentGraphic);
+    } else if (segmentPointCount == SEGMENT_SIZE) {
+      startSegment();
+    }
+    segmentBuilder.addPoint(point);
+    segmentPointCount++;
+    lastPoint = point;
+    segmentGraphic.setGeometry(segmentBuilder.toGeometry());
+  }
+
+  /**
+   * Leaves the full newest segment as it is and starts a new segment from its last point. If there are then too many
+   * detailed segments, the oldest is generalized into the current block.
+   */
+  private void startSegment() {
+    detailedSegments.addLast(segmentGraphic);
+
+    segmentBuilder = new PolylineBuilder(spatialReference);
+    segmentBuilder.addPoint(lastPoint);
+    segmentPointCount = 1;
+    segmentGraphic = new Graphic();
+    graphicsOverlay.getGraphics().add(segmentGraphic);
+
+    if (detailedSegments.size() > DETAILED_SEGMENTS) {
+      mergeIntoBlock(detailedSegments.removeFirst());
+    }
+  }
+
+  /**
+   * Generalizes a segment and adds its points to the end of the current block, removing the segment's graphic. A new
+   * block is started once the current block has {@link #BLOCK_SEGMENTS} segments, so that no block is rebuilt from
+   * too many points.
+   */
+  private void mergeIntoBlock(Graphic segment) {
+    var generalized = (Polyline) GeometryEngine.generalize(segment.getGeometry(), maxDeviation, true);
+    graphicsOverlay.getGraphics().remove(segment);
+
+    // the first point of a segment is the last point of the previous segment, which is already in the block
+    boolean skipFirstPoint = blockBuilder != null;
+    if (blockBuilder == null) {
+      blockBuilder = new PolylineBuilder(spatialReference);
+      blockGraphic = new Graphic();
+      graphicsOverlay.getGraphics().add(blockGraphic);
+    }
+    for (Point point : generalized.getParts().get(0).getPoints()) {
+      if (skipFirstPoint) {
+        skipFirstPoint = false;
+      } else {
+        blockBuilder.addPoint(point);
+      }
+    }
+    blockGraphic.setGeometry(blockBuilder.toGeometry());
+
+    if (++blockSegmentCount == BLOCK_SEGMENTS) {
+      // keep the block as it is and start the next block from the next segment to age
+      blockBuilder = null;
+      blockGraphic = null;
+      blockSegmentCount = 0;
+    }
+  }
+}
@@ -41,7 +41,6 @@ import com.esri.arcgisruntime.ArcGISRuntimeEnvironment;
 import com.esri.arcgisruntime.geometry.Geometry;
 import com.esri.arcgisruntime.geometry.Point;
 import com.esri.arcgisruntime.geometry.Polyline;
-import com.esri.arcgisruntime.geometry.PolylineBuilder;
 import com.esri.arcgisruntime.geometry.SpatialReferences;
 import com.esri.arcgisruntime.loadable.LoadStatus;
 import com.esri.arcgisruntime.location.LocationDataSource;
@@ -66,6 +65,9 @@ public class ShowLocationHistorySample extends Application {
   private MapView mapView;
   private Point position;
 
+  // the number of the most recent location points shown, so that a long tracking session does not add points forever
+  private static final int MAX_LOCATION_POINTS = 1000;
+
   @Override
   public void start(Stage stage) {
 
@@ -120,8 +122,8 @@ public class ShowLocationHistorySample extends Application {
       // add the graphics overlays to the map view
       mapView.getGraphicsOverlays().addAll(Arrays.asList(locationHistoryOverlay, locationHistoryLineOverlay));
 
-      // create a polyline builder to connect the location points
-      PolylineBuilder polylineBuilder = new PolylineBuilder(SpatialReferences.getWebMercator());
+      // create a track to connect the location points, which is extended with each new point rather than re-created
+      LocationTrack locationTrack = new LocationTrack(locationHistoryLineOverlay);
 
       // access the json of the location points
       String polylineData = IOUtils.toString(getClass().getResourceAsStream("/show_location_history/polyline_data.json"), StandardCharsets.UTF_8);
@@ -144,21 +146,18 @@ public class ShowLocationHistorySample extends Application {
       LocationChangedListener locationChangedListener =
         (LocationDataSource.LocationChangedEvent locationChangedEvent) -> {
 
-        // reset the old polyline connecting the points
-        locationHistoryLineOverlay.getGraphics().clear();
-
         // add any previous position to the history
         if (position != null) {
-          // add the new point to the polyline
-          polylineBuilder.addPoint(position);
-          // add the new point to the graphics overlay
+          // add the new point to the end of the track
+          locationTrack.addPoint(position);
+          // add the new point to the graphics overlay, removing the oldest point once there are too many
           locationHistoryOverlay.getGraphics().add(new Graphic(position));
+          if (locationHistoryOverlay.getGraphics().size() > MAX_LOCATION_POINTS) {
+            locationHistoryOverlay.getGraphics().remove(0);
+          }
         }
         // store the current position
         position = locationChangedEvent.getLocation().getPosition();
-
-        // add the updated polyline to the graphics overlay
-        locationHistoryLineOverlay.getGraphics().add(new Graphic(polylineBuilder.toGeometry()));
       };
 
       trackingButton.setOnAction(event -> {
@@ -18,7 +18,6 @@ package com.esri.samples.display_ogc_api_collection;
 
 import com.esri.arcgisruntime.ArcGISRuntimeEnvironment;
 import com.esri.arcgisruntime.data.OgcFeatureCollectionTable;
-import com.esri.arcgisruntime.data.QueryParameters;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.geometry.Envelope;
 import com.esri.arcgisruntime.layers.FeatureLayer;
@@ -39,6 +38,9 @@ import javafx.stage.Stage;
 
 public class DisplayOgcApiCollectionSample extends Application {
 
+  // the width of the world in web mercator, in meters, which is the size of the largest grid cell
+  private static final double WEB_MERCATOR_WORLD_WIDTH = 40_075_016.69;
+
   private MapView mapView;
   private OgcFeatureCollectionTable ogcFeatureCollectionTable; // keep loadable in scope to avoid garbage collection
 
@@ -115,33 +117,28 @@ public class DisplayOgcApiCollectionSample extends Application {
         }
       });
 
+      // populate the table only with the features of grid cells around the visible extent that have not been
+      // populated before, leaving existing table entries intact
+      // setting the outfields parameter to null requests all fields
+      // set a limit of 5000 on the number of returned features per request, the default on some services
+      // could be as low as 10
+      var coverageTracker = new FeatureCoverageTracker(
+        query -> ogcFeatureCollectionTable.populateFromServiceAsync(query, false, null), WEB_MERCATOR_WORLD_WIDTH, 5000);
+
+      // show the progress indicator while any requests are in progress
+      progressIndicator.visibleProperty().bind(coverageTracker.requestCountProperty().greaterThan(0));
+
+      // show an alert dialog if populating the table fails
+      coverageTracker.setOnFailed(exception -> {
+        exception.printStackTrace();
+        new Alert(Alert.AlertType.ERROR, exception.getMessage()).show();
+      });
+
       // once the map view navigation has completed, query the OGC API feature table for
       // additional features within the new visible extent.
       mapView.addViewpointChangedListener(e -> {
         if (!e.getSource().isNavigating()) {
-
-          // get the current extent
-          Envelope currentExtent = mapView.getVisibleArea().getExtent();
-
-          // create a query based on the current visible extent
-          QueryParameters visibleExtentQuery = new QueryParameters();
-          visibleExtentQuery.setGeometry(currentExtent);
-          visibleExtentQuery.setSpatialRelationship(QueryParameters.SpatialRelationship.INTERSECTS);
-          // set a limit of 5000 on the number of returned features per request, the default on some services
-          // could be as low as 10
-          visibleExtentQuery.setMaxFeatures(5000);
-
-          try {
-            // populate the table with the query, leaving existing table entries intact
-            // setting the outfields parameter to null requests all fields
-            ogcFeatureCollectionTable.populateFromServiceAsync(visibleExtentQuery, false, null).addDoneListener(() -> {
-              progressIndicator.setVisible(false);
-            });
-
-          } catch (Exception exception) {
-            exception.printStackTrace();
-            new Alert(Alert.AlertType.ERROR, exception.getMessage()).show();
-          }
+          coverageTracker.setVisibleArea(mapView.getVisibleArea().getExtent());
         }
       });
 
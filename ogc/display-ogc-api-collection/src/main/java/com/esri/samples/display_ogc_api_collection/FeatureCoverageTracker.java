@@ -0,0 +1,372 @@
+/*
+ * Copyright 2021 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.display_ogc_api_collection;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javafx.animation.PauseTransition;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.util.Duration;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.FeatureQueryResult;
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+
+/**
+ * Populates a feature table in manual cache mode with the features of the visible area, without requesting the
+ * features of an area that has already been populated.
+ * <p>
+ * The map is divided into a grid of square cells at a series of levels, where the cells of each level are half the
+ * size of the cells of the level before. For each visible area, a level is chosen so that a few cells span the area,
+ * and only the cells that have not been populated are requested, with the missing cells of each row of the grid joined
+ * into one request. A cell is populated once a request for it, or for a larger cell containing it, has returned all
+ * its features.
+ * <p>
+ * A request that reaches the service's limit on the number of features does not populate its cells. Instead, its cells
+ * are requested again on their own if the request was for a run of cells, or split into the four cells of the next
+ * level if it was for a single cell, and the cells that are visible are requested. Dense areas are split until each
+ * request returns all its features, down to a few levels below the level of the visible area, so the visible area is
+ * fully populated unless it is too dense to request in a reasonable number of requests. Split cells are only requested
+ * again where their smaller cells have not been populated, and split further once zoomed in.
+ * <p>
+ * Requests are only made once the visible area has stopped changing for a moment, and requests for areas that are no
+ * longer visible are cancelled, so panning quickly does not queue up requests. All methods must be called on the
+ * JavaFX application thread.
+ */
+class FeatureCoverageTracker {
+
+  // the number of cells that span the width of the visible area, at least
+  private static final int CELLS_ACROSS = 2;
+
+  // the smallest cells, as a level
+  private static final int MAX_LEVEL = 24;
+
+  // the number of levels below the level of the visible area that dense cells are split into, at most
+  private static final int MAX_SPLIT_LEVELS = 3;
+
+  // the time the visible area must stay the same before features are requested
+  private static final Duration DEBOUNCE_TIME = Duration.millis(300);
+
+  private final Function<QueryParameters, ListenableFuture<FeatureQueryResult>> populate;
+  private final double baseCellSize;
+  private final int maxFeatures;
+
+  // the cells whose features have all been populated
+  private final Set<Cell> populatedCells = new HashSet<>();
+
+  // the cells with more features than can be requested at once, requested as the four cells of the next level instead
+  private final Set<Cell> splitCells = new HashSet<>();
+
+  // the cells whose request with other cells reached the limit on the number of features, requested on their own
+  private final Set<Cell> denseCells = new HashSet<>();
+
+  // the requests in progress, and the cells they are requesting
+  private final Map<ListenableFuture<FeatureQueryResult>, Request> requests = new HashMap<>();
+
+  private final PauseTransition debounce = new PauseTransition(DEBOUNCE_TIME);
+  private final ReadOnlyIntegerWrapper requestCount = new ReadOnlyIntegerWrapper();
+  private Envelope visibleArea;
+  private Consumer<Exception> onFailed;
+
+  /**
+   * Creates a tracker for a feature table.
+   *
+   * @param populate populates the table with a query, such as
+   *                 {@code query -> table.populateFromServiceAsync(query, false, null)}
+   * @param baseCellSize the size of the cells of the first level, in the units of the visible areas, such as the width
+   *                     of the world
+   * @param maxFeatures the maximum number of features to request at once
+   */
+  FeatureCoverageTracker(Function<QueryParameters, ListenableFuture<FeatureQueryResult>> populate,
+      double baseCellSize, int maxFeatures) {
+    this.populate = populate;
+    this.baseCellSize = baseCellSize;
+    this.maxFeatures = maxFeatures;
+    debounce.setOnFinished(e -> requestMissingCells());
+  }
+
+  /**
+   * Sets the visible area, and requests the features in it that have not been populated once it has not changed for a
+   * moment.
+   *
+   * @param visibleArea the visible area
+   */
+  void setVisibleArea(Envelope visibleArea) {
+    this.visibleArea = visibleArea;
+    debounce.playFromStart();
+  }
+
+  /**
+   * Sets an action run when a request fails. The cells of the request are requested again the next time they are
+   * visible.
+   *
+   * @param onFailed the action, given the exception of the request, or null to print the stack trace
+   */
+  void setOnFailed(Consumer<Exception> onFailed) {
+    this.onFailed = onFailed;
+  }
+
+  /**
+   * Cancels any requests in progress, and forgets which cells have been populated, such as when the table is
+   * cleared.
+   */
+  void reset() {
+    debounce.stop();
+    new ArrayList<>(requests.keySet()).forEach(future -> future.cancel(true));
+    requests.clear();
+    populatedCells.clear();
+    splitCells.clear();
+    denseCells.clear();
+    requestCount.set(0);
+  }
+
+  /**
+   * Number of requests in progress.
+   *
+   * @return the request count property
+   */
+  ReadOnlyIntegerProperty requestCountProperty() {
+    return requestCount.getReadOnlyProperty();
+  }
+
+  /**
+   * Cancels the requests that no longer intersect the visible area, and requests the cells of the visible area that
+   * are neither populated nor being requested.
+   */
+  private void requestMissingCells() {
+    if (visibleArea == null || visibleArea.isEmpty()) {
+      return;
+    }
+
+    // cancel the requests for areas that are no longer visible
+    new ArrayList<>(requests.entrySet()).forEach(entry -> {
+      if (!entry.getValue().intersects(visibleArea)) {
+        requests.remove(entry.getKey());
+        entry.getKey().cancel(true);
+      }
+    });
+
+    // choose a level where a few cells span the visible area
+    double width = Math.max(visibleArea.getWidth(), visibleArea.getHeight());
+    int level = (int) Math.floor(Math.log(baseCellSize * CELLS_ACROSS / width) / Math.log(2));
+    level = Math.max(0, Math.min(MAX_LEVEL, level));
+    double cellSize = cellSizeOf(level);
+
+    // find the missing cells, replacing split cells with their missing smaller cells
+    List<Cell> missingCells = new ArrayList<>();
+    long firstColumn = (long) Math.floor(visibleArea.getXMin() / cellSize);
+    long lastColumn = (long) Math.floor(visibleArea.getXMax() / cellSize);
+    long firstRow = (long) Math.floor(visibleArea.getYMin() / cellSize);
+    long lastRow = (long) Math.floor(visibleArea.getYMax() / cellSize);
+    for (long row = firstRow; row <= lastRow; row++) {
+      for (long column = firstColumn; column <= lastColumn; column++) {
+        addMissingCells(new Cell(level, column, row), level + MAX_SPLIT_LEVELS, missingCells);
+      }
+    }
+
+    // join each run of missing cells in a row of a level into one request, except for dense cells
+    missingCells.sort(Comparator.comparingInt(Cell::level).thenComparingLong(Cell::row)
+      .thenComparingLong(Cell::column));
+    List<Cell> run = new ArrayList<>();
+    for (Cell cell : missingCells) {
+      if (!run.isEmpty()) {
+        Cell last = run.get(run.size() - 1);
+        if (cell.level() != last.level() || cell.row() != last.row() || cell.column() != last.column() + 1 ||
+          denseCells.contains(cell) || denseCells.contains(last)) {
+          request(run, visibleArea.getSpatialReference());
+          run = new ArrayList<>();
+        }
+      }
+      run.add(cell);
+    }
+    if (!run.isEmpty()) {
+      request(run, visibleArea.getSpatialReference());
+    }
+    requestCount.set(requests.size());
+  }
+
+  /**
+   * Adds a visible cell to the missing cells if it is neither populated nor being requested, or the missing visible
+   * cells of the next level in it if it has been split, down to a level.
+   */
+  private void addMissingCells(Cell cell, int maxLevel, List<Cell> missingCells) {
+    if (isPopulatedOrRequested(cell) || !intersects(extentOf(cell, null), visibleArea)) {
+      return;
+    }
+    if (splitCells.contains(cell)) {
+      // keep the features already returned for a split cell at the lowest level until zoomed in
+      if (cell.level() < maxLevel) {
+        cell.children().forEach(child -> addMissingCells(child, maxLevel, missingCells));
+      }
+    } else {
+      missingCells.add(cell);
+    }
+  }
+
+  /**
+   * Checks if a cell, or a larger cell containing it, has been populated or is being requested, or if the smaller
+   * cells of a split cell all have been.
+   */
+  private boolean isPopulatedOrRequested(Cell cell) {
+    for (Cell ancestor = cell; ancestor != null; ancestor = ancestor.parent()) {
+      if (populatedCells.contains(ancestor)) {
+        return true;
+      }
+    }
+    for (Request request : requests.values()) {
+      if (request.contains(cell)) {
+        return true;
+      }
+    }
+    return splitCells.contains(cell) && cell.children().stream().allMatch(this::isPopulatedOrRequested);
+  }
+
+  /**
+   * Requests the features of a run of cells in a row.
+   */
+  private void request(List<Cell> cells, SpatialReference spatialReference) {
+    Cell first = cells.get(0);
+    Cell last = cells.get(cells.size() - 1);
+    Envelope firstExtent = extentOf(first, spatialReference);
+    var extent = new Envelope(firstExtent.getXMin(), firstExtent.getYMin(), extentOf(last, null).getXMax(),
+      firstExtent.getYMax(), spatialReference);
+
+    var query = new QueryParameters();
+    query.setGeometry(extent);
+    query.setSpatialRelationship(QueryParameters.SpatialRelationship.INTERSECTS);
+    query.setMaxFeatures(maxFeatures);
+    ListenableFuture<FeatureQueryResult> future = populate.apply(query);
+    var request = new Request(cells, extent);
+    requests.put(future, request);
+
+    future.addDoneListener(() -> {
+      // a cancelled request has already been removed
+      if (requests.remove(future) == null) {
+        return;
+      }
+      requestCount.set(requests.size());
+      try {
+        if (!future.get().isTransferLimitExceeded()) {
+          // only count the cells as populated if the service returned all their features
+          populatedCells.addAll(cells);
+        } else {
+          // request the cells on their own, or split a single cell, and request the visible ones
+          if (cells.size() > 1) {
+            denseCells.addAll(cells);
+          } else if (first.level() < MAX_LEVEL) {
+            splitCells.add(first);
+          } else {
+            // the smallest cells cannot be split, so keep the features returned rather than request them again
+            populatedCells.add(first);
+          }
+          requestMissingCells();
+        }
+      } catch (Exception e) {
+        // the cells will be requested again the next time they are visible
+        if (onFailed != null) {
+          onFailed.accept(e);
+        } else {
+          e.printStackTrace();
+        }
+      }
+    });
+  }
+
+  /**
+   * Gets the size of the cells of a level.
+   */
+  private double cellSizeOf(int level) {
+    return baseCellSize / Math.pow(2, level);
+  }
+
+  /**
+   * Gets the extent of a cell.
+   */
+  private Envelope extentOf(Cell cell, SpatialReference spatialReference) {
+    double cellSize = cellSizeOf(cell.level());
+    return new Envelope(cell.column() * cellSize, cell.row() * cellSize, (cell.column() + 1) * cellSize,
+      (cell.row() + 1) * cellSize, spatialReference);
+  }
+
+  /**
+   * Checks if two envelopes overlap.
+   */
+  private static boolean intersects(Envelope a, Envelope b) {
+    return a.getXMin() < b.getXMax() && b.getXMin() < a.getXMax() && a.getYMin() < b.getYMax() &&
+      b.getYMin() < a.getYMax();
+  }
+
+  /**
+   * A cell of the grid, at a level where cells are the base cell size divided by two to the power of the level.
+   */
+  private record Cell(int level, long column, long row) {
+
+    /**
+     * Gets the cell of the level before that contains this cell, or null if this is the first level.
+     */
+    Cell parent() {
+      return level == 0 ? null : new Cell(level - 1, Math.floorDiv(column, 2), Math.floorDiv(row, 2));
+    }
+
+    /**
+     * Gets the four cells of the next level that this cell contains.
+     */
+    List<Cell> children() {
+      return List.of(new Cell(level + 1, 2 * column, 2 * row), new Cell(level + 1, 2 * column + 1, 2 * row),
+        new Cell(level + 1, 2 * column, 2 * row + 1), new Cell(level + 1, 2 * column + 1, 2 * row + 1));
+    }
+  }
+
+  /**
+   * A request in progress for a run of cells.
+   */
+  private record Request(List<Cell> cells, Envelope extent) {
+
+    /**
+     * Checks if the request is for a cell, or a cell containing it.
+     */
+    boolean contains(Cell cell) {
+      for (Cell requested : cells) {
+        for (Cell ancestor = cell; ancestor != null && ancestor.level() >= requested.level();
+             ancestor = ancestor.parent()) {
+          if (ancestor.equals(requested)) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Checks if the request is for an area that intersects an envelope.
+     */
+    boolean intersects(Envelope envelope) {
+      return FeatureCoverageTracker.intersects(extent, envelope);
+    }
+  }
+}
@@ -23,7 +23,6 @@ import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 
 import com.esri.arcgisruntime.ArcGISRuntimeEnvironment;
-import com.esri.arcgisruntime.data.QueryParameters;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.geometry.Envelope;
 import com.esri.arcgisruntime.geometry.Point;
@@ -38,6 +37,9 @@ import com.esri.arcgisruntime.symbology.SimpleRenderer;
 
 public class DisplayWFSLayerSample extends Application {
 
+  // the width of the world in web mercator, in meters, which is the size of the largest grid cell
+  private static final double WEB_MERCATOR_WORLD_WIDTH = 40_075_016.69;
+
   private MapView mapView;
 
   @Override
@@ -90,14 +92,19 @@ public class DisplayWFSLayerSample extends Application {
     // add the layer to the map's operational layers
     map.getOperationalLayers().add(wfsFeatureLayer);
 
+    // populate the table only with the features of grid cells around the visible extent that have not been populated
+    // before, with a limit of 5000 features per request
+    var coverageTracker = new FeatureCoverageTracker(
+      query -> wfsFeatureTable.populateFromServiceAsync(query, false, null), WEB_MERCATOR_WORLD_WIDTH, 5000);
+
     // make an initial call to load the initial extent's data from the WFS, using the WFS spatial reference
-    populateFeaturesFromServer(wfsFeatureTable, initialExtent);
+    coverageTracker.setVisibleArea(initialExtent);
 
     // use the navigation property listener to populate the table with the features needed for the current extent
     mapView.navigatingProperty().addListener((observable, oldValue, newValue) -> {
       // once the map view has stopped navigating
       if (!newValue) {
-        populateFeaturesFromServer(wfsFeatureTable, mapView.getVisibleArea().getExtent());
+        coverageTracker.setVisibleArea(mapView.getVisibleArea().getExtent());
       }
     });
 
@@ -105,21 +112,6 @@ public class DisplayWFSLayerSample extends Application {
     stackPane.getChildren().add(mapView);
   }
 
-  /**
-   * Create query parameters using the given extent to populate the WFS table from the service
-   * @param wfsTable the WFS feature table to populate
-   * @param extent the extent used to define the QueryParameters' geometry
-   */
-  private void populateFeaturesFromServer(WfsFeatureTable wfsTable, Envelope extent){
-
-    // create a query based on the current visible extent
-    QueryParameters visibleExtentQuery = new QueryParameters();
-    visibleExtentQuery.setGeometry(extent);
-    visibleExtentQuery.setSpatialRelationship(QueryParameters.SpatialRelationship.INTERSECTS);
-    // populate the WFS feature table based on the current extent
-    wfsTable.populateFromServiceAsync(visibleExtentQuery, false, null);
-  }
-
   /**
    * Stops and releases all resources used in application.
    */
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2023 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.add_custom_dynamic_entity_data_source;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+
+import com.google.gson.Gson;
+
+import com.esri.arcgisruntime.data.Field;
+
+/**
+ * Compares the throughput and allocation of reading the observations of a JSON file with an {@link ObservationParser},
+ * and with Gson binding each line to plain classes, as the sample did before it had its own parser. Both read the file
+ * a line at a time, and the file is read again for each run.
+ */
+public class ObservationParserBenchmark {
+
+  private static final int WARM_UP_RUNS = 2;
+  private static final int RUNS = 5;
+
+  /**
+   * Runs the benchmark and prints the observations parsed per second and bytes allocated per observation of each
+   * method.
+   *
+   * @param args the path of a file of JSON observations, or none to use the sample data
+   * @throws IOException if the file cannot be read
+   */
+  public static void main(String[] args) throws IOException {
+    String fileName = args.length > 0 ? args[0] : new File(System.getProperty("data.dir"),
+      "./samples-data/real_time/AIS_MarineCadastre_SelectedVessels_CustomDataSource.json").getPath();
+    List<Field> fields = SimulatedDataSource.createFields();
+    var threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    var gson = new Gson();
+    System.out.printf("%s, %d bytes%n", fileName, Files.size(Path.of(fileName)));
+
+    long gsonCount = 0;
+    long parserCount = 0;
+    long gsonTime = 0;
+    long parserTime = 0;
+    long gsonBytes = 0;
+    long parserBytes = 0;
+    for (int run = 0; run < WARM_UP_RUNS + RUNS; run++) {
+      long start = System.nanoTime();
+      long startBytes = threadMXBean.getCurrentThreadAllocatedBytes();
+      long count = 0;
+      try (BufferedReader reader = Files.newBufferedReader(Path.of(fileName), StandardCharsets.UTF_8)) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          if (gson.fromJson(line, JsonObservation.class) != null) {
+            count++;
+          }
+        }
+      }
+      long gsonEnd = System.nanoTime();
+      long gsonEndBytes = threadMXBean.getCurrentThreadAllocatedBytes();
+
+      // a new parser for each run, so its text tables start empty as they do in the sample
+      var parser = new ObservationParser(fields, "MMSI", "BaseDateTime");
+      long parsed = 0;
+      try (var source = new FileObservationSource(fileName, parser, new IngestMetrics())) {
+        while (source.next() != null) {
+          parsed++;
+        }
+      }
+      long parserEnd = System.nanoTime();
+      long parserEndBytes = threadMXBean.getCurrentThreadAllocatedBytes();
+
+      // only measure the runs after the warm up
+      if (run >= WARM_UP_RUNS) {
+        gsonCount += count;
+        parserCount += parsed;
+        gsonTime += gsonEnd - start;
+        parserTime += parserEnd - gsonEnd;
+        gsonBytes += gsonEndBytes - startBytes;
+        parserBytes += parserEndBytes - gsonEndBytes;
+      }
+    }
+
+    System.out.printf("Gson: %d observations, %.0f observations/s, %.0f bytes/observation%n", gsonCount / RUNS,
+      gsonCount / (gsonTime / 1e9), (double) gsonBytes / gsonCount);
+    System.out.printf("ObservationParser: %d observations, %.0f observations/s, %.0f bytes/observation%n",
+      parserCount / RUNS, parserCount / (parserTime / 1e9), (double) parserBytes / parserCount);
+  }
+
+  /**
+   * Used by Gson for parsing the data.
+   */
+  public static class JsonSpatialReference {
+    public int wkid;
+  }
+
+  /**
+   * Used by Gson for parsing the data.
+   */
+  public static class JsonGeometry {
+    public double x;
+    public double y;
+    public JsonSpatialReference spatialReference;
+  }
+
+  /**
+   * Used by Gson for parsing the data.
+   */
+  public static class JsonObservation {
+    public JsonGeometry geometry;
+    public HashMap<String, Object> attributes;
+  }
+}
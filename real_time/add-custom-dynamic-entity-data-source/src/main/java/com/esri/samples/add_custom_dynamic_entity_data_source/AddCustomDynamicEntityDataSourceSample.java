@@ -17,6 +17,8 @@
 package com.esri.samples.add_custom_dynamic_entity_data_source;
 
 import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -35,8 +37,16 @@ import com.esri.arcgisruntime.realtime.ConnectionStatus;
 import com.esri.arcgisruntime.symbology.TextSymbol;
 
 import javafx.application.Application;
+import javafx.beans.binding.Bindings;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.BackgroundFill;
+import javafx.scene.layout.CornerRadii;
 import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 
@@ -76,8 +86,38 @@ public class AddCustomDynamicEntityDataSourceSample extends Application {
     var resource = new File(System.getProperty("data.dir"), "./samples-data/real_time/AIS_MarineCadastre_SelectedVessels_CustomDataSource.json").getPath();
 
     // create a custom data source implementation of a DynamicEntityDataSource with a data source,
-    // an entity id field name (a unique identifier for each entity), and an update delay
-    dynamicEntityDataSource = new SimulatedDataSource(resource, "MMSI", 10);
+    // an entity id field name (a unique identifier for each entity), a timestamp field name, a replay speed
+    // multiplier (one minute of recorded observations is replayed every second), and the number of threads to parse
+    // the data source with
+    dynamicEntityDataSource = new SimulatedDataSource(List.of(resource), "MMSI", "BaseDateTime", 60,
+      Runtime.getRuntime().availableProcessors());
+
+    // convert the JSON file to a compact binary track recording in the temporary directory in the background while it
+    // is first replayed, and replay the recording on later runs until the JSON file changes
+    dynamicEntityDataSource.setRecordingCacheDirectory(
+      Path.of(System.getProperty("java.io.tmpdir"), "arcgis-samples", "track-recordings"));
+
+    // add a filter to limit the observations added to the data source to vessels in the visible area of the map view,
+    // with at most one observation per vessel every ten seconds of recorded time
+    var observationFilter = new ObservationFilter();
+    observationFilter.setMinimumInterval(10_000);
+    dynamicEntityDataSource.setObservationFilter(observationFilter);
+
+    // update the filter geometry to the extent of the visible area whenever the viewpoint changes, which only projects
+    // the extent as it is an envelope
+    mapView.addViewpointChangedListener(viewpointChangedEvent -> {
+      if (mapView.getVisibleArea() != null) {
+        observationFilter.setGeometry(mapView.getVisibleArea().getExtent());
+      }
+    });
+
+    // keep the latest position of each vessel if observations are replayed faster than they can be added
+    dynamicEntityDataSource.setBackPressurePolicy(BackPressurePolicy.COALESCE_PER_ENTITY);
+
+    // add observations in frames of 30 per second, with only the latest position of each vessel in a frame, keeping
+    // positions at least a minute apart as points on the track lines
+    dynamicEntityDataSource.setFrameRate(30);
+    dynamicEntityDataSource.setTrackPointInterval(60_000);
 
     dynamicEntityDataSource.connectionStatusProperty().addListener((property, oldValue, newValue) -> {
       if (newValue == ConnectionStatus.FAILED) {
@@ -103,8 +143,46 @@ public class AddCustomDynamicEntityDataSourceSample extends Application {
     // add the dynamic entity layer to the map
     map.getOperationalLayers().add(dynamicEntityLayer);
 
-    // add the map view to the stack pane
-    stackPane.getChildren().addAll(mapView);
+    // create a panel showing the ingest metrics of the data source
+    VBox metricsVBox = createMetricsVBox(dynamicEntityDataSource.getIngestMetrics());
+
+    // add the map view and metrics panel to the stack pane
+    stackPane.getChildren().addAll(mapView, metricsVBox);
+    StackPane.setAlignment(metricsVBox, Pos.TOP_RIGHT);
+    StackPane.setMargin(metricsVBox, new Insets(10, 10, 0, 10));
+  }
+
+  /**
+   * Create a panel of labels showing the measurements of the observations processed by the data source.
+   *
+   * @param ingestMetrics the metrics to show
+   * @return the panel
+   */
+  private VBox createMetricsVBox(IngestMetrics ingestMetrics) {
+    var observationsLabel = new Label();
+    observationsLabel.textProperty().bind(Bindings.format("Observations per second: %.0f read, %.0f added",
+      ingestMetrics.readObservationsPerSecondProperty(), ingestMetrics.observationsPerSecondProperty()));
+    var timesLabel = new Label();
+    timesLabel.textProperty().bind(Bindings.format("Parse: %.1f \u00b5s, add: %.1f \u00b5s",
+      ingestMetrics.meanParseTimeProperty(), ingestMetrics.meanAddTimeProperty()));
+    var lagLabel = new Label();
+    lagLabel.textProperty().bind(Bindings.format("Lag: %.1f ms (p99 %.1f ms, max %.1f ms)",
+      ingestMetrics.meanLagProperty(), ingestMetrics.percentile99LagProperty(), ingestMetrics.maximumLagProperty()));
+    var tickSlipLabel = new Label();
+    tickSlipLabel.textProperty().bind(Bindings.format("Batch start slip: max %.1f ms",
+      ingestMetrics.maximumTickSlipProperty()));
+    var queueLabel = new Label();
+    queueLabel.textProperty().bind(Bindings.format("Queued: %d, filtered: %d",
+      ingestMetrics.queueDepthProperty(), ingestMetrics.filteredObservationsProperty()));
+    var droppedLabel = new Label();
+    droppedLabel.textProperty().bind(Bindings.format("Dropped: %d, coalesced: %d",
+      ingestMetrics.droppedObservationsProperty(), ingestMetrics.coalescedObservationsProperty()));
+
+    var metricsVBox = new VBox(5.0, observationsLabel, timesLabel, lagLabel, tickSlipLabel, queueLabel, droppedLabel);
+    metricsVBox.setPadding(new Insets(10.0));
+    metricsVBox.setMaxSize(300, 145);
+    metricsVBox.setBackground(new Background(new BackgroundFill(Color.WHITE, CornerRadii.EMPTY, Insets.EMPTY)));
+    return metricsVBox;
   }
 
   /**
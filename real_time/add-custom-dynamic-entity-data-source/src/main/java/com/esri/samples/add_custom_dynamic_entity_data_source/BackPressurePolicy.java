@@ -0,0 +1,40 @@
+/*
+ * Copyright 2023 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.add_custom_dynamic_entity_data_source;
+
+/**
+ * How observations are handled when they are replayed faster than they can be added to a data source, and the buffer
+ * between the replay and the data source is full.
+ */
+enum BackPressurePolicy {
+
+  /**
+   * The replay waits for space in the buffer, so no observations are lost but the replay falls behind its timeline.
+   */
+  BLOCK,
+
+  /**
+   * The oldest batches of observations in the buffer are dropped to make space, so the replay keeps to its timeline.
+   */
+  DROP_OLDEST,
+
+  /**
+   * The observations in the buffer are coalesced to the latest observation of each entity to make space, so the
+   * latest position of every entity is kept and the replay keeps to its timeline.
+   */
+  COALESCE_PER_ENTITY
+}
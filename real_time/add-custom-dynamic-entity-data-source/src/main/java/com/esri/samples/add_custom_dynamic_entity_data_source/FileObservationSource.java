@@ -0,0 +1,67 @@
+/*
+ * Copyright 2023 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.add_custom_dynamic_entity_data_source;
+
+import java.io.IOException;
+
+/**
+ * Reads observations from a file of JSON lines, parsing each line as it is read.
+ */
+class FileObservationSource implements ObservationSource {
+
+  private final ObservationFileReader observationFileReader;
+  private final ObservationParser observationParser;
+  private final IngestMetrics ingestMetrics;
+
+  /**
+   * Opens a file of observations for reading.
+   *
+   * @param fileName name of a file with JSON observation data
+   * @param observationParser parser for the lines of the file, which must not be shared with other sources
+   * @param ingestMetrics metrics to record the parsed observations in
+   * @throws IOException if the file cannot be opened
+   */
+  FileObservationSource(String fileName, ObservationParser observationParser, IngestMetrics ingestMetrics)
+    throws IOException {
+    this.observationFileReader = new ObservationFileReader(fileName);
+    this.observationParser = observationParser;
+    this.ingestMetrics = ingestMetrics;
+  }
+
+  @Override
+  public Observation next() throws IOException {
+    while (observationFileReader.nextLine()) {
+      byte[] line = observationFileReader.getLineBuffer();
+      int length = observationFileReader.getLineLength();
+      try {
+        long parseStart = System.nanoTime();
+        Observation observation = observationParser.parse(line, length);
+        ingestMetrics.recordRead(System.nanoTime() - parseStart);
+        return observation;
+      } catch (IllegalArgumentException e) {
+        // skip lines which are not valid observations
+        System.err.println("Failed to parse observation: " + e.getMessage());
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    observationFileReader.close();
+  }
+}
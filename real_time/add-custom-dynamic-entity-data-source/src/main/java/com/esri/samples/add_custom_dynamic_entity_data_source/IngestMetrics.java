@@ -0,0 +1,365 @@
+/*
+ * Copyright 2023 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.add_custom_dynamic_entity_data_source;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.ReadOnlyLongWrapper;
+
+/**
+ * Measures the ingest of observations into a data source: how many observations are read, filtered, dropped and added,
+ * how long parsing and adding take, how far observations lag behind the replay timeline, and how far the scheduled
+ * batches slip.
+ * <p>
+ * Measurements can be recorded from any thread. Once started, the measurements of each interval are summarized into
+ * JavaFX properties on the JavaFX application thread.
+ */
+class IngestMetrics {
+
+  // the interval, in milliseconds, between summaries of the measurements
+  private static final long SUMMARY_INTERVAL = 1000;
+
+  private final LongAdder observationsRead = new LongAdder();
+  private final LongAdder observationsFiltered = new LongAdder();
+  private final LongAdder observationsAdded = new LongAdder();
+  private final LongAdder observationsCoalesced = new LongAdder();
+  private final LatencyHistogram parseTimes = new LatencyHistogram();
+  private final LatencyHistogram addTimes = new LatencyHistogram();
+  private final LatencyHistogram lags = new LatencyHistogram();
+  private final LatencyHistogram tickSlips = new LatencyHistogram();
+
+  private final ReadOnlyDoubleWrapper readObservationsPerSecond = new ReadOnlyDoubleWrapper();
+  private final ReadOnlyDoubleWrapper observationsPerSecond = new ReadOnlyDoubleWrapper();
+  private final ReadOnlyDoubleWrapper meanParseTime = new ReadOnlyDoubleWrapper();
+  private final ReadOnlyDoubleWrapper meanAddTime = new ReadOnlyDoubleWrapper();
+  private final ReadOnlyDoubleWrapper meanLag = new ReadOnlyDoubleWrapper();
+  private final ReadOnlyDoubleWrapper percentile99Lag = new ReadOnlyDoubleWrapper();
+  private final ReadOnlyDoubleWrapper maximumLag = new ReadOnlyDoubleWrapper();
+  private final ReadOnlyDoubleWrapper maximumTickSlip = new ReadOnlyDoubleWrapper();
+  private final ReadOnlyIntegerWrapper queueDepth = new ReadOnlyIntegerWrapper();
+  private final ReadOnlyLongWrapper filteredObservations = new ReadOnlyLongWrapper();
+  private final ReadOnlyLongWrapper droppedObservations = new ReadOnlyLongWrapper();
+  private final ReadOnlyLongWrapper coalescedObservations = new ReadOnlyLongWrapper();
+
+  private ScheduledExecutorService summaryExecutor;
+  private IntSupplier queueDepthSupplier = () -> 0;
+  private LongSupplier droppedCountSupplier = () -> 0L;
+  private long lastSummaryTime;
+
+  /**
+   * Records an observation read from the data, with the time taken to parse it.
+   *
+   * @param parseTime the time taken to parse the observation, in nanoseconds
+   */
+  void recordRead(long parseTime) {
+    observationsRead.increment();
+    parseTimes.record(parseTime);
+  }
+
+  /**
+   * Records an observation rejected by a filter.
+   */
+  void recordFiltered() {
+    observationsFiltered.increment();
+  }
+
+  /**
+   * Records an observation added to the data source.
+   *
+   * @param addTime the time taken to add the observation, in nanoseconds
+   * @param lag the time between the observation being due on the replay timeline and it being added, in nanoseconds
+   */
+  void recordAdded(long addTime, long lag) {
+    observationsAdded.increment();
+    addTimes.record(addTime);
+    lags.record(lag);
+  }
+
+  /**
+   * Records observations superseded by a later observation of the same entity within a frame, and not added.
+   *
+   * @param count the number of observations
+   */
+  void recordCoalesced(long count) {
+    observationsCoalesced.add(count);
+  }
+
+  /**
+   * Records how late a scheduled batch started.
+   *
+   * @param tickSlip the time between the batch being due and it starting, in nanoseconds
+   */
+  void recordTickSlip(long tickSlip) {
+    tickSlips.record(tickSlip);
+  }
+
+  /**
+   * Sets the sources of measurements owned by the buffer between the replay and the data source.
+   *
+   * @param queueDepthSupplier supplies the number of observations waiting to be added
+   * @param droppedCountSupplier supplies the total number of observations dropped by the back-pressure policy
+   */
+  void setBufferSuppliers(IntSupplier queueDepthSupplier, LongSupplier droppedCountSupplier) {
+    this.queueDepthSupplier = queueDepthSupplier;
+    this.droppedCountSupplier = droppedCountSupplier;
+  }
+
+  /**
+   * Starts summarizing the measurements at a fixed interval.
+   */
+  synchronized void start() {
+    if (summaryExecutor == null) {
+      summaryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "ingest-metrics");
+        thread.setDaemon(true);
+        return thread;
+      });
+      lastSummaryTime = System.nanoTime();
+      summaryExecutor.scheduleAtFixedRate(this::summarize, SUMMARY_INTERVAL, SUMMARY_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Stops summarizing the measurements.
+   */
+  synchronized void stop() {
+    if (summaryExecutor != null) {
+      summaryExecutor.shutdownNow();
+      summaryExecutor = null;
+    }
+  }
+
+  /**
+   * Summarizes the measurements since the last summary and publishes them.
+   */
+  private void summarize() {
+    long now = System.nanoTime();
+    double seconds = (now - lastSummaryTime) / 1e9;
+    lastSummaryTime = now;
+
+    double readRate = observationsRead.sumThenReset() / seconds;
+    double rate = observationsAdded.sumThenReset() / seconds;
+    // every histogram is reset each interval, so that its summary only covers the interval
+    LatencyHistogram.Summary parseSummary = parseTimes.summarizeThenReset();
+    LatencyHistogram.Summary addSummary = addTimes.summarizeThenReset();
+    LatencyHistogram.Summary lagSummary = lags.summarizeThenReset();
+    LatencyHistogram.Summary tickSlipSummary = tickSlips.summarizeThenReset();
+    int depth = queueDepthSupplier.getAsInt();
+    long filtered = observationsFiltered.sum();
+    long dropped = droppedCountSupplier.getAsLong();
+    long coalesced = observationsCoalesced.sum();
+
+    Platform.runLater(() -> {
+      readObservationsPerSecond.set(readRate);
+      observationsPerSecond.set(rate);
+      meanParseTime.set(parseSummary.mean() / 1e3);
+      meanAddTime.set(addSummary.mean() / 1e3);
+      meanLag.set(lagSummary.mean() / 1e6);
+      percentile99Lag.set(lagSummary.percentile99() / 1e6);
+      maximumLag.set(lagSummary.maximum() / 1e6);
+      maximumTickSlip.set(tickSlipSummary.maximum() / 1e6);
+      queueDepth.set(depth);
+      filteredObservations.set(filtered);
+      droppedObservations.set(dropped);
+      coalescedObservations.set(coalesced);
+    });
+  }
+
+  /**
+   * The number of observations read from the data per second, over the last interval.
+   *
+   * @return the read observations per second property
+   */
+  ReadOnlyDoubleProperty readObservationsPerSecondProperty() {
+    return readObservationsPerSecond.getReadOnlyProperty();
+  }
+
+  /**
+   * The number of observations added to the data source per second, over the last interval.
+   *
+   * @return the observations per second property
+   */
+  ReadOnlyDoubleProperty observationsPerSecondProperty() {
+    return observationsPerSecond.getReadOnlyProperty();
+  }
+
+  /**
+   * The mean time taken to parse an observation over the last interval, in microseconds.
+   *
+   * @return the mean parse time property
+   */
+  ReadOnlyDoubleProperty meanParseTimeProperty() {
+    return meanParseTime.getReadOnlyProperty();
+  }
+
+  /**
+   * The mean time taken to add an observation to the data source over the last interval, in microseconds.
+   *
+   * @return the mean add time property
+   */
+  ReadOnlyDoubleProperty meanAddTimeProperty() {
+    return meanAddTime.getReadOnlyProperty();
+  }
+
+  /**
+   * The mean time between observations being due on the replay timeline and being added over the last interval, in
+   * milliseconds.
+   *
+   * @return the mean lag property
+   */
+  ReadOnlyDoubleProperty meanLagProperty() {
+    return meanLag.getReadOnlyProperty();
+  }
+
+  /**
+   * The 99th percentile of the time between observations being due on the replay timeline and being added over the last
+   * interval, in milliseconds, to within a factor of two.
+   *
+   * @return the 99th percentile lag property
+   */
+  ReadOnlyDoubleProperty percentile99LagProperty() {
+    return percentile99Lag.getReadOnlyProperty();
+  }
+
+  /**
+   * The maximum time between an observation being due on the replay timeline and being added over the last interval,
+   * in milliseconds.
+   *
+   * @return the maximum lag property
+   */
+  ReadOnlyDoubleProperty maximumLagProperty() {
+    return maximumLag.getReadOnlyProperty();
+  }
+
+  /**
+   * The maximum time between a batch being due and it starting over the last interval, in milliseconds.
+   *
+   * @return the maximum tick slip property
+   */
+  ReadOnlyDoubleProperty maximumTickSlipProperty() {
+    return maximumTickSlip.getReadOnlyProperty();
+  }
+
+  /**
+   * The number of observations waiting to be added to the data source.
+   *
+   * @return the queue depth property
+   */
+  ReadOnlyIntegerProperty queueDepthProperty() {
+    return queueDepth.getReadOnlyProperty();
+  }
+
+  /**
+   * The total number of observations rejected by the filter.
+   *
+   * @return the filtered observations property
+   */
+  ReadOnlyLongProperty filteredObservationsProperty() {
+    return filteredObservations.getReadOnlyProperty();
+  }
+
+  /**
+   * The total number of observations dropped or coalesced by the back-pressure policy.
+   *
+   * @return the dropped observations property
+   */
+  ReadOnlyLongProperty droppedObservationsProperty() {
+    return droppedObservations.getReadOnlyProperty();
+  }
+
+  /**
+   * The total number of observations superseded within a frame and not added.
+   *
+   * @return the coalesced observations property
+   */
+  ReadOnlyLongProperty coalescedObservationsProperty() {
+    return coalescedObservations.getReadOnlyProperty();
+  }
+
+  /**
+   * A histogram of durations in buckets of powers of two nanoseconds, with the exact maximum, which can be recorded
+   * into from any thread without locking.
+   */
+  private static class LatencyHistogram {
+
+    private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE + 1);
+    private final LongAdder sum = new LongAdder();
+    private final LongAdder count = new LongAdder();
+    private final LongAccumulator maximum = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * Records a duration.
+     *
+     * @param duration the duration in nanoseconds
+     */
+    void record(long duration) {
+      long clamped = Math.max(0L, duration);
+      buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(clamped));
+      sum.add(clamped);
+      count.increment();
+      maximum.accumulate(clamped);
+    }
+
+    /**
+     * Summarizes the recorded durations, and resets the histogram.
+     *
+     * @return the summary, with all values 0 if nothing was recorded
+     */
+    Summary summarizeThenReset() {
+      long n = count.sumThenReset();
+      long total = sum.sumThenReset();
+      long max = maximum.getThenReset();
+      long[] bucketCounts = new long[buckets.length()];
+      long bucketTotal = 0;
+      for (int i = 0; i < bucketCounts.length; i++) {
+        bucketCounts[i] = buckets.getAndSet(i, 0);
+        bucketTotal += bucketCounts[i];
+      }
+      // the upper bound of the bucket holding the 99th percentile, which cannot be more than the maximum
+      double percentile99 = 0;
+      long rank = (long) Math.ceil(bucketTotal * 0.99);
+      long countBelow = 0;
+      for (int i = 0; i < bucketCounts.length && bucketTotal > 0; i++) {
+        countBelow += bucketCounts[i];
+        if (countBelow >= rank) {
+          percentile99 = Math.min(Math.pow(2, i), max);
+          break;
+        }
+      }
+      return new Summary(n == 0 ? 0 : (double) total / n, percentile99, max);
+    }
+
+    /**
+     * The mean, 99th percentile and maximum of the durations recorded in an interval, in nanoseconds.
+     */
+    record Summary(double mean, double percentile99, double maximum) {
+    }
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2023 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.add_custom_dynamic_entity_data_source;
+
+import java.util.Map;
+
+/**
+ * A single observation of an entity, with the location in WGS84 and the attributes to add to the data source.
+ */
+class Observation {
+
+  final double x;
+  final double y;
+  final double timestamp;
+  final Object entityId;
+  final Map<String, Object> attributes;
+
+  /**
+   * Construct an observation.
+   *
+   * @param x the longitude of the observation
+   * @param y the latitude of the observation
+   * @param timestamp the recorded time of the observation, or NaN if it has no time
+   * @param entityId the id of the entity observed, or null if it has no id
+   * @param attributes the attribute values of the observation, keyed by field name
+   */
+  Observation(double x, double y, double timestamp, Object entityId, Map<String, Object> attributes) {
+    this.x = x;
+    this.y = y;
+    this.timestamp = timestamp;
+    this.entityId = entityId;
+    this.attributes = attributes;
+  }
+}
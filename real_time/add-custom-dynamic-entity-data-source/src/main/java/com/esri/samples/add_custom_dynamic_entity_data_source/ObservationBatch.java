@@ -0,0 +1,39 @@
+/*
+ * Copyright 2023 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.add_custom_dynamic_entity_data_source;
+
+import java.util.List;
+
+/**
+ * A batch of observations released together by the replay.
+ */
+class ObservationBatch {
+
+  final List<Observation> observations;
+  final long releaseTime;
+
+  /**
+   * Construct a batch.
+   *
+   * @param observations the observations in recorded time order
+   * @param releaseTime the time the batch was due to be added to the data source, from {@link System#nanoTime()}
+   */
+  ObservationBatch(List<Observation> observations, long releaseTime) {
+    this.observations = observations;
+    this.releaseTime = releaseTime;
+  }
+}
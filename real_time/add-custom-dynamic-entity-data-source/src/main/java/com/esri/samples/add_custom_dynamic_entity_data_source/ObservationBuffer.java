@@ -0,0 +1,182 @@
+/*
+ * Copyright 2023 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.add_custom_dynamic_entity_data_source;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded buffer of observation batches between the replay, which puts batches, and the thread adding observations
+ * to the data source, which takes them. The capacity is a number of observations, and a {@link BackPressurePolicy}
+ * decides what happens when a batch does not fit.
+ */
+class ObservationBuffer {
+
+  private final int capacity;
+  private final BackPressurePolicy policy;
+  private final Deque<ObservationBatch> batches = new ArrayDeque<>();
+  private int size;
+  private long droppedCount;
+  private boolean closed;
+
+  /**
+   * Construct a buffer.
+   *
+   * @param capacity the number of observations the buffer can hold
+   * @param policy what to do when a batch does not fit in the buffer
+   */
+  ObservationBuffer(int capacity, BackPressurePolicy policy) {
+    this.capacity = capacity;
+    this.policy = policy;
+  }
+
+  /**
+   * Puts a batch into the buffer, applying the back-pressure policy if it does not fit. A batch larger than the
+   * capacity is accepted once the buffer is empty.
+   *
+   * @param batch the batch
+   * @throws InterruptedException if interrupted while waiting for space
+   */
+  synchronized void put(ObservationBatch batch) throws InterruptedException {
+    if (policy == BackPressurePolicy.DROP_OLDEST) {
+      while (!batches.isEmpty() && size + batch.observations.size() > capacity) {
+        ObservationBatch dropped = batches.removeFirst();
+        size -= dropped.observations.size();
+        droppedCount += dropped.observations.size();
+      }
+    } else if (policy == BackPressurePolicy.COALESCE_PER_ENTITY && !batches.isEmpty()
+      && size + batch.observations.size() > capacity) {
+      batch = coalesce(batch);
+    }
+    while (!closed && !batches.isEmpty() && size + batch.observations.size() > capacity) {
+      wait();
+    }
+    batches.addLast(batch);
+    size += batch.observations.size();
+    notifyAll();
+  }
+
+  /**
+   * Removes all batches from the buffer and merges them with a new batch into a single batch, keeping only the latest
+   * observation of each entity.
+   *
+   * @return the merged batch
+   */
+  private ObservationBatch coalesce(ObservationBatch batch) {
+    batches.addLast(batch);
+    long releaseTime = batches.peekFirst().releaseTime;
+    int count = size + batch.observations.size();
+    Map<Object, Observation> latestObservations = new LinkedHashMap<>();
+    List<Observation> observations = new ArrayList<>();
+    for (ObservationBatch queuedBatch : batches) {
+      for (Observation observation : queuedBatch.observations) {
+        if (observation.entityId == null) {
+          observations.add(observation);
+        } else {
+          // remove then put, so that the entity moves to the position of its latest observation
+          latestObservations.remove(observation.entityId);
+          latestObservations.put(observation.entityId, observation);
+        }
+      }
+    }
+    observations.addAll(latestObservations.values());
+    batches.clear();
+    size = 0;
+    droppedCount += count - observations.size();
+    return new ObservationBatch(observations, releaseTime);
+  }
+
+  /**
+   * Takes the oldest batch from the buffer, waiting for one if the buffer is empty.
+   *
+   * @return the batch, or null if the buffer has been closed and is empty
+   * @throws InterruptedException if interrupted while waiting for a batch
+   */
+  synchronized ObservationBatch take() throws InterruptedException {
+    while (!closed && batches.isEmpty()) {
+      wait();
+    }
+    ObservationBatch batch = batches.pollFirst();
+    if (batch != null) {
+      size -= batch.observations.size();
+      notifyAll();
+    }
+    return batch;
+  }
+
+  /**
+   * Takes the oldest batch from the buffer, waiting up to a timeout for one if the buffer is empty.
+   *
+   * @param timeout the maximum time to wait in nanoseconds
+   * @return the batch, or null if the timeout elapsed or the buffer has been closed and is empty
+   * @throws InterruptedException if interrupted while waiting for a batch
+   */
+  synchronized ObservationBatch poll(long timeout) throws InterruptedException {
+    long deadline = System.nanoTime() + timeout;
+    long remaining = timeout;
+    while (!closed && batches.isEmpty() && remaining > 0) {
+      TimeUnit.NANOSECONDS.timedWait(this, remaining);
+      remaining = deadline - System.nanoTime();
+    }
+    ObservationBatch batch = batches.pollFirst();
+    if (batch != null) {
+      size -= batch.observations.size();
+      notifyAll();
+    }
+    return batch;
+  }
+
+  /**
+   * Checks whether the buffer has been closed and all of its batches have been taken.
+   *
+   * @return true if no more batches will be taken from the buffer
+   */
+  synchronized boolean isDrained() {
+    return closed && batches.isEmpty();
+  }
+
+  /**
+   * Closes the buffer. Batches already in the buffer can still be taken, and no more batches are waited for.
+   */
+  synchronized void close() {
+    closed = true;
+    notifyAll();
+  }
+
+  /**
+   * Gets the number of observations in the buffer.
+   *
+   * @return the number of observations
+   */
+  synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Gets the number of observations dropped or coalesced by the back-pressure policy.
+   *
+   * @return the number of observations
+   */
+  synchronized long getDroppedCount() {
+    return droppedCount;
+  }
+}
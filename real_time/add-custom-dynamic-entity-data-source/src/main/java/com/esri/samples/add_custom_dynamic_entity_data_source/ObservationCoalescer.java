@@ -0,0 +1,201 @@
+/*
+ * Copyright 2023 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.add_custom_dynamic_entity_data_source;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Coalesces the observations arriving within a frame, so that only the latest observation of each entity is added to
+ * the data source when the frame is flushed. Superseded observations can optionally be kept as points on the track
+ * line of their entity, if they are at least a minimum interval of recorded time apart.
+ * <p>
+ * Each entity id is given a dense index the first time it is seen, and the state of each entity is kept in arrays by
+ * index, so the work per observation does not depend on the number of entities. Entities are forgotten once their
+ * state no longer affects which observations are kept: after every frame if no track points are kept, or otherwise
+ * once their last track point is more than the track point interval behind the latest observation, so that entities
+ * which stop reporting are not kept for the lifetime of the feed.
+ */
+class ObservationCoalescer {
+
+  /**
+   * Receives the observations flushed by a coalescer.
+   */
+  interface Sink {
+
+    /**
+     * Adds an observation to the data source.
+     *
+     * @param observation the observation
+     * @param releaseTime the time the observation was due to be added, from {@link System#nanoTime()}
+     */
+    void add(Observation observation, long releaseTime);
+  }
+
+  // the number of frames between removals of the entities whose last track point is too old to matter
+  private static final int SWEEP_INTERVAL = 256;
+
+  private final double trackPointInterval;
+  private final Map<Object, Integer> entityIndices = new HashMap<>();
+  private Observation[] latestObservations = new Observation[256];
+  private long[] latestReleaseTimes = new long[256];
+  private double[] lastTrackTimestamps = growTrackTimestamps(new double[0], 256);
+  private int[] pendingEntities = new int[256];
+  private int pendingCount;
+  private Observation[] trackPoints = new Observation[256];
+  private long[] trackPointReleaseTimes = new long[256];
+  private int trackPointCount;
+  private long coalescedCount;
+  private double latestTimestamp = Double.NEGATIVE_INFINITY;
+  private int framesSinceSweep;
+
+  /**
+   * Construct a coalescer.
+   *
+   * @param trackPointInterval the minimum interval of recorded time, in milliseconds, between the superseded
+   *                           observations of an entity kept as track points, or 0 to keep only the latest observation
+   */
+  ObservationCoalescer(double trackPointInterval) {
+    this.trackPointInterval = trackPointInterval;
+  }
+
+  /**
+   * Adds an observation to the current frame, superseding any earlier observation of the same entity in the frame.
+   *
+   * @param observation the observation
+   * @param releaseTime the time the observation was due to be added, from {@link System#nanoTime()}
+   */
+  void add(Observation observation, long releaseTime) {
+    if (observation.timestamp > latestTimestamp) {
+      latestTimestamp = observation.timestamp;
+    }
+    if (observation.entityId == null) {
+      // an observation which is not of a known entity can't be superseded
+      addTrackPoint(observation, releaseTime);
+      return;
+    }
+    int index = entityIndices.computeIfAbsent(observation.entityId, id -> entityIndices.size());
+    ensureEntityCapacity(index + 1);
+
+    Observation previous = latestObservations[index];
+    if (previous == null) {
+      pendingEntities[pendingCount++] = index;
+    } else if (trackPointInterval > 0 && previous.timestamp - lastTrackTimestamps[index] >= trackPointInterval) {
+      // keep the superseded observation for the track line
+      addTrackPoint(previous, latestReleaseTimes[index]);
+      lastTrackTimestamps[index] = previous.timestamp;
+    } else {
+      coalescedCount++;
+    }
+    latestObservations[index] = observation;
+    latestReleaseTimes[index] = releaseTime;
+  }
+
+  /**
+   * Passes the observations of the current frame to a sink and starts a new frame. Track points are passed first, so
+   * the observations of each entity are passed in order.
+   *
+   * @param sink the sink to pass the observations to
+   */
+  void flush(Sink sink) {
+    for (int i = 0; i < trackPointCount; i++) {
+      sink.add(trackPoints[i], trackPointReleaseTimes[i]);
+      trackPoints[i] = null;
+    }
+    trackPointCount = 0;
+    for (int i = 0; i < pendingCount; i++) {
+      int index = pendingEntities[i];
+      Observation observation = latestObservations[index];
+      sink.add(observation, latestReleaseTimes[index]);
+      lastTrackTimestamps[index] = observation.timestamp;
+      latestObservations[index] = null;
+    }
+    pendingCount = 0;
+
+    if (trackPointInterval <= 0) {
+      // nothing about an entity is kept between frames, so the entities of this frame can be forgotten
+      entityIndices.clear();
+    } else if (++framesSinceSweep >= SWEEP_INTERVAL) {
+      framesSinceSweep = 0;
+      removeStaleEntities();
+    }
+  }
+
+  /**
+   * Forgets the entities whose last track point is at least the track point interval before the latest observation,
+   * as their next superseded observation is kept as a track point whether or not they are remembered, and moves the
+   * remaining entities to the lowest indices. Must only be called when no observations are pending.
+   */
+  private void removeStaleEntities() {
+    double staleTimestamp = latestTimestamp - trackPointInterval;
+    double[] keptTrackTimestamps = growTrackTimestamps(new double[0], lastTrackTimestamps.length);
+    int keptCount = 0;
+    Iterator<Map.Entry<Object, Integer>> entries = entityIndices.entrySet().iterator();
+    while (entries.hasNext()) {
+      Map.Entry<Object, Integer> entry = entries.next();
+      double lastTrackTimestamp = lastTrackTimestamps[entry.getValue()];
+      if (lastTrackTimestamp > staleTimestamp) {
+        keptTrackTimestamps[keptCount] = lastTrackTimestamp;
+        entry.setValue(keptCount++);
+      } else {
+        entries.remove();
+      }
+    }
+    lastTrackTimestamps = keptTrackTimestamps;
+  }
+
+  /**
+   * Gets the number of observations which have been superseded and not kept as track points, and resets it.
+   *
+   * @return the number of observations coalesced since the last call
+   */
+  long getCoalescedCountThenReset() {
+    long count = coalescedCount;
+    coalescedCount = 0;
+    return count;
+  }
+
+  private void addTrackPoint(Observation observation, long releaseTime) {
+    if (trackPointCount == trackPoints.length) {
+      trackPoints = Arrays.copyOf(trackPoints, trackPointCount * 2);
+      trackPointReleaseTimes = Arrays.copyOf(trackPointReleaseTimes, trackPointCount * 2);
+    }
+    trackPoints[trackPointCount] = observation;
+    trackPointReleaseTimes[trackPointCount++] = releaseTime;
+  }
+
+  private void ensureEntityCapacity(int capacity) {
+    if (capacity > latestObservations.length) {
+      int length = Math.max(capacity, latestObservations.length * 2);
+      latestObservations = Arrays.copyOf(latestObservations, length);
+      latestReleaseTimes = Arrays.copyOf(latestReleaseTimes, length);
+      lastTrackTimestamps = growTrackTimestamps(lastTrackTimestamps, length);
+      pendingEntities = Arrays.copyOf(pendingEntities, length);
+    }
+  }
+
+  /**
+   * Grows the array of last track timestamps, marking the new entities as having no track points yet.
+   */
+  private static double[] growTrackTimestamps(double[] timestamps, int length) {
+    double[] grown = Arrays.copyOf(timestamps, length);
+    Arrays.fill(grown, timestamps.length, length, Double.NEGATIVE_INFINITY);
+    return grown;
+  }
+}
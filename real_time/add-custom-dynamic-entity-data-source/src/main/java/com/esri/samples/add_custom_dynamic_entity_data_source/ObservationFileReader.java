@@ -0,0 +1,129 @@
+/*
+ * Copyright 2023 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.add_custom_dynamic_entity_data_source;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a file of newline delimited observations one line at a time, through a memory-mapped window of a fixed size.
+ * Only the current window and the current line are held at any time, so memory use does not grow with the file size
+ * and the first line is available as soon as the first window is mapped.
+ */
+class ObservationFileReader implements Closeable {
+
+  // the size of the region of the file mapped into memory at once
+  private static final long WINDOW_SIZE = 16L * 1024 * 1024;
+
+  private final FileChannel channel;
+  private final long fileSize;
+  private long windowStart;
+  private MappedByteBuffer window;
+  private byte[] line = new byte[1024];
+  private int lineLength;
+
+  /**
+   * Opens a file for reading.
+   *
+   * @param fileName name of the file to read
+   * @throws IOException if the file cannot be opened
+   */
+  ObservationFileReader(String fileName) throws IOException {
+    channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ);
+    fileSize = channel.size();
+    window = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(WINDOW_SIZE, fileSize));
+  }
+
+  /**
+   * Advances to the next non-blank line of the file.
+   *
+   * @return true if a line was read, false if the end of the file has been reached
+   * @throws IOException if the next region of the file cannot be mapped
+   */
+  boolean nextLine() throws IOException {
+    do {
+      lineLength = 0;
+      boolean endOfLine = false;
+      while (!endOfLine) {
+        if (!window.hasRemaining() && !mapNextWindow()) {
+          // end of file, return the last line if it was not terminated with a line break
+          return lineLength > 0;
+        }
+        byte b = window.get();
+        if (b == '\n') {
+          endOfLine = true;
+        } else if (b != '\r') {
+          append(b);
+        }
+      }
+    } while (lineLength == 0);
+    return true;
+  }
+
+  /**
+   * Gets the buffer holding the UTF-8 bytes of the current line. The buffer is reused for the following lines.
+   *
+   * @return the line buffer, containing {@link #getLineLength()} bytes of the current line
+   */
+  byte[] getLineBuffer() {
+    return line;
+  }
+
+  /**
+   * Gets the number of bytes in the current line.
+   *
+   * @return the length of the current line
+   */
+  int getLineLength() {
+    return lineLength;
+  }
+
+  /**
+   * Maps the region of the file following the current window.
+   *
+   * @return false if there are no more regions to map
+   */
+  private boolean mapNextWindow() throws IOException {
+    long nextWindowStart = windowStart + window.capacity();
+    if (nextWindowStart >= fileSize) {
+      return false;
+    }
+    windowStart = nextWindowStart;
+    window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(WINDOW_SIZE, fileSize - windowStart));
+    return true;
+  }
+
+  /**
+   * Appends a byte to the current line, growing the line buffer if required.
+   */
+  private void append(byte b) {
+    if (lineLength == line.length) {
+      line = Arrays.copyOf(line, line.length * 2);
+    }
+    line[lineLength++] = b;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2023 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.add_custom_dynamic_entity_data_source;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.SpatialReferences;
+
+/**
+ * Filters observations before they are added to a data source, in the same way as a stream service filter limits the
+ * observations sent by a service. Observations can be filtered by a geometry, by a where clause on their attributes,
+ * and by a minimum interval between the observations of each entity.
+ * <p>
+ * A geometry other than an envelope is indexed with a grid of cells covering its extent, with each cell recorded as
+ * inside, outside, or on the boundary of the geometry. Only observations in boundary cells need to be tested against
+ * the geometry itself, all others are accepted or rejected with a single lookup. An envelope is tested by its bounds
+ * alone, without a grid.
+ * <p>
+ * The geometry can be changed while the data source is connected and applies from the next observation. Setting an
+ * envelope only projects it, so it can be changed as often as the viewpoint, such as to follow the extent of the
+ * visible area of a map view, while building the grid of a polygon takes thousands of geometry tests. The where clause and minimum interval should be configured before the data
+ * source is connected. The minimum interval is tracked per filter, so a filter should not be shared between data
+ * sources.
+ */
+class ObservationFilter {
+
+  // the number of rows and columns of the grid indexing the filter geometry
+  private static final int GRID_SIZE = 64;
+
+  private static final byte OUTSIDE = 0;
+  private static final byte INSIDE = 1;
+  private static final byte BOUNDARY = 2;
+
+  // the geometry and its index, replaced as a whole so that observations are never tested against a mix of two
+  private volatile GeometryIndex geometryIndex;
+  private String whereClause;
+  private Predicate<Map<String, Object>> wherePredicate;
+  private double minimumInterval;
+  private final Map<Object, Double> lastTimestamps = new HashMap<>();
+
+  /**
+   * Sets the geometry observations must intersect to be accepted. This can be called while the data source is
+   * connected.
+   *
+   * @param geometry an envelope or polygon, or null to accept observations at any location. An envelope is replaced by
+   *                 the extent of its projection to WGS84.
+   */
+  void setGeometry(Geometry geometry) {
+    if (geometry == null) {
+      geometryIndex = null;
+      return;
+    }
+    // observations are in WGS84, so the geometry is tested in WGS84. An envelope is kept as an envelope, so that it is
+    // not indexed with a grid
+    Geometry projected = GeometryEngine.project(geometry, SpatialReferences.getWgs84());
+    geometryIndex = new GeometryIndex(geometry instanceof Envelope ? projected.getExtent() : projected);
+  }
+
+  /**
+   * Gets the geometry observations must intersect to be accepted.
+   *
+   * @return the geometry in WGS84, or null if observations at any location are accepted
+   */
+  Geometry getGeometry() {
+    GeometryIndex index = geometryIndex;
+    return index == null ? null : index.geometry;
+  }
+
+  /**
+   * Sets the where clause observations must match to be accepted.
+   *
+   * @param whereClause a where clause on the observation attributes, for example <code>SOG &gt; 0</code>, or null to
+   *                    accept observations with any attributes
+   * @throws IllegalArgumentException if the where clause is not valid
+   * @see WhereClause
+   */
+  void setWhereClause(String whereClause) {
+    this.wherePredicate = whereClause == null ? null : WhereClause.compile(whereClause);
+    this.whereClause = whereClause;
+  }
+
+  /**
+   * Gets the where clause observations must match to be accepted.
+   *
+   * @return the where clause, or null if observations with any attributes are accepted
+   */
+  String getWhereClause() {
+    return whereClause;
+  }
+
+  /**
+   * Sets the minimum interval of recorded time between accepted observations of an entity. Observations of an entity
+   * which arrive sooner after its last accepted observation are rejected.
+   *
+   * @param minimumInterval the minimum interval in milliseconds, or 0 to accept every observation of an entity
+   */
+  void setMinimumInterval(double minimumInterval) {
+    this.minimumInterval = minimumInterval;
+    lastTimestamps.clear();
+  }
+
+  /**
+   * Gets the minimum interval of recorded time between accepted observations of an entity.
+   *
+   * @return the minimum interval in milliseconds
+   */
+  double getMinimumInterval() {
+    return minimumInterval;
+  }
+
+  /**
+   * Tests whether an observation passes the filter. The checks are made in order of cost, so that most observations
+   * are rejected by the cheapest checks.
+   *
+   * @param observation the observation
+   * @return true if the observation should be added to the data source
+   */
+  boolean accept(Observation observation) {
+    GeometryIndex index = geometryIndex;
+    if (index != null && !index.intersects(observation.x, observation.y)) {
+      return false;
+    }
+    if (wherePredicate != null && !wherePredicate.test(observation.attributes)) {
+      return false;
+    }
+    if (minimumInterval > 0 && observation.entityId != null && !Double.isNaN(observation.timestamp)) {
+      Double lastTimestamp = lastTimestamps.get(observation.entityId);
+      if (lastTimestamp != null && observation.timestamp - lastTimestamp < minimumInterval) {
+        return false;
+      }
+      lastTimestamps.put(observation.entityId, observation.timestamp);
+    }
+    return true;
+  }
+
+  /**
+   * A geometry in WGS84, indexed with a grid of cells unless it is an envelope.
+   */
+  private static class GeometryIndex {
+
+    private final Geometry geometry;
+    private final Envelope extent;
+    private final byte[] grid;
+    private final double cellWidth;
+    private final double cellHeight;
+
+    GeometryIndex(Geometry geometry) {
+      this.geometry = geometry;
+      extent = geometry.getExtent();
+      cellWidth = extent.getWidth() / GRID_SIZE;
+      cellHeight = extent.getHeight() / GRID_SIZE;
+      grid = geometry instanceof Envelope ? null : buildGrid();
+    }
+
+    /**
+     * Tests whether a location intersects the filter geometry, using the grid if there is one.
+     */
+    boolean intersects(double x, double y) {
+      if (!(x >= extent.getXMin() && x <= extent.getXMax() && y >= extent.getYMin() && y <= extent.getYMax())) {
+        // outside the extent, or no location
+        return false;
+      }
+      if (grid == null) {
+        // the geometry is an envelope, so it is the same as its extent
+        return true;
+      }
+      int column = Math.min((int) ((x - extent.getXMin()) / cellWidth), GRID_SIZE - 1);
+      int row = Math.min((int) ((y - extent.getYMin()) / cellHeight), GRID_SIZE - 1);
+      return switch (grid[row * GRID_SIZE + column]) {
+        case INSIDE -> true;
+        case OUTSIDE -> false;
+        default -> GeometryEngine.intersects(geometry, new Point(x, y, SpatialReferences.getWgs84()));
+      };
+    }
+
+    /**
+     * Records whether each cell of the grid is inside, outside, or on the boundary of the geometry.
+     */
+    private byte[] buildGrid() {
+      byte[] cells = new byte[GRID_SIZE * GRID_SIZE];
+      for (int row = 0; row < GRID_SIZE; row++) {
+        for (int column = 0; column < GRID_SIZE; column++) {
+          double xMin = extent.getXMin() + column * cellWidth;
+          double yMin = extent.getYMin() + row * cellHeight;
+          var cell = new Envelope(xMin, yMin, xMin + cellWidth, yMin + cellHeight, SpatialReferences.getWgs84());
+          byte state;
+          if (GeometryEngine.contains(geometry, cell)) {
+            state = INSIDE;
+          } else if (GeometryEngine.disjoint(geometry, cell)) {
+            state = OUTSIDE;
+          } else {
+            state = BOUNDARY;
+          }
+          cells[row * GRID_SIZE + column] = state;
+        }
+      }
+      return cells;
+    }
+  }
+}
@@ -0,0 +1,440 @@
+/*
+ * Copyright 2023 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.add_custom_dynamic_entity_data_source;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.esri.arcgisruntime.data.Field;
+
+/**
+ * Parses observations in the JSON format <code>{"geometry":{"x":..,"y":..},"attributes":{..}}</code> directly from the
+ * UTF-8 bytes of a line, using the fields of the data source as the schema.
+ * <p>
+ * Attribute names are matched against the schema without decoding them, and only fields in the schema are added to
+ * the observation. Numbers are converted straight to the field's type, and text values are looked up in a table of
+ * recently seen values for their field, so repeated values such as vessel names and types are not decoded again.
+ * <p>
+ * A parser keeps state between calls, so each thread parsing observations needs its own parser.
+ */
+class ObservationParser {
+
+  // the number of recently seen text values kept for each field
+  private static final int TEXT_TABLE_SIZE = 4096;
+
+  // powers of ten which can be represented exactly as a double
+  private static final double[] POWERS_OF_TEN = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+    1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  private static final byte[] GEOMETRY = bytes("geometry");
+  private static final byte[] ATTRIBUTES = bytes("attributes");
+  private static final byte[] X = bytes("x");
+  private static final byte[] Y = bytes("y");
+
+  private final String[] fieldNames;
+  private final byte[][] fieldNameBytes;
+  private final Field.Type[] fieldTypes;
+  private final TextTable[] textTables;
+  private final int attributesCapacity;
+  private final int entityIdField;
+  private final int timestampField;
+
+  private byte[] buffer;
+  private int position;
+  private int end;
+  private int tokenStart;
+  private int tokenEnd;
+  private double x;
+  private double y;
+  private double timestamp;
+
+  /**
+   * Compiles a parser for the given fields.
+   *
+   * @param fields the fields of the data source
+   * @param entityIdFieldName the name of the field containing values that uniquely identifies each entity
+   * @param timestampFieldName the name of the field containing the time of each observation
+   */
+  ObservationParser(List<Field> fields, String entityIdFieldName, String timestampFieldName) {
+    int fieldCount = fields.size();
+    fieldNames = new String[fieldCount];
+    fieldNameBytes = new byte[fieldCount][];
+    fieldTypes = new Field.Type[fieldCount];
+    textTables = new TextTable[fieldCount];
+    for (int i = 0; i < fieldCount; i++) {
+      Field field = fields.get(i);
+      fieldNames[i] = field.getName();
+      fieldNameBytes[i] = bytes(field.getName());
+      fieldTypes[i] = field.getFieldType();
+      textTables[i] = new TextTable();
+    }
+    // size the attribute maps so that they never need to be resized
+    attributesCapacity = (int) (fieldCount / 0.75f) + 1;
+    entityIdField = Arrays.asList(fieldNames).indexOf(entityIdFieldName);
+    timestampField = Arrays.asList(fieldNames).indexOf(timestampFieldName);
+  }
+
+  /**
+   * Parses an observation from a line of JSON.
+   *
+   * @param line buffer containing the UTF-8 bytes of the line
+   * @param length the number of bytes in the line
+   * @return the observation
+   * @throws IllegalArgumentException if the line is not a valid observation
+   */
+  Observation parse(byte[] line, int length) {
+    buffer = line;
+    position = 0;
+    end = length;
+    x = Double.NaN;
+    y = Double.NaN;
+    timestamp = Double.NaN;
+    Map<String, Object> attributes = new HashMap<>(attributesCapacity);
+
+    expect('{');
+    if (!tryConsume('}')) {
+      do {
+        readString();
+        expect(':');
+        if (tokenEquals(GEOMETRY)) {
+          parseGeometry();
+        } else if (tokenEquals(ATTRIBUTES)) {
+          parseAttributes(attributes);
+        } else {
+          skipValue();
+        }
+      } while (tryConsume(','));
+      expect('}');
+    }
+    Object entityId = entityIdField < 0 ? null : attributes.get(fieldNames[entityIdField]);
+    return new Observation(x, y, timestamp, entityId, attributes);
+  }
+
+  /**
+   * Parses the x and y values of a point geometry, ignoring any other members.
+   */
+  private void parseGeometry() {
+    expect('{');
+    if (tryConsume('}')) {
+      return;
+    }
+    do {
+      readString();
+      expect(':');
+      if (tokenEquals(X)) {
+        x = readNumber();
+      } else if (tokenEquals(Y)) {
+        y = readNumber();
+      } else {
+        skipValue();
+      }
+    } while (tryConsume(','));
+    expect('}');
+  }
+
+  /**
+   * Parses the attribute values of the fields in the schema, ignoring any other members.
+   */
+  private void parseAttributes(Map<String, Object> attributes) {
+    expect('{');
+    if (tryConsume('}')) {
+      return;
+    }
+    do {
+      readString();
+      expect(':');
+      int field = findField();
+      if (field < 0) {
+        skipValue();
+      } else {
+        Object value = readValue(field);
+        attributes.put(fieldNames[field], value);
+        if (field == timestampField && value instanceof Number) {
+          timestamp = ((Number) value).doubleValue();
+        }
+      }
+    } while (tryConsume(','));
+    expect('}');
+  }
+
+  /**
+   * Reads a value, converting numbers to the type of the given field.
+   */
+  private Object readValue(int field) {
+    byte b = peek();
+    if (b == '"') {
+      boolean escaped = readString();
+      return escaped ? decodeEscapedToken() : textTables[field].get(buffer, tokenStart, tokenEnd);
+    } else if (b == 'n') {
+      expectLiteral("null");
+      return null;
+    } else if (b == 't') {
+      expectLiteral("true");
+      return Boolean.TRUE;
+    } else if (b == 'f') {
+      expectLiteral("false");
+      return Boolean.FALSE;
+    }
+    double value = readNumber();
+    return switch (fieldTypes[field]) {
+      case SHORT -> (short) value;
+      case INTEGER -> (int) value;
+      case FLOAT -> (float) value;
+      default -> value;
+    };
+  }
+
+  /**
+   * Finds the schema field matching the current token.
+   *
+   * @return the index of the field, or -1 if the token is not a field in the schema
+   */
+  private int findField() {
+    for (int i = 0; i < fieldNameBytes.length; i++) {
+      if (tokenEquals(fieldNameBytes[i])) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Reads a string, setting the token to its contents without the quotes.
+   *
+   * @return true if the string contains escape sequences
+   */
+  private boolean readString() {
+    expect('"');
+    tokenStart = position;
+    boolean escaped = false;
+    while (position < end && buffer[position] != '"') {
+      if (buffer[position] == '\\') {
+        escaped = true;
+        position++;
+      }
+      position++;
+    }
+    if (position >= end) {
+      throw error("unterminated string");
+    }
+    tokenEnd = position++;
+    return escaped;
+  }
+
+  /**
+   * Reads a number. Numbers with up to 15 significant digits and a small exponent are computed exactly from their
+   * digits, any other numbers are parsed with {@link Double#parseDouble(String)}.
+   */
+  private double readNumber() {
+    skipWhitespace();
+    int start = position;
+    boolean negative = tryConsumeByte('-');
+    long mantissa = 0;
+    int digits = 0;
+    int exponent = 0;
+    boolean exact = true;
+    while (position < end && isDigit(buffer[position])) {
+      exact &= accumulate(mantissa, digits);
+      mantissa = mantissa * 10 + (buffer[position++] - '0');
+      digits += mantissa > 0 ? 1 : 0;
+    }
+    if (tryConsumeByte('.')) {
+      while (position < end && isDigit(buffer[position])) {
+        exact &= accumulate(mantissa, digits);
+        mantissa = mantissa * 10 + (buffer[position++] - '0');
+        digits += mantissa > 0 ? 1 : 0;
+        exponent--;
+      }
+    }
+    if (position < end && (buffer[position] == 'e' || buffer[position] == 'E')) {
+      exact = false;
+      position++;
+      while (position < end && (isDigit(buffer[position]) || buffer[position] == '+' || buffer[position] == '-')) {
+        position++;
+      }
+    }
+    if (position == start) {
+      throw error("expected a number");
+    }
+    if (exact && -exponent < POWERS_OF_TEN.length) {
+      double value = mantissa / POWERS_OF_TEN[-exponent];
+      return negative ? -value : value;
+    }
+    return Double.parseDouble(new String(buffer, start, position - start, StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * Checks whether another digit can be added to a mantissa without losing precision.
+   */
+  private static boolean accumulate(long mantissa, int digits) {
+    return digits < 15 && mantissa < 100_000_000_000_000L;
+  }
+
+  /**
+   * Skips a value of any type, including nested objects and arrays.
+   */
+  private void skipValue() {
+    byte b = peek();
+    if (b == '"') {
+      readString();
+    } else if (b == '{' || b == '[') {
+      int depth = 0;
+      do {
+        b = peek();
+        if (b == '"') {
+          readString();
+        } else {
+          if (b == '{' || b == '[') {
+            depth++;
+          } else if (b == '}' || b == ']') {
+            depth--;
+          }
+          position++;
+        }
+      } while (depth > 0);
+    } else {
+      // number or literal
+      while (position < end && buffer[position] != ',' && buffer[position] != '}' && buffer[position] != ']') {
+        position++;
+      }
+    }
+  }
+
+  /**
+   * Decodes the current token, resolving any escape sequences.
+   */
+  private String decodeEscapedToken() {
+    var builder = new StringBuilder(tokenEnd - tokenStart);
+    var raw = new String(buffer, tokenStart, tokenEnd - tokenStart, StandardCharsets.UTF_8);
+    for (int i = 0; i < raw.length(); i++) {
+      char c = raw.charAt(i);
+      if (c != '\\' || i + 1 >= raw.length()) {
+        builder.append(c);
+        continue;
+      }
+      char escape = raw.charAt(++i);
+      switch (escape) {
+        case 'b' -> builder.append('\b');
+        case 'f' -> builder.append('\f');
+        case 'n' -> builder.append('\n');
+        case 'r' -> builder.append('\r');
+        case 't' -> builder.append('\t');
+        case 'u' -> {
+          if (i + 4 >= raw.length()) {
+            throw error("invalid unicode escape");
+          }
+          builder.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+          i += 4;
+        }
+        default -> builder.append(escape);
+      }
+    }
+    return builder.toString();
+  }
+
+  private boolean tokenEquals(byte[] expected) {
+    return Arrays.equals(buffer, tokenStart, tokenEnd, expected, 0, expected.length);
+  }
+
+  private byte peek() {
+    skipWhitespace();
+    if (position >= end) {
+      throw error("unexpected end of line");
+    }
+    return buffer[position];
+  }
+
+  private void expect(char c) {
+    if (peek() != c) {
+      throw error("expected '" + c + "'");
+    }
+    position++;
+  }
+
+  private void expectLiteral(String literal) {
+    for (int i = 0; i < literal.length(); i++) {
+      if (position >= end || buffer[position++] != literal.charAt(i)) {
+        throw error("expected " + literal);
+      }
+    }
+  }
+
+  private boolean tryConsume(char c) {
+    skipWhitespace();
+    return tryConsumeByte(c);
+  }
+
+  private boolean tryConsumeByte(char c) {
+    if (position < end && buffer[position] == c) {
+      position++;
+      return true;
+    }
+    return false;
+  }
+
+  private void skipWhitespace() {
+    while (position < end && (buffer[position] == ' ' || buffer[position] == '\t' || buffer[position] == '\n'
+      || buffer[position] == '\r')) {
+      position++;
+    }
+  }
+
+  private IllegalArgumentException error(String message) {
+    return new IllegalArgumentException("Invalid observation at position " + position + ": " + message);
+  }
+
+  private static boolean isDigit(byte b) {
+    return b >= '0' && b <= '9';
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * A fixed size table of recently decoded text values, indexed by the hash of their UTF-8 bytes. A value replaces
+   * any other value with the same index, so the table never grows.
+   */
+  private static class TextTable {
+
+    private final byte[][] keys = new byte[TEXT_TABLE_SIZE][];
+    private final String[] values = new String[TEXT_TABLE_SIZE];
+
+    /**
+     * Gets the string for a range of UTF-8 bytes, decoding it only if it is not in the table.
+     */
+    String get(byte[] buffer, int start, int end) {
+      int hash = 1;
+      for (int i = start; i < end; i++) {
+        hash = 31 * hash + buffer[i];
+      }
+      int index = (hash ^ (hash >>> 16)) & (TEXT_TABLE_SIZE - 1);
+      byte[] key = keys[index];
+      if (key != null && Arrays.equals(key, 0, key.length, buffer, start, end)) {
+        return values[index];
+      }
+      keys[index] = Arrays.copyOfRange(buffer, start, end);
+      values[index] = new String(buffer, start, end - start, StandardCharsets.UTF_8);
+      return values[index];
+    }
+  }
+}
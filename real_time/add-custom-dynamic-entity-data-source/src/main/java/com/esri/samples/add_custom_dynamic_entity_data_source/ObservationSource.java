@@ -0,0 +1,34 @@
+/*
+ * Copyright 2023 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.add_custom_dynamic_entity_data_source;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A stream of observations, read in recorded time order.
+ */
+interface ObservationSource extends Closeable {
+
+  /**
+   * Reads the next observation.
+   *
+   * @return the next observation, or null if there are no more observations
+   * @throws IOException if the observations cannot be read
+   */
+  Observation next() throws IOException;
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2023 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.add_custom_dynamic_entity_data_source;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Reads observations from a file of JSON lines, parsing the lines on several threads.
+ * <p>
+ * The file is read once, on a thread of its own, which splits the lines into chunks and deals the chunks to the parser
+ * threads in turn through bounded queues. Each parser thread parses its chunks in order, and the parsed chunks are
+ * taken from the parser threads in the same turn, so the observations are read in the order of the lines in the file.
+ */
+class ParallelFileObservationSource implements ObservationSource {
+
+  // the number of lines in each chunk
+  private static final int CHUNK_SIZE = 256;
+
+  // the number of chunks each parser thread can have waiting to be parsed, and parsed ahead of the stream
+  private static final int QUEUE_CAPACITY = 16;
+
+  // mark the end of the file in the queues
+  private static final byte[][] END_OF_LINES = new byte[0][];
+  private static final Observation[] END = new Observation[0];
+
+  private final List<BlockingQueue<byte[][]>> lineQueues = new ArrayList<>();
+  private final List<BlockingQueue<Observation[]>> observationQueues = new ArrayList<>();
+  private final ExecutorService executorService;
+  private Observation[] chunk;
+  private int chunkPosition;
+  private int nextParser;
+
+  /**
+   * Opens a file of observations and starts reading and parsing it.
+   *
+   * @param fileName name of a file with JSON observation data
+   * @param parserCount the number of threads to parse the lines with
+   * @param parserFactory creates a parser for each parser thread
+   * @param ingestMetrics metrics to record the parsed observations in
+   * @throws IOException if the file cannot be opened
+   */
+  ParallelFileObservationSource(String fileName, int parserCount, Supplier<ObservationParser> parserFactory,
+                                IngestMetrics ingestMetrics) throws IOException {
+    var observationFileReader = new ObservationFileReader(fileName);
+    executorService = Executors.newFixedThreadPool(parserCount + 1, runnable -> {
+      var thread = new Thread(runnable, "observation-file");
+      thread.setDaemon(true);
+      return thread;
+    });
+    for (int i = 0; i < parserCount; i++) {
+      BlockingQueue<byte[][]> lineQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+      BlockingQueue<Observation[]> observationQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+      lineQueues.add(lineQueue);
+      observationQueues.add(observationQueue);
+      ObservationParser observationParser = parserFactory.get();
+      executorService.execute(() -> parseLines(lineQueue, observationQueue, observationParser, ingestMetrics));
+    }
+    executorService.execute(() -> readLines(observationFileReader));
+  }
+
+  /**
+   * Reads all the lines of the file, dealing them to the parser threads a chunk at a time, and waiting while a parser
+   * thread's queue is full.
+   */
+  private void readLines(ObservationFileReader observationFileReader) {
+    try (observationFileReader) {
+      var lines = new byte[CHUNK_SIZE][];
+      int lineCount = 0;
+      int parser = 0;
+      while (observationFileReader.nextLine()) {
+        // the reader reuses its line buffer, so each line is copied
+        byte[] line = observationFileReader.getLineBuffer();
+        lines[lineCount++] = Arrays.copyOf(line, observationFileReader.getLineLength());
+        if (lineCount == CHUNK_SIZE) {
+          lineQueues.get(parser).put(lines);
+          parser = (parser + 1) % lineQueues.size();
+          lines = new byte[CHUNK_SIZE][];
+          lineCount = 0;
+        }
+      }
+      if (lineCount > 0) {
+        lineQueues.get(parser).put(Arrays.copyOf(lines, lineCount));
+      }
+    } catch (ClosedByInterruptException e) {
+      // the source has been closed while the file was being read
+      return;
+    } catch (IOException e) {
+      System.err.println("Failed to read observations: " + e.getMessage());
+    } catch (InterruptedException e) {
+      // the source has been closed
+      return;
+    }
+    try {
+      for (BlockingQueue<byte[][]> lineQueue : lineQueues) {
+        lineQueue.put(END_OF_LINES);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Parses the chunks of lines dealt to a parser thread until the end of the file, skipping lines which are not valid
+   * observations.
+   */
+  private static void parseLines(BlockingQueue<byte[][]> lineQueue, BlockingQueue<Observation[]> observationQueue,
+                                 ObservationParser observationParser, IngestMetrics ingestMetrics) {
+    try {
+      byte[][] lines;
+      while ((lines = lineQueue.take()) != END_OF_LINES) {
+        var observations = new Observation[lines.length];
+        int observationCount = 0;
+        for (byte[] line : lines) {
+          try {
+            long parseStart = System.nanoTime();
+            Observation observation = observationParser.parse(line, line.length);
+            ingestMetrics.recordRead(System.nanoTime() - parseStart);
+            observations[observationCount++] = observation;
+          } catch (IllegalArgumentException e) {
+            System.err.println("Failed to parse observation: " + e.getMessage());
+          }
+        }
+        observationQueue.put(observationCount == lines.length ? observations :
+          Arrays.copyOf(observations, observationCount));
+      }
+      observationQueue.put(END);
+    } catch (InterruptedException e) {
+      // the source has been closed
+    }
+  }
+
+  @Override
+  public Observation next() throws IOException {
+    // take the parsed chunks in the turn the chunks of lines were dealt in, skipping chunks with no valid lines
+    while (chunk != END && (chunk == null || chunkPosition == chunk.length)) {
+      chunk = take(observationQueues.get(nextParser));
+      chunkPosition = 0;
+      nextParser = (nextParser + 1) % observationQueues.size();
+    }
+    if (chunk == END) {
+      return null;
+    }
+    Observation observation = chunk[chunkPosition];
+    chunk[chunkPosition++] = null;
+    return observation;
+  }
+
+  /**
+   * Takes the next parsed chunk from a parser thread's queue, waiting for it to be parsed if required.
+   */
+  private static Observation[] take(BlockingQueue<Observation[]> queue) throws InterruptedIOException {
+    try {
+      return queue.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for observations");
+    }
+  }
+
+  @Override
+  public void close() {
+    // interrupt the threads, the reading thread closes the file
+    executorService.shutdownNow();
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2023 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.add_custom_dynamic_entity_data_source;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Reads observations from several partitions in parallel and merges them into a single stream in recorded time order.
+ * <p>
+ * Each partition, such as the observations of one file, is read on its own worker thread, into a bounded queue of
+ * chunks of observations, so that threads hand over observations a chunk at a time rather than one at a time. Each
+ * partition must be in recorded time order. As partitions are merged by time, and observations of equal times are
+ * taken from the earlier partition first, the observations of each partition stay in their original order.
+ */
+class PartitionedObservationSource implements ObservationSource {
+
+  // the number of observations in each chunk
+  private static final int CHUNK_SIZE = 256;
+
+  // the number of chunks each partition can read ahead of the merged stream
+  private static final int QUEUE_CAPACITY = 16;
+
+  // marks the end of a partition in its queue
+  private static final Observation[] END = new Observation[0];
+
+  private final List<BlockingQueue<Observation[]>> queues = new ArrayList<>();
+  private final Observation[][] chunks;
+  private final int[] chunkPositions;
+  private final ExecutorService executorService;
+
+  /**
+   * Starts reading the given partitions, with one worker thread for each partition.
+   *
+   * @param partitions the partitions to read, which are closed when they have been read or when this source is closed
+   */
+  PartitionedObservationSource(List<? extends ObservationSource> partitions) {
+    chunks = new Observation[partitions.size()][];
+    chunkPositions = new int[partitions.size()];
+    executorService = Executors.newFixedThreadPool(partitions.size(), runnable -> {
+      var thread = new Thread(runnable, "observation-partition");
+      thread.setDaemon(true);
+      return thread;
+    });
+    for (ObservationSource partition : partitions) {
+      BlockingQueue<Observation[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+      queues.add(queue);
+      executorService.execute(() -> readPartition(partition, queue));
+    }
+  }
+
+  /**
+   * Reads all observations of a partition into its queue, waiting while the queue is full.
+   */
+  private static void readPartition(ObservationSource partition, BlockingQueue<Observation[]> queue) {
+    try (partition) {
+      var chunk = new Observation[CHUNK_SIZE];
+      int chunkSize = 0;
+      Observation observation;
+      while ((observation = partition.next()) != null) {
+        chunk[chunkSize++] = observation;
+        if (chunkSize == CHUNK_SIZE) {
+          queue.put(chunk);
+          chunk = new Observation[CHUNK_SIZE];
+          chunkSize = 0;
+        }
+      }
+      if (chunkSize > 0) {
+        queue.put(Arrays.copyOf(chunk, chunkSize));
+      }
+    } catch (IOException e) {
+      System.err.println("Failed to read observations: " + e.getMessage());
+    } catch (InterruptedException e) {
+      // the source has been closed
+      return;
+    }
+    try {
+      queue.put(END);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public Observation next() throws IOException {
+    // take the earliest observation from the heads of the partitions, there are few partitions so a linear search is
+    // enough
+    int earliest = -1;
+    double earliestTimestamp = Double.NaN;
+    for (int i = 0; i < chunks.length; i++) {
+      if (chunks[i] == null || (chunks[i] != END && chunkPositions[i] == chunks[i].length)) {
+        chunks[i] = take(queues.get(i));
+        chunkPositions[i] = 0;
+      }
+      if (chunks[i] != END) {
+        double timestamp = chunks[i][chunkPositions[i]].timestamp;
+        if (earliest < 0 || timestamp < earliestTimestamp) {
+          earliest = i;
+          earliestTimestamp = timestamp;
+        }
+      }
+    }
+    if (earliest < 0) {
+      return null;
+    }
+    Observation observation = chunks[earliest][chunkPositions[earliest]];
+    chunks[earliest][chunkPositions[earliest]++] = null;
+    return observation;
+  }
+
+  /**
+   * Takes the next chunk from a partition's queue, waiting for the partition to read it if required.
+   */
+  private static Observation[] take(BlockingQueue<Observation[]> queue) throws InterruptedIOException {
+    try {
+      return queue.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for observations");
+    }
+  }
+
+  @Override
+  public void close() {
+    // interrupt the workers, each worker closes its partition
+    executorService.shutdownNow();
+  }
+}
@@ -16,22 +16,20 @@
 
 package com.esri.samples.add_custom_dynamic_entity_data_source;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
-
-import com.google.gson.Gson;
 
 import com.esri.arcgisruntime.data.Field;
 import com.esri.arcgisruntime.geometry.Point;
@@ -40,30 +38,192 @@ import com.esri.arcgisruntime.realtime.DynamicEntityDataSource;
 import com.esri.arcgisruntime.realtime.DynamicEntityDataSourceInfo;
 
 /**
- * A custom DynamicEntityDataSource for processing observations read from a given JSON file.
+ * A custom DynamicEntityDataSource for processing observations read from given JSON files or track recordings.
+ * Observations are replayed on the timeline recorded in their timestamp field, in batches covering a fixed slice of
+ * recorded time.
+ * <p>
+ * Each JSON file is read once, and its lines can be parsed on several threads. Several files are read in parallel and
+ * merged into a single stream in recorded time order.
+ * <p>
+ * Batches are passed through a bounded buffer to a separate thread which adds them to the data source, so that the
+ * replay keeps to its timeline while observations are being added. A {@link BackPressurePolicy} decides what happens
+ * when observations are replayed faster than they can be added. The ingest is measured by {@link IngestMetrics}.
+ * <p>
+ * Observations can be coalesced into frames, so that only the latest observation of each entity in a frame is added.
  */
 class SimulatedDataSource extends DynamicEntityDataSource {
 
-  private final String fileName;
+  /**
+   * Speed multiplier which replays observations without waiting between batches.
+   */
+  static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
+
+  // the span of recorded time, in milliseconds, covered by each batch of observations
+  private static final double TIME_SLICE = 1000;
+
+  // the number of observations which can wait to be added to the data source
+  private static final int BUFFER_CAPACITY = 10_000;
+
+  private final List<String> fileNames;
   private final String entityIdFieldName;
-  private final long delay;
-  private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
-  private ScheduledFuture<?> observationProcessing;
-  private final AtomicInteger currentLineNumber = new AtomicInteger();
-  private final List<String> allJsonLines = new ArrayList<>();
-  private final Gson gson = new Gson();
+  private final String timestampFieldName;
+  private final double speedMultiplier;
+  private final int parserThreadsPerFile;
+  private final ScheduledThreadPoolExecutor executorService = new ScheduledThreadPoolExecutor(1);
+  private volatile ScheduledFuture<?> observationProcessing;
+  private final ExecutorService ingestExecutorService = Executors.newSingleThreadExecutor();
+  // converts JSON files to track recordings, without keeping the application running once it is closed
+  private final ExecutorService conversionExecutorService = Executors.newSingleThreadExecutor(runnable -> {
+    var thread = new Thread(runnable, "track-recording-conversion");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final IngestMetrics ingestMetrics = new IngestMetrics();
+  private volatile BackPressurePolicy backPressurePolicy = BackPressurePolicy.BLOCK;
+  private volatile ObservationBuffer observationBuffer;
+  private volatile double frameRate;
+  private volatile double trackPointInterval;
+  private volatile Path recordingCacheDirectory;
+  private final Set<Path> recordingsBeingConverted = ConcurrentHashMap.newKeySet();
+  private List<Field> fields;
+  private ObservationSource observationSource;
+  private volatile ObservationFilter observationFilter;
+  private Observation nextObservation;
+  private double firstTimestamp;
+  private long replayStartTime;
+  private long nextBatchDueTime;
 
   /**
    * Construct a custom DynamicEntityDataSource.
    *
-   * @param fileName name of a file with JSON observation data
+   * @param fileNames names of files with JSON observation data or track recordings, each ordered by timestamp
    * @param entityIdFieldName the name of the field containing values that uniquely identifies each entity
-   * @param delay millisecond delay between observations being added to the data source
+   * @param timestampFieldName the name of the field containing the time of each observation in milliseconds
+   * @param speedMultiplier how many times faster than recorded time to replay the observations, or
+   *                        {@link #AS_FAST_AS_POSSIBLE}
+   * @param parserThreadsPerFile the number of threads to parse the lines of each JSON file with
    */
-  SimulatedDataSource(String fileName, String entityIdFieldName, long delay) {
-    this.fileName = fileName;
+  SimulatedDataSource(List<String> fileNames, String entityIdFieldName, String timestampFieldName,
+                      double speedMultiplier, int parserThreadsPerFile) {
+    if (speedMultiplier <= 0) {
+      throw new IllegalArgumentException("Speed multiplier must be greater than zero");
+    }
+    if (parserThreadsPerFile < 1) {
+      throw new IllegalArgumentException("There must be at least one parser thread per file");
+    }
+    this.fileNames = List.copyOf(fileNames);
     this.entityIdFieldName = entityIdFieldName;
-    this.delay = delay;
+    this.timestampFieldName = timestampFieldName;
+    this.speedMultiplier = speedMultiplier;
+    this.parserThreadsPerFile = parserThreadsPerFile;
+    // discard any scheduled batch when the data source is disconnected
+    executorService.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+  }
+
+  /**
+   * Sets a filter to limit the observations added to the data source.
+   *
+   * @param observationFilter the filter, or null to add all observations
+   */
+  void setObservationFilter(ObservationFilter observationFilter) {
+    this.observationFilter = observationFilter;
+  }
+
+  /**
+   * Gets the filter limiting the observations added to the data source.
+   *
+   * @return the filter, or null if all observations are added
+   */
+  ObservationFilter getObservationFilter() {
+    return observationFilter;
+  }
+
+  /**
+   * Sets what happens when observations are replayed faster than they can be added to the data source. The policy is
+   * applied when the data source is next connected.
+   *
+   * @param backPressurePolicy the back-pressure policy
+   */
+  void setBackPressurePolicy(BackPressurePolicy backPressurePolicy) {
+    this.backPressurePolicy = backPressurePolicy;
+  }
+
+  /**
+   * Gets what happens when observations are replayed faster than they can be added to the data source.
+   *
+   * @return the back-pressure policy
+   */
+  BackPressurePolicy getBackPressurePolicy() {
+    return backPressurePolicy;
+  }
+
+  /**
+   * Sets the rate at which observations are added to the data source in frames, with only the latest observation of
+   * each entity in a frame being added. The frame rate is applied when the data source is next connected.
+   *
+   * @param frameRate the number of frames per second, or 0 to add every observation as soon as it is released
+   */
+  void setFrameRate(double frameRate) {
+    this.frameRate = frameRate;
+  }
+
+  /**
+   * Gets the rate at which observations are added to the data source in frames.
+   *
+   * @return the number of frames per second, or 0 if observations are not coalesced into frames
+   */
+  double getFrameRate() {
+    return frameRate;
+  }
+
+  /**
+   * Sets the minimum interval of recorded time between the observations of an entity which are kept as points on its
+   * track line when they are superseded within a frame. The interval is applied when the data source is next connected.
+   *
+   * @param trackPointInterval the interval in milliseconds, or 0 to add only the latest observation in each frame
+   */
+  void setTrackPointInterval(double trackPointInterval) {
+    this.trackPointInterval = trackPointInterval;
+  }
+
+  /**
+   * Gets the minimum interval of recorded time between the observations of an entity which are kept as track points.
+   *
+   * @return the interval in milliseconds
+   */
+  double getTrackPointInterval() {
+    return trackPointInterval;
+  }
+
+  /**
+   * Sets a directory to keep track recordings of the JSON files in, which are much smaller and faster to read than
+   * JSON. When a JSON file has no recording in the directory, or the file has changed size or been modified since its
+   * recording was made, the JSON file is replayed while it is converted to a recording on a background thread, and the
+   * recording is replayed in its place from the next time the data source is connected. This is applied when the data
+   * source is next connected.
+   *
+   * @param recordingCacheDirectory the directory to keep recordings in, or null to always replay the JSON files
+   */
+  void setRecordingCacheDirectory(Path recordingCacheDirectory) {
+    this.recordingCacheDirectory = recordingCacheDirectory;
+  }
+
+  /**
+   * Gets the directory track recordings of the JSON files are kept in.
+   *
+   * @return the directory, or null if the JSON files are always replayed
+   */
+  Path getRecordingCacheDirectory() {
+    return recordingCacheDirectory;
+  }
+
+  /**
+   * Gets the measurements of the observations processed by this data source.
+   *
+   * @return the ingest metrics
+   */
+  IngestMetrics getIngestMetrics() {
+    return ingestMetrics;
   }
 
   @Override
@@ -79,33 +239,265 @@ class SimulatedDataSource extends DynamicEntityDataSource {
   }
 
   /**
-   * Read a file of observation data and start processing.
+   * Open the files of observation data and start processing.
    */
   private void startProcessingObservations() throws IOException {
-    // store all lines from file in a list
-    try (BufferedReader bufferedReader = new BufferedReader(new FileReader(fileName))) {
-      allJsonLines.addAll(bufferedReader.lines().filter(Objects::nonNull).toList());
+    // open the files for streaming, lines are only read from the files when they are processed
+    try {
+      observationSource = openObservationSource();
     } catch (IOException e) {
       System.err.println("Failed to start processing observations: " + e.getMessage());
       throw e;
     }
-    // process file data a line at a time
-    observationProcessing = executorService.scheduleAtFixedRate(this::processNextObservation, 0L, delay, TimeUnit.MILLISECONDS);
+    // add the buffered observations to the data source on their own thread
+    var buffer = new ObservationBuffer(BUFFER_CAPACITY, backPressurePolicy);
+    observationBuffer = buffer;
+    ingestMetrics.setBufferSuppliers(buffer::size, buffer::getDroppedCount);
+    ingestMetrics.start();
+    if (frameRate > 0) {
+      var coalescer = new ObservationCoalescer(trackPointInterval);
+      ingestExecutorService.execute(() -> addCoalescedObservations(buffer, coalescer, (long) (1e9 / frameRate)));
+    } else {
+      ingestExecutorService.execute(() -> addBufferedObservations(buffer));
+    }
+
+    // process file data a batch at a time, starting the replay clock from the first batch
+    observationProcessing = executorService.schedule(this::processNextBatch, 0L, TimeUnit.MILLISECONDS);
   }
 
   /**
-   * Process the next observation, canceling the task when all lines have been processed.
+   * Open the observation source for the files. Track recordings, and JSON files with a cached recording, are each read
+   * as a single source. Other JSON files are each read once, and parsed on several threads if required. A single source
+   * is read on the processing thread, otherwise the sources are read in parallel.
    */
-  private void processNextObservation() {
-    int lineNumber = currentLineNumber.getAndAdd(1);
-    if (lineNumber >= allJsonLines.size()) {
-      // finished all the lines
-      observationProcessing.cancel(false);
-    } else {
-      // process the line by parsing the JSON, and creating the observation, and adding to the data source
-      var observation = gson.fromJson(allJsonLines.get(lineNumber), Observation.class);
-      var point = new Point(observation.geometry.x, observation.geometry.y, SpatialReferences.getWgs84());
-      addObservation(point, observation.attributes);
+  private ObservationSource openObservationSource() throws IOException {
+    List<ObservationSource> sources = new ArrayList<>();
+    try {
+      for (String fileName : fileNames) {
+        String recordingFileName = getRecordingFileName(fileName);
+        if (recordingFileName != null) {
+          sources.add(new TrackRecordingObservationSource(recordingFileName, ingestMetrics));
+        } else if (parserThreadsPerFile == 1) {
+          sources.add(new FileObservationSource(fileName, createObservationParser(), ingestMetrics));
+        } else {
+          // each parser thread needs its own parser
+          sources.add(new ParallelFileObservationSource(fileName, parserThreadsPerFile, this::createObservationParser,
+            ingestMetrics));
+        }
+      }
+    } catch (IOException e) {
+      // close any sources that were opened
+      for (ObservationSource source : sources) {
+        source.close();
+      }
+      throw e;
+    }
+    return sources.size() == 1 ? sources.get(0) : new PartitionedObservationSource(sources);
+  }
+
+  /**
+   * Gets the track recording to replay for a file. When a recording cache directory is set and a JSON file has no up
+   * to date recording in it, the file is converted on a background thread, and is replayed as JSON this time.
+   *
+   * @return the name of the recording, or null if the file should be parsed as JSON
+   */
+  private String getRecordingFileName(String fileName) {
+    if (fileName.endsWith(TrackRecording.FILE_EXTENSION)) {
+      return fileName;
+    }
+    Path directory = recordingCacheDirectory;
+    if (directory == null) {
+      return null;
+    }
+    Path path = Path.of(fileName);
+    String name = path.getFileName().toString();
+    int extensionStart = name.lastIndexOf('.');
+    Path recordingFile = directory.resolve((extensionStart > 0 ? name.substring(0, extensionStart) : name)
+      + TrackRecording.FILE_EXTENSION);
+    if (TrackRecording.isUpToDate(recordingFile, path)) {
+      return recordingFile.toString();
+    }
+    if (recordingsBeingConverted.add(recordingFile)) {
+      conversionExecutorService.execute(() -> {
+        try {
+          TrackRecordingWriter.convert(fileName, recordingFile.toString(), fields, entityIdFieldName,
+            timestampFieldName);
+        } catch (IOException e) {
+          System.err.println("Failed to convert " + fileName + " to a track recording: " + e.getMessage());
+        } finally {
+          recordingsBeingConverted.remove(recordingFile);
+        }
+      });
+    }
+    return null;
+  }
+
+  /**
+   * Create a parser for the fields of the data source.
+   */
+  private ObservationParser createObservationParser() {
+    return new ObservationParser(fields, entityIdFieldName, timestampFieldName);
+  }
+
+  /**
+   * Release all observations in the next slice of recorded time to be added to the data source, then schedule the
+   * following batch for when it is due on the replay timeline. Processing stops when all lines have been processed.
+   */
+  private void processNextBatch() {
+    try {
+      if (nextObservation == null) {
+        // first batch, start the replay timeline from the first observation
+        nextObservation = readNextObservation();
+        if (nextObservation == null) {
+          closeObservationSource();
+          return;
+        }
+        firstTimestamp = getTimestamp(nextObservation, 0);
+        replayStartTime = System.nanoTime();
+        nextBatchDueTime = replayStartTime;
+      }
+      ingestMetrics.recordTickSlip(System.nanoTime() - nextBatchDueTime);
+
+      // collect every observation up to the end of the time slice which passes the filter
+      double sliceStart = getTimestamp(nextObservation, firstTimestamp);
+      double timestamp = sliceStart;
+      ObservationFilter filter = observationFilter;
+      List<Observation> batch = new ArrayList<>();
+      while (nextObservation != null && timestamp < sliceStart + TIME_SLICE) {
+        if (filter == null || filter.accept(nextObservation)) {
+          batch.add(nextObservation);
+        } else {
+          ingestMetrics.recordFiltered();
+        }
+        nextObservation = readNextObservation();
+        if (nextObservation != null) {
+          timestamp = getTimestamp(nextObservation, timestamp);
+        }
+      }
+
+      if (!batch.isEmpty()) {
+        observationBuffer.put(new ObservationBatch(batch, nextBatchDueTime));
+      }
+
+      if (nextObservation == null) {
+        // finished all the lines, the buffered observations are still added
+        closeObservationSource();
+        observationBuffer.close();
+      } else if (!executorService.isShutdown()) {
+        // schedule the next batch relative to the start of the replay, so that delays do not accumulate
+        long now = System.nanoTime();
+        nextBatchDueTime = now;
+        if (speedMultiplier != AS_FAST_AS_POSSIBLE) {
+          nextBatchDueTime = replayStartTime + (long) ((timestamp - firstTimestamp) / speedMultiplier * 1e6);
+        }
+        long delay = Math.max(0L, nextBatchDueTime - now);
+        observationProcessing = executorService.schedule(this::processNextBatch, delay, TimeUnit.NANOSECONDS);
+      }
+    } catch (InterruptedIOException | InterruptedException e) {
+      // the data source has been disconnected while waiting
+      closeObservationSource();
+    } catch (IOException e) {
+      // stop processing, as the rest of the file cannot be read
+      System.err.println("Failed to read observation: " + e.getMessage());
+      closeObservationSource();
+    }
+  }
+
+  /**
+   * Add the observations from the buffer to the data source until the buffer is closed.
+   *
+   * @param buffer the buffer the replay puts batches into
+   */
+  private void addBufferedObservations(ObservationBuffer buffer) {
+    try {
+      ObservationBatch batch;
+      while ((batch = buffer.take()) != null) {
+        for (Observation observation : batch.observations) {
+          addTimedObservation(observation, batch.releaseTime);
+        }
+      }
+    } catch (InterruptedException e) {
+      // the data source has been disconnected
+    }
+  }
+
+  /**
+   * Coalesce the observations from the buffer into frames and add each frame to the data source, until the buffer is
+   * closed.
+   *
+   * @param buffer the buffer the replay puts batches into
+   * @param coalescer the coalescer to collect each frame in
+   * @param frameInterval the time between frames in nanoseconds
+   */
+  private void addCoalescedObservations(ObservationBuffer buffer, ObservationCoalescer coalescer, long frameInterval) {
+    try {
+      long nextFrameTime = System.nanoTime() + frameInterval;
+      while (!buffer.isDrained()) {
+        ObservationBatch batch = buffer.poll(nextFrameTime - System.nanoTime());
+        if (batch != null) {
+          for (Observation observation : batch.observations) {
+            coalescer.add(observation, batch.releaseTime);
+          }
+        }
+        long now = System.nanoTime();
+        if (now >= nextFrameTime) {
+          coalescer.flush(this::addTimedObservation);
+          ingestMetrics.recordCoalesced(coalescer.getCoalescedCountThenReset());
+          // skip any frames missed while flushing, rather than flushing them back to back
+          nextFrameTime = Math.max(nextFrameTime + frameInterval, now);
+        }
+      }
+      coalescer.flush(this::addTimedObservation);
+      ingestMetrics.recordCoalesced(coalescer.getCoalescedCountThenReset());
+    } catch (InterruptedException e) {
+      // the data source has been disconnected
+    }
+  }
+
+  /**
+   * Add an observation to the data source, measuring the time taken and the lag behind the replay timeline.
+   *
+   * @param observation the observation
+   * @param releaseTime the time the observation was due to be added, from {@link System#nanoTime()}
+   */
+  private void addTimedObservation(Observation observation, long releaseTime) {
+    long addStart = System.nanoTime();
+    addObservation(new Point(observation.x, observation.y, SpatialReferences.getWgs84()), observation.attributes);
+    long addEnd = System.nanoTime();
+    ingestMetrics.recordAdded(addEnd - addStart, addEnd - releaseTime);
+  }
+
+  /**
+   * Read the next observation from the files.
+   *
+   * @return the next observation, or null if all lines have been read
+   */
+  private Observation readNextObservation() throws IOException {
+    return observationSource == null ? null : observationSource.next();
+  }
+
+  /**
+   * Get the recorded time of an observation.
+   *
+   * @param observation the observation
+   * @param defaultTimestamp the value to use if the observation has no timestamp
+   * @return the timestamp in milliseconds
+   */
+  private double getTimestamp(Observation observation, double defaultTimestamp) {
+    return Double.isNaN(observation.timestamp) ? defaultTimestamp : observation.timestamp;
+  }
+
+  /**
+   * Close the files being processed, if they are open.
+   */
+  private void closeObservationSource() {
+    if (observationSource != null) {
+      try {
+        observationSource.close();
+      } catch (IOException e) {
+        System.err.println("Failed to close observation file: " + e.getMessage());
+      }
+      observationSource = null;
     }
   }
 
@@ -114,31 +506,48 @@ class SimulatedDataSource extends DynamicEntityDataSource {
     if (observationProcessing != null) {
       observationProcessing.cancel(true);
     }
+    // close the files on the processing thread, so that they are not closed while a line is being read
+    executorService.execute(this::closeObservationSource);
     executorService.shutdown();
+    // stop adding observations
+    if (observationBuffer != null) {
+      observationBuffer.close();
+    }
+    ingestExecutorService.shutdownNow();
+    ingestMetrics.stop();
     return CompletableFuture.completedFuture(null);
   }
 
+  /**
+   * Creates the fields of the vessel observations in the sample data.
+   *
+   * @return the fields of the observations
+   */
+  static List<Field> createFields() {
+    return List.of(
+      Field.createString("MMSI", null, 256),
+      Field.createDouble("BaseDateTime", null),
+      Field.createDouble("LAT", null),
+      Field.createDouble("LONG", null),
+      Field.createDouble("SOG", null),
+      Field.createDouble("COG", null),
+      Field.createDouble("Heading", null),
+      Field.createString("VesselName", null, 256),
+      Field.createString("IMO", null, 256),
+      Field.createString("CallSign", null, 256),
+      Field.createString("VesselType", null, 256),
+      Field.createString("Status", null, 256),
+      Field.createDouble("Length", null),
+      Field.createDouble("Width", null),
+      Field.createString("Cargo", null, 256),
+      Field.createString("globalid", null, 256)
+    );
+  }
+
   @Override
   protected CompletableFuture<DynamicEntityDataSourceInfo> onLoadAsync() {
-    var dynamicEntityDataSourceInfo = new DynamicEntityDataSourceInfo(entityIdFieldName,
-      List.of(
-        Field.createString("MMSI", null, 256),
-        Field.createDouble("BaseDateTime", null),
-        Field.createDouble("LAT", null),
-        Field.createDouble("LONG", null),
-        Field.createDouble("SOG", null),
-        Field.createDouble("COG", null),
-        Field.createDouble("Heading", null),
-        Field.createString("VesselName", null, 256),
-        Field.createString("IMO", null, 256),
-        Field.createString("CallSign", null, 256),
-        Field.createString("VesselType", null, 256),
-        Field.createString("Status", null, 256),
-        Field.createDouble("Length", null),
-        Field.createDouble("Width", null),
-        Field.createString("Cargo", null, 256),
-        Field.createString("globalid", null, 256)
-      ));
+    fields = createFields();
+    var dynamicEntityDataSourceInfo = new DynamicEntityDataSourceInfo(entityIdFieldName, fields);
     dynamicEntityDataSourceInfo.setSpatialReference(SpatialReferences.getWgs84());
     return CompletableFuture.completedFuture(dynamicEntityDataSourceInfo);
   }
@@ -147,28 +556,4 @@ class SimulatedDataSource extends DynamicEntityDataSource {
   public String getUri() {
     return null;
   }
-
-  /**
-   * Used by Gson for parsing the data.
-   */
-  public static class ObservationSpatialReference {
-    public int wkid;
-  }
-
-  /**
-   * Used by Gson for parsing the data.
-   */
-  public static class ObservationGeometry {
-    public double x;
-    public double y;
-    public ObservationSpatialReference spatialReference;
-  }
-
-  /**
-   * Used by Gson for parsing the data.
-   */
-  public static class Observation {
-    public ObservationGeometry geometry;
-    public HashMap<String, Object> attributes;
-  }
 }
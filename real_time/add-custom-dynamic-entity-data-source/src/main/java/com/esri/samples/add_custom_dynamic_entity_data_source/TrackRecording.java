@@ -0,0 +1,288 @@
+/*
+ * Copyright 2023 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.add_custom_dynamic_entity_data_source;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.esri.arcgisruntime.data.Field;
+
+/**
+ * Constants and encoding helpers shared by the writer and reader of track recordings, a binary columnar format for
+ * observations ordered by time.
+ * <p>
+ * A recording starts with a header holding the {@link #MAGIC} number, the offset of the footer, the number of
+ * observations, and the size and last modified time of the file it was converted from, if any. The observations
+ * follow in chunks of up to {@link #CHUNK_SIZE}, each chunk storing its values column by column:
+ * <ul>
+ *   <li>the entity id, as an index into the dictionary of entity ids</li>
+ *   <li>the timestamp in milliseconds, as the difference from the previous observation in the chunk</li>
+ *   <li>x and y, quantized to {@link #XY_SCALE} steps per degree and stored as the difference from the previous
+ *   observation of the same entity in the chunk</li>
+ *   <li>each other numeric field, such as the speed and heading, quantized to the fewest decimal places that keep
+ *   every value of the chunk exactly, up to {@link #MAX_DECIMALS}, and stored as the difference from the previous
+ *   observation in the chunk, or as doubles if no number of decimal places keeps every value exactly</li>
+ *   <li>each other field, as an index into the dictionary of the field's values</li>
+ * </ul>
+ * Indices and differences are written as variable length integers, so most take one or two bytes. The footer holds
+ * the fields and the dictionaries, which are only complete once all the observations have been written.
+ */
+final class TrackRecording {
+
+  /**
+   * The extension of track recording files.
+   */
+  static final String FILE_EXTENSION = ".trk";
+
+  // "TRK2" in ASCII
+  static final int MAGIC = 0x54524B32;
+
+  // the size of the header: the magic number, the footer offset, the observation count, and the source file's size
+  // and last modified time
+  static final int HEADER_SIZE = 36;
+
+  // the source file size and last modified time stored for a recording that was not converted from a file
+  static final long NO_SOURCE = -1;
+
+  // the maximum number of observations in a chunk
+  static final int CHUNK_SIZE = 4096;
+
+  // quantized steps per degree of x and y, giving a resolution of about a centimeter
+  static final double XY_SCALE = 1e7;
+
+  // the most decimal places a numeric column is quantized to, and the marker of a column stored as doubles
+  static final int MAX_DECIMALS = 9;
+  static final byte RAW_DOUBLES = -1;
+
+  // the quantized value stored for a missing coordinate, timestamp or number
+  static final long MISSING = Long.MIN_VALUE;
+
+  // how the values of a field are stored
+  static final byte NUMERIC = 0;
+  static final byte DICTIONARY = 1;
+  static final byte TIMESTAMP = 2;
+
+  // the types of dictionary values, where null values are stored as index 0 rather than in the dictionary
+  static final byte TEXT_VALUE = 0;
+  static final byte NUMBER_VALUE = 1;
+  static final byte BOOLEAN_VALUE = 2;
+
+  private TrackRecording() {
+  }
+
+  /**
+   * Checks whether a recording was converted from a file as it is now, by comparing the size and last modified time of
+   * the file with those stored in the recording.
+   *
+   * @param recordingFile the recording file
+   * @param sourceFile the file the recording was converted from
+   * @return true if the recording exists and was converted from the file with its current size and last modified time
+   */
+  static boolean isUpToDate(Path recordingFile, Path sourceFile) {
+    try (FileChannel channel = FileChannel.open(recordingFile, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      channel.read(header, 0);
+      header.flip();
+      if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+        return false;
+      }
+      header.position(header.position() + 2 * Long.BYTES);
+      return header.getLong() == Files.size(sourceFile) &&
+        header.getLong() == Files.getLastModifiedTime(sourceFile).toMillis();
+    } catch (IOException e) {
+      // missing or unreadable, so convert the file again
+      return false;
+    }
+  }
+
+  /**
+   * Gets whether the values of a field are numbers.
+   *
+   * @param fieldType the type of the field
+   * @return true for number fields
+   */
+  static boolean isNumeric(Field.Type fieldType) {
+    return switch (fieldType) {
+      case SHORT, INTEGER, FLOAT, DOUBLE -> true;
+      default -> false;
+    };
+  }
+
+  /**
+   * Converts a number to the type of a numeric field, in the same way as {@link ObservationParser}.
+   *
+   * @param value the number
+   * @param fieldType the type of the field
+   * @return the value to add to the attributes
+   */
+  static Object toFieldType(double value, Field.Type fieldType) {
+    return switch (fieldType) {
+      case SHORT -> (short) value;
+      case INTEGER -> (int) value;
+      case FLOAT -> (float) value;
+      default -> value;
+    };
+  }
+
+  /**
+   * Quantizes a value, keeping NaN as {@link #MISSING}.
+   *
+   * @param value the value
+   * @param scale the quantized steps per unit of the value
+   * @return the quantized value
+   */
+  static long quantize(double value, double scale) {
+    return Double.isNaN(value) ? MISSING : Math.round(value * scale);
+  }
+
+  /**
+   * Gets the fewest decimal places to which all the values of a column can be quantized and dequantized without any
+   * change to their value.
+   *
+   * @param values the values, where NaN is a missing value
+   * @param length the number of values in the column
+   * @return the number of decimal places, or {@link #RAW_DOUBLES} if no number up to {@link #MAX_DECIMALS} keeps every
+   * value exactly
+   */
+  static byte exactDecimals(double[] values, int length) {
+    double scale = 1;
+    for (byte decimals = 0; decimals <= MAX_DECIMALS; decimals++, scale *= 10) {
+      boolean exact = true;
+      for (int i = 0; i < length && exact; i++) {
+        double value = values[i];
+        exact = Double.isNaN(value) || (Math.abs(value * scale) < 0x1p53 &&
+          Double.compare(Math.round(value * scale) / scale, value) == 0);
+      }
+      if (exact) {
+        return decimals;
+      }
+    }
+    return RAW_DOUBLES;
+  }
+
+  /**
+   * Gets the quantized steps per unit of a number of decimal places.
+   *
+   * @param decimals the number of decimal places
+   * @return ten to the power of the decimal places
+   */
+  static double decimalScale(int decimals) {
+    double scale = 1;
+    for (int i = 0; i < decimals; i++) {
+      scale *= 10;
+    }
+    return scale;
+  }
+
+  /**
+   * Reverses {@link #quantize(double, double)}.
+   *
+   * @param quantized the quantized value
+   * @param scale the quantized steps per unit of the value
+   * @return the value, or NaN if it was missing
+   */
+  static double dequantize(long quantized, double scale) {
+    return quantized == MISSING ? Double.NaN : quantized / scale;
+  }
+
+  /**
+   * Writes a signed value as a variable length integer, so that values close to zero take the fewest bytes.
+   *
+   * @param output the output to write to
+   * @param value the value
+   * @throws IOException if the value cannot be written
+   */
+  static void writeSigned(DataOutput output, long value) throws IOException {
+    // zigzag encode so that small negative values are small unsigned values
+    writeUnsigned(output, (value << 1) ^ (value >> 63));
+  }
+
+  /**
+   * Writes an unsigned value as a variable length integer of seven bits per byte.
+   *
+   * @param output the output to write to
+   * @param value the value
+   * @throws IOException if the value cannot be written
+   */
+  static void writeUnsigned(DataOutput output, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      output.writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    output.writeByte((int) value);
+  }
+
+  /**
+   * Writes a string as its length followed by its UTF-8 bytes.
+   *
+   * @param output the output to write to
+   * @param text the string
+   * @throws IOException if the string cannot be written
+   */
+  static void writeText(DataOutput output, String text) throws IOException {
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    writeUnsigned(output, bytes.length);
+    output.write(bytes);
+  }
+
+  /**
+   * Reads a string written by {@link #writeText(DataOutput, String)}.
+   *
+   * @param buffer the buffer to read from
+   * @return the string
+   */
+  static String readText(ByteBuffer buffer) {
+    byte[] bytes = new byte[(int) readUnsigned(buffer)];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads a value written by {@link #writeSigned(DataOutput, long)}.
+   *
+   * @param buffer the buffer to read from
+   * @return the value
+   */
+  static long readSigned(ByteBuffer buffer) {
+    long value = readUnsigned(buffer);
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /**
+   * Reads a value written by {@link #writeUnsigned(DataOutput, long)}.
+   *
+   * @param buffer the buffer to read from
+   * @return the value
+   */
+  static long readUnsigned(ByteBuffer buffer) {
+    long value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = buffer.get();
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while (b < 0);
+    return value;
+  }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2023 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.add_custom_dynamic_entity_data_source;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.esri.arcgisruntime.data.Field;
+
+/**
+ * Reads observations from a {@link TrackRecording} file through a memory-mapped window. Each chunk is decoded column
+ * by column into arrays, and the observations of the chunk are then built from the arrays one at a time.
+ */
+class TrackRecordingObservationSource implements ObservationSource {
+
+  // the minimum size of the region of the file mapped into memory at once
+  private static final long WINDOW_SIZE = 16L * 1024 * 1024;
+
+  private final FileChannel channel;
+  private final long footerOffset;
+  private final IngestMetrics ingestMetrics;
+  private final String[] fieldNames;
+  private final Field.Type[] fieldTypes;
+  private final byte[] storage;
+  private final int entityIdField;
+  private final Object[][] dictionaries;
+  private final int attributesCapacity;
+
+  private long windowStart;
+  private MappedByteBuffer window;
+  private long chunkStart = TrackRecording.HEADER_SIZE;
+
+  // the decoded columns of the current chunk
+  private final int[] entities = new int[TrackRecording.CHUNK_SIZE];
+  private final long[] timestamps = new long[TrackRecording.CHUNK_SIZE];
+  private final long[] xs = new long[TrackRecording.CHUNK_SIZE];
+  private final long[] ys = new long[TrackRecording.CHUNK_SIZE];
+  private final boolean[] firstOfEntity = new boolean[TrackRecording.CHUNK_SIZE];
+  private final double[][] numbers;
+  private final int[][] indices;
+  private int chunkLength;
+  private int row;
+
+  // the last quantized location of each entity, and the chunk it was last seen in
+  private final long[] lastX;
+  private final long[] lastY;
+  private final int[] lastChunk;
+  private int chunkCount;
+
+  /**
+   * Opens a recording for reading.
+   *
+   * @param fileName name of a track recording file
+   * @param ingestMetrics metrics to record the decoded observations in
+   * @throws IOException if the file cannot be opened or is not a track recording
+   */
+  TrackRecordingObservationSource(String fileName, IngestMetrics ingestMetrics) throws IOException {
+    this.ingestMetrics = ingestMetrics;
+    channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ);
+    try {
+      long fileSize = channel.size();
+      ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(TrackRecording.HEADER_SIZE, fileSize));
+      if (header.remaining() < TrackRecording.HEADER_SIZE || header.getInt() != TrackRecording.MAGIC) {
+        throw new IOException(fileName + " is not a track recording");
+      }
+      footerOffset = header.getLong();
+
+      // read the fields and dictionaries from the footer
+      ByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY, footerOffset, fileSize - footerOffset);
+      int fieldCount = footer.getInt();
+      fieldNames = new String[fieldCount];
+      fieldTypes = new Field.Type[fieldCount];
+      storage = new byte[fieldCount];
+      dictionaries = new Object[fieldCount][];
+      numbers = new double[fieldCount][];
+      indices = new int[fieldCount][];
+      for (int i = 0; i < fieldCount; i++) {
+        fieldNames[i] = TrackRecording.readText(footer);
+        fieldTypes[i] = Field.Type.valueOf(TrackRecording.readText(footer));
+        storage[i] = footer.get();
+        if (storage[i] == TrackRecording.NUMERIC) {
+          numbers[i] = new double[TrackRecording.CHUNK_SIZE];
+        } else if (storage[i] == TrackRecording.DICTIONARY) {
+          indices[i] = new int[TrackRecording.CHUNK_SIZE];
+        }
+      }
+      entityIdField = footer.getInt();
+      for (int i = 0; i < fieldCount; i++) {
+        if (storage[i] == TrackRecording.DICTIONARY) {
+          dictionaries[i] = readDictionary(footer, fieldTypes[i]);
+        }
+      }
+      int entityCount = entityIdField < 0 ? 1 : dictionaries[entityIdField].length;
+      lastX = new long[entityCount];
+      lastY = new long[entityCount];
+      lastChunk = new int[entityCount];
+      // size the attribute maps so that they never need to be resized
+      attributesCapacity = (int) (fieldCount / 0.75f) + 1;
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public Observation next() throws IOException {
+    long decodeStart = System.nanoTime();
+    if (row == chunkLength && !readChunk()) {
+      return null;
+    }
+    int entity = entities[row];
+    Map<String, Object> attributes = new HashMap<>(attributesCapacity);
+    for (int i = 0; i < fieldNames.length; i++) {
+      Object value;
+      switch (storage[i]) {
+        case TrackRecording.NUMERIC:
+          double number = numbers[i][row];
+          value = Double.isNaN(number) ? null : TrackRecording.toFieldType(number, fieldTypes[i]);
+          break;
+        case TrackRecording.TIMESTAMP:
+          long timestamp = timestamps[row];
+          value = timestamp == TrackRecording.MISSING ? null : TrackRecording.toFieldType(timestamp, fieldTypes[i]);
+          break;
+        default:
+          value = dictionaries[i][i == entityIdField ? entity : indices[i][row]];
+      }
+      attributes.put(fieldNames[i], value);
+    }
+    var observation = new Observation(
+      TrackRecording.dequantize(xs[row], TrackRecording.XY_SCALE),
+      TrackRecording.dequantize(ys[row], TrackRecording.XY_SCALE),
+      TrackRecording.dequantize(timestamps[row], 1),
+      entityIdField < 0 ? null : dictionaries[entityIdField][entity],
+      attributes);
+    row++;
+    ingestMetrics.recordRead(System.nanoTime() - decodeStart);
+    return observation;
+  }
+
+  /**
+   * Decodes the next chunk of the file into the column arrays.
+   *
+   * @return false if there are no more chunks
+   */
+  private boolean readChunk() throws IOException {
+    if (chunkStart >= footerOffset) {
+      return false;
+    }
+    ByteBuffer chunk = mapChunk();
+    chunkCount++;
+    row = 0;
+    chunkLength = chunk.getInt();
+    long previousTimestamp = chunk.getLong();
+
+    for (int i = 0; i < chunkLength; i++) {
+      int entity = (int) TrackRecording.readUnsigned(chunk);
+      entities[i] = entity;
+      firstOfEntity[i] = lastChunk[entity] != chunkCount;
+      lastChunk[entity] = chunkCount;
+    }
+    for (int i = 0; i < chunkLength; i++) {
+      previousTimestamp += TrackRecording.readSigned(chunk);
+      timestamps[i] = previousTimestamp;
+    }
+    readLocations(chunk, xs, lastX);
+    readLocations(chunk, ys, lastY);
+    for (int field = 0; field < fieldNames.length; field++) {
+      if (storage[field] == TrackRecording.NUMERIC) {
+        readNumbers(chunk, numbers[field]);
+      } else if (storage[field] == TrackRecording.DICTIONARY && field != entityIdField) {
+        for (int i = 0; i < chunkLength; i++) {
+          indices[field][i] = (int) TrackRecording.readUnsigned(chunk);
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Reads a column of numbers, stored as quantized differences from the previous value or as doubles.
+   */
+  private void readNumbers(ByteBuffer chunk, double[] values) {
+    byte decimals = chunk.get();
+    if (decimals == TrackRecording.RAW_DOUBLES) {
+      for (int i = 0; i < chunkLength; i++) {
+        values[i] = chunk.getDouble();
+      }
+    } else {
+      double scale = TrackRecording.decimalScale(decimals);
+      long previous = 0;
+      for (int i = 0; i < chunkLength; i++) {
+        previous += TrackRecording.readSigned(chunk);
+        values[i] = TrackRecording.dequantize(previous, scale);
+      }
+    }
+  }
+
+  /**
+   * Reads a column of quantized coordinates, stored as the difference from the previous location of the same entity in
+   * the chunk.
+   */
+  private void readLocations(ByteBuffer chunk, long[] values, long[] last) {
+    for (int i = 0; i < chunkLength; i++) {
+      int entity = entities[i];
+      long previous = firstOfEntity[i] ? 0 : last[entity];
+      values[i] = previous + TrackRecording.readSigned(chunk);
+      last[entity] = values[i];
+    }
+  }
+
+  /**
+   * Gets a buffer over the next chunk, starting at its observation count, and moves past the chunk. The window is
+   * remapped from the start of the chunk when the chunk does not fit in the current window.
+   */
+  private ByteBuffer mapChunk() throws IOException {
+    if (window == null || chunkStart + Integer.BYTES > windowStart + window.capacity()) {
+      mapWindow(Integer.BYTES);
+    }
+    int chunkSize = window.getInt((int) (chunkStart - windowStart));
+    // the chunk size is followed by the observation count and the first timestamp
+    long chunkEnd = chunkStart + 16 + chunkSize;
+    if (chunkEnd > windowStart + window.capacity()) {
+      mapWindow(chunkEnd - chunkStart);
+    }
+    ByteBuffer chunk = window.duplicate();
+    chunk.limit((int) (chunkEnd - windowStart)).position((int) (chunkStart - windowStart) + Integer.BYTES);
+    chunkStart = chunkEnd;
+    return chunk;
+  }
+
+  /**
+   * Maps a window of the chunks starting at the current chunk, at least the given size.
+   */
+  private void mapWindow(long minimumSize) throws IOException {
+    windowStart = chunkStart;
+    long size = Math.min(Math.max(WINDOW_SIZE, minimumSize), footerOffset - windowStart);
+    window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, size);
+  }
+
+  /**
+   * Reads the values of a dictionary, with null at index 0.
+   */
+  private static Object[] readDictionary(ByteBuffer buffer, Field.Type fieldType) {
+    int size = buffer.getInt();
+    Object[] values = new Object[size + 1];
+    for (int i = 1; i <= size; i++) {
+      byte type = buffer.get();
+      switch (type) {
+        case TrackRecording.NUMBER_VALUE:
+          values[i] = TrackRecording.toFieldType(buffer.getDouble(), fieldType);
+          break;
+        case TrackRecording.BOOLEAN_VALUE:
+          values[i] = buffer.get() != 0;
+          break;
+        default:
+          values[i] = TrackRecording.readText(buffer);
+      }
+    }
+    return values;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2023 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.add_custom_dynamic_entity_data_source;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.esri.arcgisruntime.data.Field;
+
+/**
+ * Writes observations to a {@link TrackRecording} file. Observations are buffered a chunk at a time, so memory use
+ * only grows with the number of distinct dictionary values.
+ */
+class TrackRecordingWriter implements Closeable {
+
+  private final FileOutputStream fileOutputStream;
+  private final DataOutputStream output;
+  private final String[] fieldNames;
+  private final Field.Type[] fieldTypes;
+  private final byte[] storage;
+  private final int entityIdField;
+  private final Dictionary[] dictionaries;
+  private final ByteArrayOutputStream chunkBytes = new ByteArrayOutputStream();
+  private final DataOutputStream chunkOutput = new DataOutputStream(chunkBytes);
+
+  // the columns of the current chunk
+  private final int[] entities = new int[TrackRecording.CHUNK_SIZE];
+  private final long[] timestamps = new long[TrackRecording.CHUNK_SIZE];
+  private final long[] xs = new long[TrackRecording.CHUNK_SIZE];
+  private final long[] ys = new long[TrackRecording.CHUNK_SIZE];
+  private final boolean[] firstOfEntity = new boolean[TrackRecording.CHUNK_SIZE];
+  private final double[][] numbers;
+  private final int[][] indices;
+  private int chunkLength;
+
+  // the last quantized location of each entity, and the chunk it was last seen in
+  private long[] lastX = new long[64];
+  private long[] lastY = new long[64];
+  private int[] lastChunk = new int[64];
+  private int chunkCount;
+
+  private long position = TrackRecording.HEADER_SIZE;
+  private long observationCount;
+  private long sourceSize = TrackRecording.NO_SOURCE;
+  private long sourceLastModified = TrackRecording.NO_SOURCE;
+
+  /**
+   * Creates a recording file.
+   *
+   * @param fileName name of the file to create
+   * @param fields the fields of the observations
+   * @param entityIdFieldName the name of the field containing values that uniquely identifies each entity
+   * @param timestampFieldName the name of the field containing the time of each observation in milliseconds
+   * @throws IOException if the file cannot be created
+   */
+  TrackRecordingWriter(String fileName, List<Field> fields, String entityIdFieldName, String timestampFieldName)
+    throws IOException {
+    int fieldCount = fields.size();
+    fieldNames = new String[fieldCount];
+    fieldTypes = new Field.Type[fieldCount];
+    storage = new byte[fieldCount];
+    dictionaries = new Dictionary[fieldCount];
+    numbers = new double[fieldCount][];
+    indices = new int[fieldCount][];
+    for (int i = 0; i < fieldCount; i++) {
+      Field field = fields.get(i);
+      fieldNames[i] = field.getName();
+      fieldTypes[i] = field.getFieldType();
+      boolean numeric = TrackRecording.isNumeric(fieldTypes[i]);
+      if (numeric && fieldNames[i].equals(timestampFieldName)) {
+        // stored in the timestamp column
+        storage[i] = TrackRecording.TIMESTAMP;
+      } else if (numeric && !fieldNames[i].equals(entityIdFieldName)) {
+        storage[i] = TrackRecording.NUMERIC;
+        numbers[i] = new double[TrackRecording.CHUNK_SIZE];
+      } else {
+        storage[i] = TrackRecording.DICTIONARY;
+        dictionaries[i] = new Dictionary();
+        indices[i] = new int[TrackRecording.CHUNK_SIZE];
+      }
+    }
+    entityIdField = Arrays.asList(fieldNames).indexOf(entityIdFieldName);
+
+    fileOutputStream = new FileOutputStream(fileName);
+    output = new DataOutputStream(new BufferedOutputStream(fileOutputStream, 1 << 16));
+    // reserve space for the header, which is written once the footer offset is known
+    output.write(new byte[TrackRecording.HEADER_SIZE]);
+  }
+
+  /**
+   * Converts a file of JSON observations to a recording, which stores the size and last modified time of the JSON file
+   * so that it can be checked with {@link TrackRecording#isUpToDate(Path, Path)}. The recording is written to a
+   * temporary file in the same directory first, so that a partly written recording is never left behind.
+   *
+   * @param jsonFileName name of a file with JSON observation data
+   * @param recordingFileName name of the recording file to create
+   * @param fields the fields of the observations
+   * @param entityIdFieldName the name of the field containing values that uniquely identifies each entity
+   * @param timestampFieldName the name of the field containing the time of each observation in milliseconds
+   * @throws IOException if the JSON file cannot be read or the recording cannot be written
+   */
+  static void convert(String jsonFileName, String recordingFileName, List<Field> fields, String entityIdFieldName,
+                      String timestampFieldName) throws IOException {
+    Path jsonFile = Path.of(jsonFileName);
+    Path recordingFile = Path.of(recordingFileName).toAbsolutePath();
+    // read the size and time before converting, so that a file changed while converting is converted again
+    long size = Files.size(jsonFile);
+    long lastModified = Files.getLastModifiedTime(jsonFile).toMillis();
+    Files.createDirectories(recordingFile.getParent());
+    Path temporaryFile =
+      Files.createTempFile(recordingFile.getParent(), recordingFile.getFileName().toString(), ".tmp");
+    var parser = new ObservationParser(fields, entityIdFieldName, timestampFieldName);
+    try (var source = new FileObservationSource(jsonFileName, parser, new IngestMetrics());
+         var writer = new TrackRecordingWriter(temporaryFile.toString(), fields, entityIdFieldName,
+           timestampFieldName)) {
+      writer.sourceSize = size;
+      writer.sourceLastModified = lastModified;
+      Observation observation;
+      while ((observation = source.next()) != null) {
+        writer.write(observation);
+      }
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(temporaryFile);
+      throw e;
+    }
+    Files.move(temporaryFile, recordingFile, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * Writes an observation. Observations should be written in timestamp order, since they are replayed in the order
+   * they were written.
+   *
+   * @param observation the observation
+   * @throws IOException if a full chunk cannot be written
+   */
+  void write(Observation observation) throws IOException {
+    int row = chunkLength++;
+    entities[row] = entityIdField < 0 ? 0 : dictionaries[entityIdField].indexOf(observation.entityId);
+    timestamps[row] = TrackRecording.quantize(observation.timestamp, 1);
+    xs[row] = TrackRecording.quantize(observation.x, TrackRecording.XY_SCALE);
+    ys[row] = TrackRecording.quantize(observation.y, TrackRecording.XY_SCALE);
+    for (int i = 0; i < fieldNames.length; i++) {
+      Object value = observation.attributes.get(fieldNames[i]);
+      if (storage[i] == TrackRecording.NUMERIC) {
+        numbers[i][row] = value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+      } else if (storage[i] == TrackRecording.DICTIONARY && i != entityIdField) {
+        indices[i][row] = dictionaries[i].indexOf(value);
+      }
+    }
+    if (chunkLength == TrackRecording.CHUNK_SIZE) {
+      writeChunk();
+    }
+  }
+
+  /**
+   * Encodes the current chunk column by column and writes it to the file.
+   */
+  private void writeChunk() throws IOException {
+    if (chunkLength == 0) {
+      return;
+    }
+    chunkCount++;
+    chunkBytes.reset();
+    for (int row = 0; row < chunkLength; row++) {
+      TrackRecording.writeUnsigned(chunkOutput, entities[row]);
+    }
+    // find the first observation of each entity in the chunk, which has its location stored as it is
+    for (int row = 0; row < chunkLength; row++) {
+      int entity = entities[row];
+      ensureEntityCapacity(entity);
+      firstOfEntity[row] = lastChunk[entity] != chunkCount;
+      lastChunk[entity] = chunkCount;
+    }
+    long previousTimestamp = timestamps[0];
+    for (int row = 0; row < chunkLength; row++) {
+      TrackRecording.writeSigned(chunkOutput, timestamps[row] - previousTimestamp);
+      previousTimestamp = timestamps[row];
+    }
+    writeLocations(xs, lastX);
+    writeLocations(ys, lastY);
+    for (int i = 0; i < fieldNames.length; i++) {
+      if (storage[i] == TrackRecording.NUMERIC) {
+        writeNumbers(numbers[i]);
+      } else if (storage[i] == TrackRecording.DICTIONARY && i != entityIdField) {
+        for (int row = 0; row < chunkLength; row++) {
+          TrackRecording.writeUnsigned(chunkOutput, indices[i][row]);
+        }
+      }
+    }
+
+    output.writeInt(chunkBytes.size());
+    output.writeInt(chunkLength);
+    output.writeLong(timestamps[0]);
+    chunkBytes.writeTo(output);
+    position += 16 + chunkBytes.size();
+    observationCount += chunkLength;
+    chunkLength = 0;
+  }
+
+  /**
+   * Writes a column of numbers without changing any value, as the fewest decimal places which keep every value exactly,
+   * followed by the quantized values as the difference from the previous value, or as doubles if no number of decimal
+   * places keeps every value exactly.
+   */
+  private void writeNumbers(double[] values) throws IOException {
+    byte decimals = TrackRecording.exactDecimals(values, chunkLength);
+    chunkOutput.writeByte(decimals);
+    if (decimals == TrackRecording.RAW_DOUBLES) {
+      for (int row = 0; row < chunkLength; row++) {
+        chunkOutput.writeDouble(values[row]);
+      }
+    } else {
+      double scale = TrackRecording.decimalScale(decimals);
+      long previous = 0;
+      for (int row = 0; row < chunkLength; row++) {
+        long quantized = TrackRecording.quantize(values[row], scale);
+        // the difference wraps around for missing values, and wraps back when it is added on reading
+        TrackRecording.writeSigned(chunkOutput, quantized - previous);
+        previous = quantized;
+      }
+    }
+  }
+
+  /**
+   * Writes a column of quantized coordinates, each as the difference from the previous location of the same entity in
+   * the chunk, or as it is for the first location of the entity in the chunk.
+   */
+  private void writeLocations(long[] values, long[] last) throws IOException {
+    for (int row = 0; row < chunkLength; row++) {
+      int entity = entities[row];
+      long previous = firstOfEntity[row] ? 0 : last[entity];
+      TrackRecording.writeSigned(chunkOutput, values[row] - previous);
+      last[entity] = values[row];
+    }
+  }
+
+  /**
+   * Grows the per-entity arrays to hold the given entity.
+   */
+  private void ensureEntityCapacity(int entity) {
+    if (entity >= lastChunk.length) {
+      int capacity = Math.max(entity + 1, lastChunk.length * 2);
+      lastX = Arrays.copyOf(lastX, capacity);
+      lastY = Arrays.copyOf(lastY, capacity);
+      lastChunk = Arrays.copyOf(lastChunk, capacity);
+    }
+  }
+
+  /**
+   * Writes the remaining observations, the footer and the header, and closes the file.
+   *
+   * @throws IOException if the recording cannot be written
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      writeChunk();
+      long footerOffset = position;
+      output.writeInt(fieldNames.length);
+      for (int i = 0; i < fieldNames.length; i++) {
+        TrackRecording.writeText(output, fieldNames[i]);
+        TrackRecording.writeText(output, fieldTypes[i].name());
+        output.writeByte(storage[i]);
+      }
+      output.writeInt(entityIdField);
+      for (Dictionary dictionary : dictionaries) {
+        if (dictionary != null) {
+          dictionary.write(output);
+        }
+      }
+      output.flush();
+
+      ByteBuffer header = ByteBuffer.allocate(TrackRecording.HEADER_SIZE);
+      header.putInt(TrackRecording.MAGIC).putLong(footerOffset).putLong(observationCount).putLong(sourceSize)
+        .putLong(sourceLastModified).flip();
+      fileOutputStream.getChannel().write(header, 0);
+    } finally {
+      output.close();
+    }
+  }
+
+  /**
+   * The distinct values of a field, in the order they were first written. Index 0 is reserved for null.
+   */
+  private static class Dictionary {
+
+    private final Map<Object, Integer> indexes = new HashMap<>();
+    private final List<Object> values = new ArrayList<>();
+
+    /**
+     * Gets the index of a value, adding it to the dictionary if it is new.
+     */
+    int indexOf(Object value) {
+      if (value == null) {
+        return 0;
+      }
+      Integer index = indexes.get(value);
+      if (index == null) {
+        values.add(value);
+        index = values.size();
+        indexes.put(value, index);
+      }
+      return index;
+    }
+
+    /**
+     * Writes the values of the dictionary.
+     */
+    void write(DataOutputStream output) throws IOException {
+      output.writeInt(values.size());
+      for (Object value : values) {
+        if (value instanceof Number) {
+          output.writeByte(TrackRecording.NUMBER_VALUE);
+          output.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+          output.writeByte(TrackRecording.BOOLEAN_VALUE);
+          output.writeBoolean((Boolean) value);
+        } else {
+          output.writeByte(TrackRecording.TEXT_VALUE);
+          TrackRecording.writeText(output, value.toString());
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2023 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.add_custom_dynamic_entity_data_source;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Compiles a SQL style where clause into a predicate on observation attributes, so that observations can be filtered
+ * without a round trip to a database.
+ * <p>
+ * Supported expressions are comparisons of a field with a literal using <code>=</code>, <code>&lt;&gt;</code>,
+ * <code>&lt;</code>, <code>&lt;=</code>, <code>&gt;</code> or <code>&gt;=</code>, <code>IN (..)</code>,
+ * <code>IS NULL</code>, <code>IS NOT NULL</code>, combined with <code>AND</code>, <code>OR</code>, <code>NOT</code> and
+ * parentheses. Literals are numbers or strings in single quotes. A text value is compared with a number literal as a
+ * number, so that codes stored as text such as vessel types can be compared numerically. Any comparison with a null
+ * value is false.
+ */
+class WhereClause {
+
+  private final String clause;
+  private int position;
+
+  private WhereClause(String clause) {
+    this.clause = clause;
+  }
+
+  /**
+   * Compiles a where clause.
+   *
+   * @param clause the where clause, for example <code>SOG &gt; 0 AND VesselType IN (70, 80)</code>
+   * @return a predicate which is true for the attributes matching the clause
+   * @throws IllegalArgumentException if the clause is not valid
+   */
+  static Predicate<Map<String, Object>> compile(String clause) {
+    var whereClause = new WhereClause(clause);
+    Predicate<Map<String, Object>> predicate = whereClause.parseOr();
+    whereClause.skipWhitespace();
+    if (whereClause.position < clause.length()) {
+      throw whereClause.error("unexpected '" + clause.substring(whereClause.position) + "'");
+    }
+    return predicate;
+  }
+
+  private Predicate<Map<String, Object>> parseOr() {
+    Predicate<Map<String, Object>> predicate = parseAnd();
+    while (tryKeyword("OR")) {
+      predicate = predicate.or(parseAnd());
+    }
+    return predicate;
+  }
+
+  private Predicate<Map<String, Object>> parseAnd() {
+    Predicate<Map<String, Object>> predicate = parseNot();
+    while (tryKeyword("AND")) {
+      predicate = predicate.and(parseNot());
+    }
+    return predicate;
+  }
+
+  private Predicate<Map<String, Object>> parseNot() {
+    if (tryKeyword("NOT")) {
+      return parseNot().negate();
+    }
+    if (trySymbol("(")) {
+      Predicate<Map<String, Object>> predicate = parseOr();
+      expectSymbol(")");
+      return predicate;
+    }
+    return parseComparison();
+  }
+
+  private Predicate<Map<String, Object>> parseComparison() {
+    String field = readIdentifier();
+    if (tryKeyword("IS")) {
+      boolean not = tryKeyword("NOT");
+      if (!tryKeyword("NULL")) {
+        throw error("expected NULL");
+      }
+      return not ? attributes -> attributes.get(field) != null : attributes -> attributes.get(field) == null;
+    }
+    if (tryKeyword("IN")) {
+      expectSymbol("(");
+      List<Object> literals = new ArrayList<>();
+      do {
+        literals.add(readLiteral());
+      } while (trySymbol(","));
+      expectSymbol(")");
+      return attributes -> {
+        Object value = attributes.get(field);
+        return literals.stream().anyMatch(literal -> Integer.valueOf(0).equals(compare(value, literal)));
+      };
+    }
+    String operator = readOperator();
+    Object literal = readLiteral();
+    IntPredicate test = switch (operator) {
+      case "=" -> comparison -> comparison == 0;
+      case "<>", "!=" -> comparison -> comparison != 0;
+      case "<" -> comparison -> comparison < 0;
+      case "<=" -> comparison -> comparison <= 0;
+      case ">" -> comparison -> comparison > 0;
+      default -> comparison -> comparison >= 0;
+    };
+    return attributes -> {
+      Integer comparison = compare(attributes.get(field), literal);
+      return comparison != null && test.test(comparison);
+    };
+  }
+
+  /**
+   * Compares an attribute value with a literal.
+   *
+   * @return the result of the comparison, or null if the values cannot be compared
+   */
+  private static Integer compare(Object value, Object literal) {
+    if (value == null) {
+      return null;
+    }
+    if (literal instanceof Double) {
+      double number;
+      if (value instanceof Number) {
+        number = ((Number) value).doubleValue();
+      } else {
+        try {
+          number = Double.parseDouble(value.toString().trim());
+        } catch (NumberFormatException e) {
+          return null;
+        }
+      }
+      return Double.compare(number, (Double) literal);
+    }
+    return value.toString().compareTo((String) literal);
+  }
+
+  private String readIdentifier() {
+    skipWhitespace();
+    int start = position;
+    while (position < clause.length()
+      && (Character.isLetterOrDigit(clause.charAt(position)) || clause.charAt(position) == '_')) {
+      position++;
+    }
+    if (start == position) {
+      throw error("expected a field name");
+    }
+    return clause.substring(start, position);
+  }
+
+  private String readOperator() {
+    for (String operator : new String[] {"<=", ">=", "<>", "!=", "=", "<", ">"}) {
+      if (trySymbol(operator)) {
+        return operator;
+      }
+    }
+    throw error("expected a comparison operator");
+  }
+
+  private Object readLiteral() {
+    skipWhitespace();
+    if (trySymbol("'")) {
+      // string literal, with quotes escaped by doubling them
+      var builder = new StringBuilder();
+      while (true) {
+        if (position >= clause.length()) {
+          throw error("unterminated string");
+        }
+        char c = clause.charAt(position++);
+        if (c == '\'') {
+          if (position < clause.length() && clause.charAt(position) == '\'') {
+            position++;
+          } else {
+            return builder.toString();
+          }
+        }
+        builder.append(c);
+      }
+    }
+    int start = position;
+    while (position < clause.length() && "+-.0123456789eE".indexOf(clause.charAt(position)) >= 0) {
+      position++;
+    }
+    try {
+      return Double.valueOf(clause.substring(start, position));
+    } catch (NumberFormatException e) {
+      throw error("expected a number or string");
+    }
+  }
+
+  private boolean tryKeyword(String keyword) {
+    skipWhitespace();
+    int end = position + keyword.length();
+    if (clause.regionMatches(true, position, keyword, 0, keyword.length())
+      && (end == clause.length() || !Character.isLetterOrDigit(clause.charAt(end)))) {
+      position = end;
+      return true;
+    }
+    return false;
+  }
+
+  private boolean trySymbol(String symbol) {
+    skipWhitespace();
+    if (clause.startsWith(symbol, position)) {
+      position += symbol.length();
+      return true;
+    }
+    return false;
+  }
+
+  private void expectSymbol(String symbol) {
+    if (!trySymbol(symbol)) {
+      throw error("expected '" + symbol + "'");
+    }
+  }
+
+  private void skipWhitespace() {
+    while (position < clause.length() && Character.isWhitespace(clause.charAt(position))) {
+      position++;
+    }
+  }
+
+  private IllegalArgumentException error(String message) {
+    return new IllegalArgumentException(
+      String.format(Locale.ROOT, "Invalid where clause \"%s\" at position %d: %s", clause, position, message));
+  }
+}
@@ -24,8 +24,5 @@ module com.esri.samples.add_custom_dynamic_entity_data_source {
   requires javafx.graphics;
   requires javafx.controls;
 
-  // require Gson for parsing json data
-  requires com.google.gson;
-
   exports com.esri.samples.add_custom_dynamic_entity_data_source;
 }
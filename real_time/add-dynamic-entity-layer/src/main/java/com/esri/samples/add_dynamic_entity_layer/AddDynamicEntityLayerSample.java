@@ -17,6 +17,7 @@
 package com.esri.samples.add_dynamic_entity_layer;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.esri.arcgisruntime.ArcGISRuntimeEnvironment;
 import com.esri.arcgisruntime.geometry.Envelope;
@@ -37,6 +38,9 @@ import com.esri.arcgisruntime.symbology.SimpleMarkerSymbol;
 import com.esri.arcgisruntime.symbology.SimpleRenderer;
 import com.esri.arcgisruntime.symbology.UniqueValueRenderer;
 
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Application;
 import javafx.beans.binding.Bindings;
 import javafx.geometry.Insets;
@@ -54,12 +58,15 @@ import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 public class AddDynamicEntityLayerSample extends Application {
 
   private MapView mapView;
   private VBox controlsVBox;
   private Label connectionStatusLabel;
+  private Label observationRateLabel;
+  private Timeline observationRateTimeline;
   private Label observationSliderLabel;
   private Button connectionButton;
   private Button purgeButton;
@@ -180,6 +187,14 @@ public class AddDynamicEntityLayerSample extends Application {
       connectionStatusLabel.textProperty().bind(Bindings.createStringBinding(() ->
         "Status: " + streamService.connectionStatusProperty().getValue(), streamService.connectionStatusProperty()));
 
+      // count the observations received from the stream service, and show the number received each second
+      var observationCount = new AtomicLong();
+      streamService.addDynamicEntityObservationReceivedListener(event -> observationCount.incrementAndGet());
+      observationRateTimeline = new Timeline(new KeyFrame(Duration.seconds(1), event ->
+        observationRateLabel.setText("Observations per second: " + observationCount.getAndSet(0))));
+      observationRateTimeline.setCycleCount(Animation.INDEFINITE);
+      observationRateTimeline.play();
+
       // update the button text depending on the connection status value
       connectionButton.textProperty().bind(Bindings.createStringBinding(() -> {
         if (streamService.getConnectionStatus() == ConnectionStatus.CONNECTED) {
@@ -243,6 +258,7 @@ public class AddDynamicEntityLayerSample extends Application {
 
     // create labels for the connection status and the observations per track slider
     connectionStatusLabel = new Label("Status: ");
+    observationRateLabel = new Label("Observations per second: ");
     observationSliderLabel = new Label("Observations per track: ");
 
     // create buttons to toggle the service connection and purge observations
@@ -267,10 +283,10 @@ public class AddDynamicEntityLayerSample extends Application {
     controlsVBox = new VBox();
     controlsVBox.setPadding(new Insets(15.0));
     controlsVBox.setSpacing(5.0);
-    controlsVBox.setMaxSize(325, 120);
+    controlsVBox.setMaxSize(325, 140);
     controlsVBox.setBackground(new Background(new BackgroundFill(Color.WHITE, CornerRadii.EMPTY, Insets.EMPTY)));
-    controlsVBox.getChildren().addAll(connectionStatusLabel, connectionButton, trackLinesCheckBox,
-      observationsCheckBox, sliderHBox, purgeButton);
+    controlsVBox.getChildren().addAll(connectionStatusLabel, observationRateLabel, connectionButton,
+      trackLinesCheckBox, observationsCheckBox, sliderHBox, purgeButton);
   }
 
   /**
@@ -279,6 +295,10 @@ public class AddDynamicEntityLayerSample extends Application {
   @Override
   public void stop() {
 
+    if (observationRateTimeline != null) {
+      observationRateTimeline.stop();
+    }
+
     if (mapView != null) {
       mapView.dispose();
     }
@@ -16,26 +16,23 @@
 
 package com.esri.samples.animate_3d_graphic;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.fxml.FXML;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.Slider;
+import javafx.scene.control.Spinner;
 import javafx.scene.control.ToggleButton;
 import javafx.scene.paint.Color;
-import javafx.util.Duration;
 
 import com.esri.arcgisruntime.ArcGISRuntimeEnvironment;
 import com.esri.arcgisruntime.geometry.Point;
@@ -71,15 +68,23 @@ public class Animate3dGraphicController {
   @FXML private ComboBox<String> missionSelector;
   @FXML private ToggleButton playButton;
   @FXML private ToggleButton followButton;
-  @FXML private Timeline animation;
+  @FXML private Slider speedSlider;
+  @FXML private Spinner<Integer> aircraftSpinner;
+  @FXML private Label frameTimeLabel;
   @FXML private Label altitudeLabel;
   @FXML private Label headingLabel;
   @FXML private Label pitchLabel;
   @FXML private Label rollLabel;
 
   private OrbitGeoElementCameraController orbitCameraController;
-  private List<Map<String, Object>> missionData;
+  private TrackAnimator trackAnimator;
+  private MissionRecording mission;
+  private final MissionRecording.State state = new MissionRecording.State();
+  private long lastLabelUpdateTime;
+  private GraphicsOverlay sceneOverlay;
+  private ModelSceneSymbol plane3DSymbol;
   private Graphic plane3D;
+  private final List<Graphic> otherPlanes3D = new ArrayList<>();
   private Graphic plane2D;
   private Graphic routeGraphic;
 
@@ -87,6 +92,9 @@ public class Animate3dGraphicController {
   private static final String ELEVATION_IMAGE_SERVICE =
       "https://elevation3d.arcgis.com/arcgis/rest/services/WorldElevation3D/Terrain3D/ImageServer";
 
+  // the minimum time between updates of the position parameter labels, in nanoseconds
+  private static final long LABEL_UPDATE_INTERVAL = 250_000_000;
+
   /**
    * Called after FXML loads. Sets up scene and map and configures property bindings.
    */
@@ -108,7 +116,7 @@ public class Animate3dGraphicController {
       scene.setBaseSurface(surface);
 
       // create a graphics overlay for the scene
-      GraphicsOverlay sceneOverlay = new GraphicsOverlay();
+      sceneOverlay = new GraphicsOverlay();
       sceneOverlay.getSceneProperties().setSurfacePlacement(LayerSceneProperties.SurfacePlacement.ABSOLUTE);
       sceneView.getGraphicsOverlays().add(sceneOverlay);
 
@@ -149,7 +157,7 @@ public class Animate3dGraphicController {
 
       // create a graphic with a ModelSceneSymbol of a plane to add to the scene
       String modelURI = new File(System.getProperty("data.dir"), "./samples-data/bristol/Collada/Bristol.dae").getAbsolutePath();
-      ModelSceneSymbol plane3DSymbol = new ModelSceneSymbol(modelURI, 1.0);
+      plane3DSymbol = new ModelSceneSymbol(modelURI, 1.0);
       plane3DSymbol.loadAsync();
       plane3D = new Graphic(new Point(0, 0, 0, WGS84), plane3DSymbol);
       sceneOverlay.getGraphics().add(plane3D);
@@ -159,8 +167,21 @@ public class Animate3dGraphicController {
       orbitCameraController.setCameraPitchOffset(75.0);
       sceneView.setCameraController(orbitCameraController);
 
-      // setup animation to render a new frame every 20 ms by default
-      animation.getKeyFrames().add(new KeyFrame(Duration.millis(20), e -> animate(animationModel.nextKeyframe())));
+      // set up an animator which moves all the planes along the mission on every pulse, by the time since the
+      // previous pulse, so that playback is smooth at any frame rate, and then updates the views of the lead plane
+      trackAnimator = new TrackAnimator();
+      trackAnimator.setOnFrame(this::showLeadPlane);
+      trackAnimator.setSpeed(speedSlider.getValue());
+      speedSlider.valueProperty().addListener((observable, oldValue, newValue) ->
+          trackAnimator.setSpeed(newValue.doubleValue()));
+
+      // show how long it takes to move all the planes in each frame
+      frameTimeLabel.textProperty().bind(Bindings.format("%.2f ms, %.0f fps", trackAnimator.frameTimeProperty(),
+          trackAnimator.framesPerSecondProperty()));
+
+      // change the number of planes flying the mission
+      aircraftSpinner.valueProperty().addListener((observable, oldValue, newValue) ->
+          addPlanes(trackAnimator.getStep(0)));
 
       // bind button properties
       followButton.textProperty().bind(Bindings.createStringBinding(() -> followButton.isSelected() 
@@ -183,51 +204,65 @@ public class Animate3dGraphicController {
   @FXML
   private void changeMission() {
 
-    // clear previous mission data
-    missionData = new ArrayList<>();
-
     // get mission data
-    String mission = missionSelector.getSelectionModel().getSelectedItem();
-    missionData = getMissionData(mission);
-    animationModel.setFrames(missionData.size());
+    mission = getMissionData(missionSelector.getSelectionModel().getSelectedItem());
+    animationModel.setFrames(mission.size);
     animationModel.setKeyframe(0);
+    addPlanes(0);
 
     // draw mission route on mini map
     PointCollection points = new PointCollection(WGS84);
-    points.addAll(missionData.stream().map(m -> (Point) m.get("POSITION")).collect(Collectors.toList()));
+    for (int i = 0; i < mission.size; i++) {
+      points.add(new Point(mission.x[i], mission.y[i], mission.z[i], WGS84));
+    }
     Polyline route = new Polyline(points);
     routeGraphic.setGeometry(route);
 
     // refresh mini map zoom and show initial keyframe
-    mapView.setViewpointScaleAsync(100000).addDoneListener(() -> Platform.runLater(() -> animate(0)));
+    mapView.setViewpointScaleAsync(100000).addDoneListener(() -> Platform.runLater(() -> {
+      trackAnimator.render();
+      showLeadPlane();
+      updatePositionLabels();
+    }));
+  }
+
+  /**
+   * Sets up the planes flying the mission: the lead plane, followed by the number of planes chosen in the spinner less
+   * one, spread evenly along the mission behind it.
+   *
+   * @param leadStep the step of the mission to put the lead plane at
+   */
+  private void addPlanes(double leadStep) {
+
+    trackAnimator.clear();
+    sceneOverlay.getGraphics().removeAll(otherPlanes3D);
+    otherPlanes3D.clear();
+
+    int count = aircraftSpinner.getValue();
+    trackAnimator.add(plane3D, mission, leadStep);
+    for (int i = 1; i < count; i++) {
+      var plane = new Graphic(new Point(0, 0, 0, WGS84), plane3DSymbol);
+      otherPlanes3D.add(plane);
+      double step = leadStep - (double) i * mission.size / count;
+      trackAnimator.add(plane, mission, step < 0 ? step + mission.size : step);
+    }
+    // add the planes in a single batch
+    sceneOverlay.getGraphics().addAll(otherPlanes3D);
+    trackAnimator.render();
   }
 
   /**
-   * Loads the mission data from a .csv file into memory.
+   * Loads the mission data from a mission recording into memory.
    *
-   * @param mission .csv file name containing the mission data
-   * @return ordered list of mapped key value pairs representing coordinates and rotation parameters for each step of
-   * the mission
+   * @param mission name of the mission recording containing the mission data
+   * @return the flight path of the mission, with the coordinates and rotation parameters for each step
    */
-  private List<Map<String, Object>> getMissionData(String mission) {
-
-    // open a file reader to the mission file that automatically closes after read
-    try (BufferedReader missionFile = new BufferedReader(
-        new InputStreamReader(getClass().getResourceAsStream("/animate_3d_graphic/csv/" + mission)))) {
-      return missionFile.lines()
-          //ex: -156.3666517,20.6255059,999.999908,83.77659,1.05E-09,-47.766567
-          .map(l -> l.split(","))
-          .map(l -> {
-            // create a map of parameters (ordinates) to values
-            Map<String, Object> ordinates = new HashMap<>();
-            ordinates.put("POSITION", new Point(Float.valueOf(l[0]), Float.valueOf(l[1]), Float.valueOf(l[2]),
-                WGS84));
-            ordinates.put("HEADING", Float.valueOf(l[3]));
-            ordinates.put("PITCH", Float.valueOf(l[4]));
-            ordinates.put("ROLL", Float.valueOf(l[5]));
-            return ordinates;
-          })
-          .collect(Collectors.toList());
+  private MissionRecording getMissionData(String mission) {
+
+    // open a stream to the mission file that automatically closes after read
+    try (InputStream missionFile = getClass().getResourceAsStream("/animate_3d_graphic/missions/" + mission
+        + MissionRecording.FILE_EXTENSION)) {
+      return MissionRecording.read(missionFile);
     } catch (IOException e) {
       e.printStackTrace();
     }
@@ -235,39 +270,45 @@ public class Animate3dGraphicController {
   }
 
   /**
-   * Animates a single keyframe corresponding to the index in the mission data profile. Updates the position and
-   * rotation of the 2D/3D plane graphic and sets the camera viewpoint.
-   *
-   * @param keyframe index in mission data to show
+   * Shows the lead plane's current position and rotation after it has been moved. Updates the mini map plane's position
+   * and rotation, and the mission progress. The position parameter labels are only updated a few times a second, so
+   * that they can be read.
    */
-  private void animate(int keyframe) {
+  private void showLeadPlane() {
 
-    // get the next position from the mission data
-    Map<String, Object> datum = missionData.get(keyframe);
-    Point position = (Point) datum.get("POSITION");
+    // get the position and rotation the lead plane has been moved to
+    double step = trackAnimator.getStep(0);
+    mission.interpolate(step, state);
+    animationModel.setKeyframe((int) step);
+    Point position = (Point) plane3D.getGeometry();
 
     // update the position parameters pane
-    altitudeLabel.setText(String.format("%.2f", position.getZ()));
-    headingLabel.setText(String.format("%.2f", (float) datum.get("HEADING")));
-    pitchLabel.setText(String.format("%.2f", (float) datum.get("PITCH")));
-    rollLabel.setText(String.format("%.2f", (float) datum.get("ROLL")));
-
-    // update plane's position and orientation
-    plane3D.setGeometry(position);
-    plane3D.getAttributes().put("HEADING", datum.get("HEADING"));
-    plane3D.getAttributes().put("PITCH", datum.get("PITCH"));
-    plane3D.getAttributes().put("ROLL", datum.get("ROLL"));
+    if (System.nanoTime() - lastLabelUpdateTime >= LABEL_UPDATE_INTERVAL) {
+      updatePositionLabels();
+    }
 
     // update mini map plane's position and rotation
     plane2D.setGeometry(position);
     if (followButton.isSelected()) {
       // rotate the map view in the direction of motion to make graphic always point up
-      mapView.setViewpoint(new Viewpoint(position, mapView.getMapScale(), 360 + (float) datum.get("HEADING")));
+      mapView.setViewpoint(new Viewpoint(position, mapView.getMapScale(), 360 + state.heading));
     } else {
-      plane2D.getAttributes().put("ANGLE", 360 + (float) datum.get("HEADING") - mapView.getMapRotation());
+      plane2D.getAttributes().put("ANGLE", 360 + state.heading - mapView.getMapRotation());
     }
   }
 
+  /**
+   * Updates the position parameters pane with the current position and rotation of the plane.
+   */
+  private void updatePositionLabels() {
+
+    lastLabelUpdateTime = System.nanoTime();
+    altitudeLabel.setText(String.format("%.2f", state.z));
+    headingLabel.setText(String.format("%.2f", state.heading));
+    pitchLabel.setText(String.format("%.2f", state.pitch));
+    rollLabel.setText(String.format("%.2f", state.roll));
+  }
+
   /**
    * Switches the animation on or off.
    */
@@ -275,9 +316,9 @@ public class Animate3dGraphicController {
   private void togglePlay() {
 
     if (playButton.isSelected()) {
-      animation.play();
+      trackAnimator.start();
     } else {
-      animation.stop();
+      trackAnimator.stop();
     }
   }
 
@@ -319,7 +360,9 @@ public class Animate3dGraphicController {
    */
   void terminate() {
 
-    animation.stop();
+    if (trackAnimator != null) {
+      trackAnimator.stop();
+    }
     if (sceneView != null) {
       sceneView.dispose();
     }
@@ -81,16 +81,6 @@ public class AnimationModel {
     return keyframe.get();
   }
 
-  /**
-   * Increments and gets the next keyframe.
-   *
-   * @return next keyframe
-   */
-  int nextKeyframe() {
-    setKeyframe(getKeyframe() + 1);
-    return getKeyframe();
-  }
-
   /**
    * Property tracking the current frame of an animation.
    *
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2016 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.animate_3d_graphic;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The flight path of a mission, stored as one column of values per ordinate: longitude, latitude and altitude, and the
+ * heading, pitch and roll of the plane. The path can be sampled at any point between its steps, so that it can be
+ * played back smoothly at any frame rate.
+ * <p>
+ * Missions are stored in a compact binary format. Each column is quantized to a fixed number of steps per unit and
+ * written as the difference from the value predicted by the previous two values, as a variable length integer. As the
+ * path of a plane changes smoothly, most of the differences are close to zero and take a single byte, so a mission
+ * takes around a tenth of the size of the equivalent CSV file and is read without any text parsing.
+ */
+class MissionRecording {
+
+  /**
+   * The extension of mission recording files.
+   */
+  static final String FILE_EXTENSION = ".mission";
+
+  // "MSN1" in ASCII
+  private static final int MAGIC = 0x4D534E31;
+
+  // quantized steps per degree of longitude and latitude, giving a resolution of about a centimeter
+  private static final double XY_SCALE = 1e7;
+
+  // quantized steps per meter of altitude
+  private static final double Z_SCALE = 1e3;
+
+  // quantized steps per degree of heading, pitch and roll
+  private static final double ANGLE_SCALE = 1e4;
+
+  final int size;
+  final double[] x;
+  final double[] y;
+  final double[] z;
+  final float[] heading;
+  final float[] pitch;
+  final float[] roll;
+
+  /**
+   * Creates a mission of the given number of steps, with all values set to zero.
+   */
+  private MissionRecording(int size) {
+    this.size = size;
+    x = new double[size];
+    y = new double[size];
+    z = new double[size];
+    heading = new float[size];
+    pitch = new float[size];
+    roll = new float[size];
+  }
+
+  /**
+   * Reads a mission recording.
+   *
+   * @param inputStream stream of the recording, which is read to the end but not closed
+   * @return the mission
+   * @throws IOException if the recording cannot be read or is not a mission recording
+   */
+  static MissionRecording read(InputStream inputStream) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(inputStream.readAllBytes());
+    if (buffer.remaining() < 2 * Integer.BYTES || buffer.getInt() != MAGIC) {
+      throw new IOException("Not a mission recording");
+    }
+    var mission = new MissionRecording(buffer.getInt());
+    long[] column = new long[mission.size];
+    readColumn(buffer, column);
+    dequantize(column, XY_SCALE, mission.x);
+    readColumn(buffer, column);
+    dequantize(column, XY_SCALE, mission.y);
+    readColumn(buffer, column);
+    dequantize(column, Z_SCALE, mission.z);
+    readColumn(buffer, column);
+    dequantize(column, ANGLE_SCALE, mission.heading);
+    readColumn(buffer, column);
+    dequantize(column, ANGLE_SCALE, mission.pitch);
+    readColumn(buffer, column);
+    dequantize(column, ANGLE_SCALE, mission.roll);
+    return mission;
+  }
+
+  /**
+   * Reads a mission from CSV lines of longitude, latitude, altitude, heading, pitch and roll.
+   *
+   * @param reader reader of the CSV lines
+   * @return the mission
+   * @throws IOException if the CSV cannot be read
+   * @throws NumberFormatException if a line does not contain six numbers
+   */
+  static MissionRecording readCsv(BufferedReader reader) throws IOException {
+    String[][] lines = reader.lines()
+        //ex: -156.3666517,20.6255059,999.999908,83.77659,1.05E-09,-47.766567
+        .filter(l -> !l.isBlank())
+        .map(l -> l.split(","))
+        .toArray(String[][]::new);
+    var mission = new MissionRecording(lines.length);
+    for (int i = 0; i < lines.length; i++) {
+      String[] l = lines[i];
+      mission.x[i] = Double.parseDouble(l[0]);
+      mission.y[i] = Double.parseDouble(l[1]);
+      mission.z[i] = Double.parseDouble(l[2]);
+      mission.heading[i] = Float.parseFloat(l[3]);
+      mission.pitch[i] = Float.parseFloat(l[4]);
+      mission.roll[i] = Float.parseFloat(l[5]);
+    }
+    return mission;
+  }
+
+  /**
+   * Samples the flight path at a fractional step, interpolating linearly between the steps either side of it. Angles
+   * are interpolated the shortest way around the circle. Positions after the last step are held at the last step.
+   *
+   * @param step the step to sample, from 0 to the size of the mission
+   * @param state the state to write the sampled values to, so that no objects are created for each sample
+   */
+  void interpolate(double step, State state) {
+    int i = Math.max(0, Math.min((int) step, size - 1));
+    int j = Math.min(i + 1, size - 1);
+    double t = Math.max(0, Math.min(step - i, 1));
+    state.x = x[i] + (x[j] - x[i]) * t;
+    state.y = y[i] + (y[j] - y[i]) * t;
+    state.z = z[i] + (z[j] - z[i]) * t;
+    state.heading = interpolateAngle(heading[i], heading[j], t);
+    state.pitch = interpolateAngle(pitch[i], pitch[j], t);
+    state.roll = interpolateAngle(roll[i], roll[j], t);
+  }
+
+  /**
+   * Interpolates between two angles in degrees, the shortest way around the circle.
+   */
+  private static float interpolateAngle(float from, float to, double t) {
+    double difference = to - from;
+    difference -= 360 * Math.floor((difference + 180) / 360);
+    return (float) (from + difference * t);
+  }
+
+  /**
+   * Writes the mission as a mission recording.
+   *
+   * @param outputStream stream to write the recording to, which is flushed but not closed
+   * @throws IOException if the recording cannot be written
+   */
+  void write(OutputStream outputStream) throws IOException {
+    var output = new DataOutputStream(new BufferedOutputStream(outputStream));
+    output.writeInt(MAGIC);
+    output.writeInt(size);
+    long[] column = new long[size];
+    writeColumn(output, quantize(x, XY_SCALE, column));
+    writeColumn(output, quantize(y, XY_SCALE, column));
+    writeColumn(output, quantize(z, Z_SCALE, column));
+    writeColumn(output, quantize(heading, ANGLE_SCALE, column));
+    writeColumn(output, quantize(pitch, ANGLE_SCALE, column));
+    writeColumn(output, quantize(roll, ANGLE_SCALE, column));
+    output.flush();
+  }
+
+  /**
+   * Converts mission CSV files to mission recordings. The CSV files in the sample's resources are the source of the
+   * recordings the sample loads, which are regenerated with the {@code convertMissions} Gradle task after a CSV file is
+   * edited.
+   *
+   * @param args the directory to write the recordings to, followed by the paths of the CSV files to convert
+   * @throws IOException if a file cannot be converted
+   */
+  public static void main(String[] args) throws IOException {
+    Path outputDirectory = Path.of(args[0]);
+    Files.createDirectories(outputDirectory);
+    for (int i = 1; i < args.length; i++) {
+      Path csvFile = Path.of(args[i]);
+      String name = csvFile.getFileName().toString().replaceFirst("\\.csv$", "");
+      Path recordingFile = outputDirectory.resolve(name + FILE_EXTENSION);
+      try (BufferedReader reader = Files.newBufferedReader(csvFile);
+           OutputStream outputStream = Files.newOutputStream(recordingFile)) {
+        readCsv(reader).write(outputStream);
+      }
+      System.out.println("Converted " + csvFile + " (" + Files.size(csvFile) + " bytes) to " + recordingFile + " ("
+          + Files.size(recordingFile) + " bytes)");
+    }
+  }
+
+  /**
+   * Writes a column of quantized values, each as the difference from the value predicted by the previous two.
+   */
+  private static void writeColumn(DataOutputStream output, long[] column) throws IOException {
+    for (int i = 0; i < column.length; i++) {
+      long value = column[i] - predict(column, i);
+      // zigzag encode so that small negative differences are small unsigned values
+      long unsigned = (value << 1) ^ (value >> 63);
+      while ((unsigned & ~0x7FL) != 0) {
+        output.writeByte((int) ((unsigned & 0x7F) | 0x80));
+        unsigned >>>= 7;
+      }
+      output.writeByte((int) unsigned);
+    }
+  }
+
+  /**
+   * Reads a column written by {@link #writeColumn(DataOutputStream, long[])}.
+   */
+  private static void readColumn(ByteBuffer buffer, long[] column) {
+    for (int i = 0; i < column.length; i++) {
+      long unsigned = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = buffer.get();
+        unsigned |= (long) (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+      column[i] = predict(column, i) + ((unsigned >>> 1) ^ -(unsigned & 1));
+    }
+  }
+
+  /**
+   * Predicts a value by extending the line through the previous two values.
+   */
+  private static long predict(long[] column, int i) {
+    if (i == 0) {
+      return 0;
+    }
+    return i == 1 ? column[0] : 2 * column[i - 1] - column[i - 2];
+  }
+
+  /**
+   * Quantizes a column of values into the given array.
+   */
+  private static long[] quantize(double[] values, double scale, long[] column) {
+    Arrays.setAll(column, i -> Math.round(values[i] * scale));
+    return column;
+  }
+
+  /**
+   * Quantizes a column of values into the given array.
+   */
+  private static long[] quantize(float[] values, double scale, long[] column) {
+    Arrays.setAll(column, i -> Math.round(values[i] * scale));
+    return column;
+  }
+
+  /**
+   * Reverses the quantization of a column of values into the given array.
+   */
+  private static void dequantize(long[] column, double scale, double[] values) {
+    Arrays.setAll(values, i -> column[i] / scale);
+  }
+
+  /**
+   * Reverses the quantization of a column of values into the given array.
+   */
+  private static void dequantize(long[] column, double scale, float[] values) {
+    for (int i = 0; i < column.length; i++) {
+      values[i] = (float) (column[i] / scale);
+    }
+  }
+
+  /**
+   * The position and orientation of the plane at a point on the flight path.
+   */
+  static class State {
+
+    double x;
+    double y;
+    double z;
+    float heading;
+    float pitch;
+    float roll;
+  }
+}
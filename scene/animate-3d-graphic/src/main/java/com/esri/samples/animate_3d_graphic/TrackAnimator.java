@@ -0,0 +1,216 @@
+/*
+ * Copyright 2016 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.animate_3d_graphic;
+
+import java.util.Arrays;
+
+import javafx.animation.AnimationTimer;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.SpatialReferences;
+import com.esri.arcgisruntime.mapping.view.Graphic;
+
+/**
+ * Animates any number of graphics along preloaded flight paths, from a single {@link AnimationTimer} so that all the
+ * graphics are advanced together once per pulse.
+ * <p>
+ * Each graphic moves along its own path from its own starting step, by the time since the previous pulse. The time taken
+ * to update the graphics in each pulse, and the rate of pulses, are measured so that the number of moving graphics a
+ * scene view can sustain can be seen.
+ */
+class TrackAnimator {
+
+  // the time between the steps of a path at a speed of 1, in nanoseconds
+  private static final double STEP_DURATION = 20_000_000;
+
+  // the time over which the frame measurements are averaged, in nanoseconds
+  private static final long MEASUREMENT_INTERVAL = 1_000_000_000;
+
+  private final AnimationTimer timer = new AnimationTimer() {
+    @Override
+    public void handle(long now) {
+      pulse(now);
+    }
+  };
+
+  private Graphic[] graphics = new Graphic[16];
+  private MissionRecording[] paths = new MissionRecording[16];
+  private double[] steps = new double[16];
+  private int size;
+
+  private final MissionRecording.State state = new MissionRecording.State();
+  private double speed = 1;
+  private Runnable onFrame;
+  private long lastFrameTime;
+
+  private long measurementStart;
+  private int measuredFrames;
+  private long measuredUpdateTime;
+  private final ReadOnlyDoubleWrapper frameTime = new ReadOnlyDoubleWrapper();
+  private final ReadOnlyDoubleWrapper framesPerSecond = new ReadOnlyDoubleWrapper();
+
+  /**
+   * Adds a graphic to animate along a path. The graphic's renderer should use the HEADING, PITCH and ROLL attributes.
+   *
+   * @param graphic the graphic
+   * @param path the path to move the graphic along
+   * @param step the fractional step of the path to start the graphic at
+   */
+  void add(Graphic graphic, MissionRecording path, double step) {
+    if (size == graphics.length) {
+      graphics = Arrays.copyOf(graphics, size * 2);
+      paths = Arrays.copyOf(paths, size * 2);
+      steps = Arrays.copyOf(steps, size * 2);
+    }
+    graphics[size] = graphic;
+    paths[size] = path;
+    steps[size] = step;
+    size++;
+  }
+
+  /**
+   * Removes all the graphics from the animator, leaving them where they are.
+   */
+  void clear() {
+    Arrays.fill(graphics, 0, size, null);
+    Arrays.fill(paths, 0, size, null);
+    size = 0;
+  }
+
+  /**
+   * Gets the step of the path that a graphic has reached.
+   *
+   * @param index the index of the graphic, in the order the graphics were added
+   * @return the fractional step
+   */
+  double getStep(int index) {
+    return steps[index];
+  }
+
+  /**
+   * Sets how many times faster than the recorded step spacing the graphics move.
+   *
+   * @param speed the speed multiplier
+   */
+  void setSpeed(double speed) {
+    this.speed = speed;
+  }
+
+  /**
+   * Sets an action run after the graphics have been updated in each pulse.
+   *
+   * @param onFrame the action, or null for none
+   */
+  void setOnFrame(Runnable onFrame) {
+    this.onFrame = onFrame;
+  }
+
+  /**
+   * Starts moving the graphics, measuring the first pulse from when it is started.
+   */
+  void start() {
+    lastFrameTime = 0;
+    measurementStart = 0;
+    timer.start();
+  }
+
+  /**
+   * Stops moving the graphics.
+   */
+  void stop() {
+    timer.stop();
+  }
+
+  /**
+   * Updates all graphics to their current steps without moving them, for example after they have been added.
+   */
+  void render() {
+    for (int i = 0; i < size; i++) {
+      update(i);
+    }
+  }
+
+  /**
+   * Mean time taken to update the graphics in a pulse, over the last second.
+   *
+   * @return the frame time property, in milliseconds
+   */
+  ReadOnlyDoubleProperty frameTimeProperty() {
+    return frameTime.getReadOnlyProperty();
+  }
+
+  /**
+   * Number of pulses in the last second.
+   *
+   * @return the frames per second property
+   */
+  ReadOnlyDoubleProperty framesPerSecondProperty() {
+    return framesPerSecond.getReadOnlyProperty();
+  }
+
+  /**
+   * Advances every graphic by the time since the previous pulse.
+   */
+  private void pulse(long now) {
+    long updateStart = System.nanoTime();
+    if (lastFrameTime > 0) {
+      double elapsedSteps = (now - lastFrameTime) * speed / STEP_DURATION;
+      for (int i = 0; i < size; i++) {
+        steps[i] = (steps[i] + elapsedSteps) % paths[i].size;
+        update(i);
+      }
+    } else {
+      render();
+      measurementStart = now;
+    }
+    lastFrameTime = now;
+    if (onFrame != null) {
+      onFrame.run();
+    }
+    measure(now, System.nanoTime() - updateStart);
+  }
+
+  /**
+   * Moves a graphic to its current step and orients it along its path.
+   */
+  private void update(int index) {
+    paths[index].interpolate(steps[index], state);
+    Graphic graphic = graphics[index];
+    graphic.setGeometry(new Point(state.x, state.y, state.z, SpatialReferences.getWgs84()));
+    graphic.getAttributes().put("HEADING", state.heading);
+    graphic.getAttributes().put("PITCH", state.pitch);
+    graphic.getAttributes().put("ROLL", state.roll);
+  }
+
+  /**
+   * Records the time taken by a pulse, publishing the averages once per interval.
+   */
+  private void measure(long now, long updateTime) {
+    measuredFrames++;
+    measuredUpdateTime += updateTime;
+    long elapsed = now - measurementStart;
+    if (elapsed >= MEASUREMENT_INTERVAL) {
+      frameTime.set(measuredUpdateTime / 1e6 / measuredFrames);
+      framesPerSecond.set(measuredFrames * 1e9 / elapsed);
+      measurementStart = now;
+      measuredFrames = 0;
+      measuredUpdateTime = 0;
+    }
+  }
+}
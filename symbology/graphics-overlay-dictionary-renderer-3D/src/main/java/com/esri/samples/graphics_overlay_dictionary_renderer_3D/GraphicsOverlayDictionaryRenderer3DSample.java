@@ -17,31 +17,21 @@
 package com.esri.samples.graphics_overlay_dictionary_renderer_3D;
 
 import javafx.application.Application;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
-import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.File;
-import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import com.esri.arcgisruntime.ArcGISRuntimeEnvironment;
 import com.esri.arcgisruntime.loadable.LoadStatus;
-import com.esri.arcgisruntime.geometry.GeometryEngine;
-import com.esri.arcgisruntime.geometry.Multipoint;
-import com.esri.arcgisruntime.geometry.Point;
-import com.esri.arcgisruntime.geometry.PointCollection;
-import com.esri.arcgisruntime.geometry.SpatialReference;
-import com.esri.arcgisruntime.geometry.SpatialReferences;
 import com.esri.arcgisruntime.mapping.ArcGISScene;
 import com.esri.arcgisruntime.mapping.BasemapStyle;
 import com.esri.arcgisruntime.mapping.view.Camera;
-import com.esri.arcgisruntime.mapping.view.Graphic;
 import com.esri.arcgisruntime.mapping.view.GraphicsOverlay;
 import com.esri.arcgisruntime.mapping.view.SceneView;
 import com.esri.arcgisruntime.portal.Portal;
@@ -52,6 +42,7 @@ import com.esri.arcgisruntime.symbology.DictionarySymbolStyle;
 public class GraphicsOverlayDictionaryRenderer3DSample extends Application {
 
   private SceneView sceneView;
+  private MessageGraphicsLoader messageGraphicsLoader;
 
   @Override
   public void start(Stage stage) {
@@ -101,21 +92,31 @@ public class GraphicsOverlayDictionaryRenderer3DSample extends Application {
               var dictionaryRenderer = new DictionaryRenderer(dictionarySymbolStyle);
               graphicsOverlay.setRenderer(dictionaryRenderer);
 
-              // parse graphic attributes from an XML file following the mil2525d specification
-              try {
-                List<Map<String, Object>> messages = parseMessages();
-
-                // create graphics with attributes and add to graphics overlay
-                List<Graphic> graphics = messages.stream()
-                  .map(GraphicsOverlayDictionaryRenderer3DSample::createGraphic)
-                  .collect(Collectors.toList());
-                graphicsOverlay.getGraphics().addAll(graphics);
-                // set the viewpoint to the extent of the graphics overlay
+              // read graphics from an XML file following the mil2525d specification in the background,
+              // adding them to the graphics overlay in chunks as they are read
+              File mil2525dFile = new File(System.getProperty("data.dir"), "./samples-data/xml/Mil2525DMessages.xml");
+              messageGraphicsLoader = new MessageGraphicsLoader(mil2525dFile, graphicsOverlay);
+
+              // show the progress of reading the file
+              var progressBar = new ProgressBar();
+              progressBar.progressProperty().bind(messageGraphicsLoader.progressProperty());
+              StackPane.setAlignment(progressBar, Pos.BOTTOM_CENTER);
+              StackPane.setMargin(progressBar, new Insets(0, 0, 30, 0));
+              stackPane.getChildren().add(progressBar);
+
+              // set the viewpoint to the center of all the graphics once they have been added
+              messageGraphicsLoader.setOnSucceeded(e -> {
+                stackPane.getChildren().remove(progressBar);
                 sceneView.setViewpointCamera(new Camera((graphicsOverlay.getExtent().getCenter()), 15000, 0, 70, 0));
-
-              } catch (Exception e) {
-                e.printStackTrace();
-              }
+              });
+              messageGraphicsLoader.setOnFailed(e -> {
+                stackPane.getChildren().remove(progressBar);
+                messageGraphicsLoader.getException().printStackTrace();
+              });
+
+              var thread = new Thread(messageGraphicsLoader);
+              thread.setDaemon(true);
+              thread.start();
             } else {
               new Alert(Alert.AlertType.ERROR,
                 "Failed to load symbol style " + dictionarySymbolStyle.getLoadError().getCause().getMessage()).show();
@@ -138,70 +139,15 @@ public class GraphicsOverlayDictionaryRenderer3DSample extends Application {
     }
   }
 
-  /**
-   * Parses a XML file following the mil2525d specification and creates a message for each block of attributes found.
-   */
-  private List<Map<String, Object>> parseMessages() throws Exception {
-
-    File mil2525dFile = new File(System.getProperty("data.dir"), "./samples-data/xml/Mil2525DMessages.xml");
-    var documentBuilderFactory = DocumentBuilderFactory.newInstance();
-    var documentBuilder = documentBuilderFactory.newDocumentBuilder();
-    var document = documentBuilder.parse(mil2525dFile);
-    document.getDocumentElement().normalize();
-
-    final List<Map<String, Object>> messages = new ArrayList<>();
-
-    for (int i = 0; i < document.getElementsByTagName("message").getLength() ; i++) {
-      Node message = document.getElementsByTagName("message").item(i);
-
-      Map<String, Object> attributes = new HashMap<>();
-
-      NodeList childNodes = message.getChildNodes();
-      for (int j = 0; j < childNodes.getLength() ; j++) {
-        attributes.put(childNodes.item(j).getNodeName(), childNodes.item(j).getTextContent());
-      }
-      messages.add(attributes);
-    }
-
-    return messages;
-  }
-
-  /**
-   * Creates a graphic using a symbol dictionary and the attributes that were passed.
-   *
-   * @param attributes tells symbol dictionary what symbol to apply to graphic
-   */
-  private static Graphic createGraphic(Map<String, Object> attributes) {
-    // get spatial reference
-    int wkid = Integer.parseInt((String) attributes.get("_wkid"));
-    SpatialReference sr = SpatialReference.create(wkid);
-
-    // get points from the coordinate string in the "_control_points" attribute (delimited with ';')
-    String[] coordinates = ((String) attributes.get("_control_points")).split(";");
-    List<Point> points = Stream.of(coordinates)
-        .map(cs -> cs.split(",")) // get each ordinate
-        .map(c -> new Point(Double.parseDouble(c[0]), Double.parseDouble(c[1]), sr))// create a Point with the ordinates
-        .map(c -> (Point) GeometryEngine.project(c, SpatialReferences.getWgs84())) // project to display in scene
-        .collect(Collectors.toList());
-
-    // create a point collection with the points
-    var pointCollection = new PointCollection(SpatialReferences.getWgs84());
-    pointCollection.addAll(points);
-
-    // remove unneeded attributes, use geometry for graphic positioning instead
-    attributes.remove("_control_points");
-    attributes.remove("_wkid");
-
-    // return a graphic with a multipoint geometry (some have more than one point)
-    return new Graphic(new Multipoint(pointCollection), attributes);
-  }
-
   /**
    * Stops and releases all resources used in application.
    */
   @Override
   public void stop() {
 
+    if (messageGraphicsLoader != null) {
+      messageGraphicsLoader.cancel();
+    }
     if (sceneView != null) {
       sceneView.dispose();
     }
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2022 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.graphics_overlay_dictionary_renderer_3D;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.Multipoint;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.PointCollection;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+import com.esri.arcgisruntime.geometry.SpatialReferences;
+import com.esri.arcgisruntime.mapping.view.Graphic;
+import com.esri.arcgisruntime.mapping.view.GraphicsOverlay;
+
+/**
+ * Reads a XML file following the mil2525d specification in the background, and adds a graphic to a graphics overlay
+ * for each message in the file.
+ * <p>
+ * The file is read one message at a time with a streaming parser, rather than loaded into a document, and the graphics
+ * are added to the graphics overlay in chunks as they are read. Only a couple of chunks are waiting to be added at any
+ * time, so the first symbols are displayed as soon as the first chunk is read, and memory use does not grow with the
+ * size of the file. The graphics are projected to WGS 84 for display in a scene as they are read, so that no work
+ * other than adding them is done on the JavaFX application thread. The progress of the task is the fraction of the
+ * file read, and its value is the number of graphics added so far.
+ */
+class MessageGraphicsLoader extends Task<Integer> {
+
+  // the number of graphics added to the graphics overlay at once
+  private static final int CHUNK_SIZE = 500;
+
+  // the number of chunks that can be waiting to be added to the graphics overlay
+  private static final int MAX_PENDING_CHUNKS = 2;
+
+  private final File file;
+  private final GraphicsOverlay graphicsOverlay;
+  private final Semaphore pendingChunks = new Semaphore(MAX_PENDING_CHUNKS);
+  private final Map<Integer, SpatialReference> spatialReferences = new HashMap<>();
+
+  /**
+   * Creates a loader for a message file.
+   *
+   * @param file the XML file of messages
+   * @param graphicsOverlay the graphics overlay to add the graphics to
+   */
+  MessageGraphicsLoader(File file, GraphicsOverlay graphicsOverlay) {
+    this.file = file;
+    this.graphicsOverlay = graphicsOverlay;
+  }
+
+  @Override
+  protected Integer call() throws Exception {
+    var inputFactory = XMLInputFactory.newInstance();
+    // the messages are plain elements, so there is no need to resolve a DTD or external entities
+    inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+
+    long fileSize = file.length();
+    int count = 0;
+    try (var fileInputStream = new FileInputStream(file);
+         var inputStream = new BufferedInputStream(fileInputStream, 1 << 16)) {
+      XMLStreamReader reader = inputFactory.createXMLStreamReader(inputStream);
+      try {
+        List<Graphic> chunk = new ArrayList<>(CHUNK_SIZE);
+        while (reader.hasNext() && !isCancelled()) {
+          if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("message")) {
+            chunk.add(createGraphic(readMessage(reader)));
+            if (chunk.size() == CHUNK_SIZE) {
+              addGraphics(chunk);
+              count += chunk.size();
+              updateValue(count);
+              chunk = new ArrayList<>(CHUNK_SIZE);
+              // the position of the file is where the buffer has read up to, which is close enough for progress
+              updateProgress(fileInputStream.getChannel().position(), fileSize);
+            }
+          }
+        }
+        if (!chunk.isEmpty() && !isCancelled()) {
+          addGraphics(chunk);
+          count += chunk.size();
+          updateValue(count);
+        }
+      } finally {
+        reader.close();
+      }
+    }
+    updateProgress(fileSize, fileSize);
+    return count;
+  }
+
+  /**
+   * Reads the attributes of a message, where the name of each child element is the key and its text is the value.
+   * The reader is left at the end of the message.
+   */
+  private static Map<String, Object> readMessage(XMLStreamReader reader) throws Exception {
+    Map<String, Object> attributes = new HashMap<>();
+    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+      String key = reader.getLocalName();
+      attributes.put(key, reader.getElementText());
+    }
+    return attributes;
+  }
+
+  /**
+   * Creates a graphic using a symbol dictionary and the attributes that were passed.
+   *
+   * @param attributes tells symbol dictionary what symbol to apply to graphic
+   */
+  private Graphic createGraphic(Map<String, Object> attributes) {
+
+    // get spatial reference, which is shared by all the messages with the same wkid
+    int wkid = Integer.parseInt(((String) attributes.get("_wkid")).trim());
+    SpatialReference sr = spatialReferences.computeIfAbsent(wkid, SpatialReference::create);
+
+    // get points from the coordinate string in the "_control_points" attribute (delimited with ';'),
+    // projected to display in scene
+    var pointCollection = new PointCollection(SpatialReferences.getWgs84());
+    for (String coordinates : ((String) attributes.get("_control_points")).split(";")) {
+      String[] c = coordinates.split(",");
+      var point = new Point(Double.parseDouble(c[0]), Double.parseDouble(c[1]), sr);
+      pointCollection.add((Point) GeometryEngine.project(point, SpatialReferences.getWgs84()));
+    }
+
+    // remove unneeded attributes, use geometry for graphic positioning instead
+    attributes.remove("_control_points");
+    attributes.remove("_wkid");
+
+    // return a graphic with a multipoint geometry (some have more than one point)
+    return new Graphic(new Multipoint(pointCollection), attributes);
+  }
+
+  /**
+   * Adds a chunk of graphics to the graphics overlay on the JavaFX application thread, waiting first if too many
+   * chunks are still waiting to be added.
+   */
+  private void addGraphics(List<Graphic> chunk) throws InterruptedException {
+    pendingChunks.acquire();
+    Platform.runLater(() -> {
+      try {
+        if (!isCancelled()) {
+          graphicsOverlay.getGraphics().addAll(chunk);
+        }
+      } finally {
+        pendingChunks.release();
+      }
+    });
+  }
+}
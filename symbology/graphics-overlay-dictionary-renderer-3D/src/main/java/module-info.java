@@ -27,6 +27,7 @@ module com.esri.samples.graphics_overlay_dictionary_renderer_3D {
 
   // require other modules that the application uses
   requires java.sql;
+  requires java.xml;
 
   exports com.esri.samples.graphics_overlay_dictionary_renderer_3D;
 }
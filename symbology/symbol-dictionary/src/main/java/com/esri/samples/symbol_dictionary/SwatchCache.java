@@ -0,0 +1,215 @@
+/*
+ * Copyright 2017 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.symbol_dictionary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.imageio.ImageIO;
+
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.symbology.SymbolStyleSearchResult;
+
+/**
+ * A cache of symbol swatch images, so that a symbol shown again, for example when going back to a page of search
+ * results, does not have its symbol fetched and its swatch drawn again.
+ * <p>
+ * Swatches are keyed by the style, the symbol key and the swatch size. The most recently used swatches are kept in
+ * memory up to a budget of bytes, and the least recently used are dropped once the budget is exceeded. Optionally,
+ * swatches are also written as PNG files to a directory, so that they are read from disk rather than drawn again once
+ * they have been dropped from memory, or when the sample is run again. A swatch requested while it is still being
+ * created shares the request already in progress.
+ */
+class SwatchCache {
+
+  private final String styleId;
+  private final long maxBytes;
+  private final Path directory;
+  private final ExecutorService diskExecutor;
+
+  // the swatches in memory, in order of least to most recently used
+  private final LinkedHashMap<String, Image> images = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<String, CompletableFuture<Image>> pending = new HashMap<>();
+  private long bytes;
+
+  /**
+   * Creates a swatch cache for the symbols of a style.
+   *
+   * @param styleId identifies the style, and should change if the style file changes so that swatches on disk are not
+   *                reused
+   * @param maxBytes the number of bytes of swatch pixels to keep in memory
+   * @param directory the directory to keep PNG files of the swatches in, or null to keep them in memory only
+   */
+  SwatchCache(String styleId, long maxBytes, Path directory) {
+    this.styleId = styleId;
+    this.maxBytes = maxBytes;
+    this.directory = directory;
+    if (directory != null) {
+      diskExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        var thread = new Thread(runnable, "swatch-cache");
+        thread.setDaemon(true);
+        return thread;
+      });
+    } else {
+      diskExecutor = null;
+    }
+  }
+
+  /**
+   * Gets the swatch of a symbol, from the cache if possible, otherwise by creating it. The future may complete on any
+   * thread.
+   *
+   * @param result the search result of the symbol
+   * @param size the width and height of the swatch
+   * @return a future that completes with the swatch image
+   */
+  synchronized CompletableFuture<Image> getSwatchAsync(SymbolStyleSearchResult result, int size) {
+    String key = result.getKey() + "/" + size;
+    Image image = images.get(key);
+    if (image != null) {
+      return CompletableFuture.completedFuture(image);
+    }
+    CompletableFuture<Image> swatch = pending.get(key);
+    if (swatch == null) {
+      // read the swatch from disk if it was written before, otherwise create it and write it to disk
+      CompletableFuture<Image> stored = directory == null ? CompletableFuture.completedFuture(null) :
+        CompletableFuture.supplyAsync(() -> read(key), diskExecutor);
+      swatch = stored.thenCompose(storedImage -> storedImage != null ? CompletableFuture.completedFuture(storedImage) :
+        createSwatchAsync(result, size).thenApply(createdImage -> {
+          if (directory != null) {
+            diskExecutor.execute(() -> write(key, createdImage));
+          }
+          return createdImage;
+        }));
+      pending.put(key, swatch);
+      swatch.whenComplete((createdImage, ex) -> completed(key, createdImage));
+    }
+    return swatch;
+  }
+
+  /**
+   * Starts getting the swatches of symbols that are likely to be shown soon, such as those on the next page of
+   * results, so that they are ready when they are shown.
+   *
+   * @param results the search results of the symbols
+   * @param size the width and height of the swatches
+   */
+  void prefetch(List<SymbolStyleSearchResult> results, int size) {
+    results.forEach(result -> getSwatchAsync(result, size));
+  }
+
+  /**
+   * Gets a symbol and creates its swatch.
+   */
+  private static CompletableFuture<Image> createSwatchAsync(SymbolStyleSearchResult result, int size) {
+    return result.getSymbolAsync().toCompletableFuture()
+      .thenCompose(symbol ->
+        symbol.createSwatchAsync(size, size, Color.color(1.0, 1.0, 1.0, 0.0), new Point(0, 0, 0)).toCompletableFuture());
+  }
+
+  /**
+   * Moves a swatch that has been created from the pending requests to memory, dropping the least recently used
+   * swatches if the memory budget is exceeded. A swatch that failed is only removed, so it is created again next time.
+   */
+  private synchronized void completed(String key, Image image) {
+    pending.remove(key);
+    if (image == null || images.containsKey(key)) {
+      return;
+    }
+    images.put(key, image);
+    bytes += sizeOf(image);
+    Iterator<Image> leastRecentlyUsed = images.values().iterator();
+    while (bytes > maxBytes && leastRecentlyUsed.hasNext()) {
+      bytes -= sizeOf(leastRecentlyUsed.next());
+      leastRecentlyUsed.remove();
+    }
+  }
+
+  /**
+   * Reads the PNG file of a swatch.
+   *
+   * @return the swatch, or null if there is no file for it or it cannot be read
+   */
+  private Image read(String key) {
+    Path file = fileOf(key);
+    if (!Files.exists(file)) {
+      return null;
+    }
+    try (InputStream inputStream = Files.newInputStream(file)) {
+      var image = new Image(inputStream);
+      return image.isError() ? null : image;
+    } catch (IOException e) {
+      // create the swatch again instead
+      return null;
+    }
+  }
+
+  /**
+   * Writes a swatch to its PNG file. The file is written under a temporary name first, so that a partly written file is
+   * never read.
+   */
+  private void write(String key, Image image) {
+    Path file = fileOf(key);
+    try {
+      Files.createDirectories(directory);
+      Path temporaryFile = Files.createTempFile(directory, "swatch", ".tmp");
+      ImageIO.write(SwingFXUtils.fromFXImage(image, null), "png", temporaryFile.toFile());
+      Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      // the swatch is still kept in memory
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Gets the file of a swatch, named from a hash of the style and the swatch key.
+   */
+  private Path fileOf(String key) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest((styleId + "/" + key).getBytes(StandardCharsets.UTF_8));
+      return directory.resolve(HexFormat.of().formatHex(hash) + ".png");
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform supports SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Gets the number of bytes of pixels in an image.
+   */
+  private static long sizeOf(Image image) {
+    return (long) image.getWidth() * (long) image.getHeight() * 4;
+  }
+}
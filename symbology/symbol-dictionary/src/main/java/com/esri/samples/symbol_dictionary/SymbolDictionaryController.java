@@ -18,23 +18,25 @@ package com.esri.samples.symbol_dictionary;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ListChangeListener;
-import javafx.collections.ObservableList;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Button;
 import javafx.scene.control.ListView;
 import javafx.scene.control.Pagination;
 import javafx.scene.control.TextField;
 import javafx.scene.text.Text;
 
+import com.esri.arcgisruntime.loadable.LoadStatus;
 import com.esri.arcgisruntime.symbology.DictionarySymbolStyle;
 import com.esri.arcgisruntime.symbology.SymbolStyleSearchParameters;
-import com.esri.arcgisruntime.symbology.SymbolStyleSearchResult;
 
 public class SymbolDictionaryController {
 
@@ -45,10 +47,14 @@ public class SymbolDictionaryController {
   @FXML private TextField keyField;
   @FXML private Text searchResultsFound;
   @FXML private Pagination resultPages;
+  @FXML private Button searchButton;
 
-  private ObservableList<SymbolStyleSearchResult> results;
+  private SymbolIndex symbolIndex;
   private DictionarySymbolStyle dictionarySymbol;
+  private SwatchCache swatchCache;
   private static final int MAX_RESULTS_PER_PAGE = 20;
+  // the number of bytes of symbol swatches kept in memory, enough for a few thousand swatches
+  private static final long SWATCH_CACHE_BYTES = 16L * 1024 * 1024;
 
   public void initialize() {
     // loads a specification for the symbol dictionary
@@ -56,25 +62,42 @@ public class SymbolDictionaryController {
     dictionarySymbol = DictionarySymbolStyle.createFromFile(stylxFile.getAbsolutePath());
     dictionarySymbol.loadAsync();
 
-    // initialize result list
-    results = FXCollections.observableArrayList();
-
-    // add listener to update pagination control when results change
-    results.addListener((ListChangeListener<SymbolStyleSearchResult>) e -> {
-      int resultSize = results.size();
-      resultPages.setPageCount(resultSize / MAX_RESULTS_PER_PAGE + 1);
-      resultPages.setCurrentPageIndex(0);
-      resultPages.setPageFactory(pageIndex -> {
-        ListView<SymbolView> resultsList = new ListView<>();
-        int start = pageIndex * MAX_RESULTS_PER_PAGE;
-        List<SymbolView> resultViews = results.subList(start, Math.min(start + MAX_RESULTS_PER_PAGE, results.size()))
-          .stream()
-          .map(SymbolView::new)
-          .collect(Collectors.toList());
-        resultsList.getItems().addAll(resultViews);
-        return resultsList;
-      });
+    // cache the symbol swatches in memory and as files in a temporary directory, identifying the style by its file
+    // and when it was last modified so that swatches of an older version of the style are not reused
+    String styleId = stylxFile.getAbsolutePath() + "@" + stylxFile.lastModified();
+    Path swatchDirectory = Path.of(System.getProperty("java.io.tmpdir"), "symbol_dictionary_swatches");
+    swatchCache = new SwatchCache(styleId, SWATCH_CACHE_BYTES, swatchDirectory);
+
+    // once the style has loaded, get all of its symbols and index them in the background, so that searches are
+    // answered from the index as the user types rather than by searching the style
+    dictionarySymbol.addDoneLoadingListener(() -> {
+      if (dictionarySymbol.getLoadStatus() == LoadStatus.LOADED) {
+        dictionarySymbol.searchSymbolsAsync(new SymbolStyleSearchParameters()).toCompletableFuture()
+          .thenApplyAsync(SymbolIndex::new)
+          .whenCompleteAsync((index, ex) -> {
+            if (ex == null) {
+              symbolIndex = index;
+              searchButton.setDisable(false);
+              // show the results of any text typed while the index was being built
+              if (getSearchText().values().stream().anyMatch(text -> !text.isBlank())) {
+                handleSearchAction();
+              }
+            } else {
+              new Alert(AlertType.ERROR, "Error indexing symbol dictionary.").show();
+            }
+          }, Platform::runLater);
+      } else {
+        new Alert(AlertType.ERROR, "Error loading symbol dictionary.").show();
+      }
     });
+
+    // search as the user types in any of the search fields
+    Stream.of(nameField, tagField, symbolClassField, categoryField, keyField).forEach(field ->
+      field.textProperty().addListener((observable, oldText, newText) -> {
+        if (symbolIndex != null) {
+          handleSearchAction();
+        }
+      }));
   }
 
   /**
@@ -82,27 +105,53 @@ public class SymbolDictionaryController {
    */
   @FXML
   private void handleSearchAction() {
-    // get parameters from input fields
-    var searchParameters = new SymbolStyleSearchParameters();
-    searchParameters.getNames().add(nameField.getText());
-    searchParameters.getTags().add(tagField.getText());
-    searchParameters.getSymbolClasses().add(symbolClassField.getText());
-    searchParameters.getCategories().add(categoryField.getText());
-    searchParameters.getKeys().add(keyField.getText());
-
-    // search for any matching symbols
-    dictionarySymbol.searchSymbolsAsync(searchParameters).toCompletableFuture().whenComplete(
-      (searchResults, ex) -> {
-        if (ex == null) {
-          // update the result list
-          searchResultsFound.setText(String.valueOf(searchResults.size()));
-          results.clear();
-          results.addAll(searchResults);
-        } else {
-          // display an error if the symbol search completed with an exception
-          new Alert(AlertType.ERROR, "Error searching symbol dictionary.").show();
-        }
-      });
+    // search the index for symbols matching the text of every field
+    SymbolIndex.Results results = symbolIndex.search(getSearchText());
+    searchResultsFound.setText(String.valueOf(results.size()));
+    showResults(results);
+  }
+
+  /**
+   * Gets the text of each search field.
+   */
+  private Map<SymbolIndex.SearchField, String> getSearchText() {
+    Map<SymbolIndex.SearchField, String> searchText = new EnumMap<>(SymbolIndex.SearchField.class);
+    searchText.put(SymbolIndex.SearchField.NAME, nameField.getText());
+    searchText.put(SymbolIndex.SearchField.TAG, tagField.getText());
+    searchText.put(SymbolIndex.SearchField.SYMBOL_CLASS, symbolClassField.getText());
+    searchText.put(SymbolIndex.SearchField.CATEGORY, categoryField.getText());
+    searchText.put(SymbolIndex.SearchField.KEY, keyField.getText());
+    return searchText;
+  }
+
+  /**
+   * Updates the pagination control to show search results, only creating the views of the page shown.
+   *
+   * @param results the results to show, or null to show none
+   */
+  private void showResults(SymbolIndex.Results results) {
+    int resultSize = results == null ? 0 : results.size();
+    resultPages.setPageCount(resultSize / MAX_RESULTS_PER_PAGE + 1);
+    resultPages.setCurrentPageIndex(0);
+    resultPages.setPageFactory(pageIndex -> {
+      ListView<SymbolView> resultsList = new ListView<>();
+      if (results == null) {
+        return resultsList;
+      }
+      int start = pageIndex * MAX_RESULTS_PER_PAGE;
+      List<SymbolView> resultViews = results.page(start, MAX_RESULTS_PER_PAGE)
+        .stream()
+        .map(result -> new SymbolView(result, swatchCache))
+        .collect(Collectors.toList());
+      resultsList.getItems().addAll(resultViews);
+
+      // get the swatches of the next page in the background, so they are ready if the user moves on to it
+      swatchCache.prefetch(results.page(start + MAX_RESULTS_PER_PAGE, MAX_RESULTS_PER_PAGE)
+        .stream()
+        .filter(SymbolView::hasSwatch)
+        .collect(Collectors.toList()), SymbolView.SWATCH_SIZE);
+      return resultsList;
+    });
   }
 
   /**
@@ -115,7 +164,7 @@ public class SymbolDictionaryController {
     symbolClassField.clear();
     categoryField.clear();
     keyField.clear();
-    results.clear();
+    showResults(null);
     searchResultsFound.setText("");
   }
 }
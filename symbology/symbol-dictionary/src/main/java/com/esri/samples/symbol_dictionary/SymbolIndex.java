@@ -0,0 +1,200 @@
+/*
+ * Copyright 2017 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.symbol_dictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import com.esri.arcgisruntime.symbology.SymbolStyleSearchResult;
+
+/**
+ * An in-memory index of the symbols of a style, for searching the symbols as the user types.
+ * <p>
+ * The name, tags, symbol class, category and key of each symbol are split into lower case words, and each field has a
+ * sorted list of its distinct words with the symbols containing each word. A word typed in a search field matches
+ * every word of the field that starts with it, found by a binary search of the sorted words, and the symbols matching
+ * every word in every field are found by combining sets of symbol numbers. A search takes well under a millisecond
+ * even for the thousands of symbols in a military style, and finds the numbers of the matching symbols only, so a page
+ * of results is got from the matches without creating the rest.
+ */
+class SymbolIndex {
+
+  /**
+   * The fields of the symbols that can be searched.
+   */
+  enum SearchField {
+    NAME, TAG, SYMBOL_CLASS, CATEGORY, KEY
+  }
+
+  // the characters between words
+  private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+  private final List<SymbolStyleSearchResult> symbols;
+  private final FieldIndex[] fieldIndexes = new FieldIndex[SearchField.values().length];
+
+  /**
+   * Creates an index of symbols.
+   *
+   * @param symbols all the symbols of a style, such as the results of a search with empty search parameters
+   */
+  SymbolIndex(List<SymbolStyleSearchResult> symbols) {
+    this.symbols = List.copyOf(symbols);
+    fieldIndexes[SearchField.NAME.ordinal()] = new FieldIndex(this.symbols, SymbolStyleSearchResult::getName);
+    fieldIndexes[SearchField.TAG.ordinal()] = new FieldIndex(this.symbols, symbol -> String.join(" ", symbol.getTags()));
+    fieldIndexes[SearchField.SYMBOL_CLASS.ordinal()] =
+      new FieldIndex(this.symbols, SymbolStyleSearchResult::getSymbolClass);
+    fieldIndexes[SearchField.CATEGORY.ordinal()] = new FieldIndex(this.symbols, SymbolStyleSearchResult::getCategory);
+    fieldIndexes[SearchField.KEY.ordinal()] = new FieldIndex(this.symbols, SymbolStyleSearchResult::getKey);
+  }
+
+  /**
+   * Gets the number of symbols in the index.
+   *
+   * @return the number of symbols
+   */
+  int size() {
+    return symbols.size();
+  }
+
+  /**
+   * Finds the symbols where, for every field with search text, each word of the text is the start of a word of the
+   * field. Fields with no search text match every symbol.
+   *
+   * @param searchText the text to search each field for, which can be missing or blank for any field
+   * @return the matching symbols, in the order of the symbols given to the index
+   */
+  Results search(Map<SearchField, String> searchText) {
+    var matches = new BitSet(symbols.size());
+    matches.set(0, symbols.size());
+    searchText.forEach((field, text) -> {
+      for (String word : words(text)) {
+        matches.and(fieldIndexes[field.ordinal()].startingWith(word));
+      }
+    });
+    return new Results(matches.stream().toArray());
+  }
+
+  /**
+   * Splits text into lower case words of letters and digits.
+   */
+  private static List<String> words(String text) {
+    List<String> words = new ArrayList<>();
+    if (text != null) {
+      for (String word : WORD_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+        if (!word.isEmpty()) {
+          words.add(word);
+        }
+      }
+    }
+    return words;
+  }
+
+  /**
+   * The symbols matching a search, which are only got from the index a page at a time.
+   */
+  class Results {
+
+    private final int[] matches;
+
+    private Results(int[] matches) {
+      this.matches = matches;
+    }
+
+    /**
+     * Gets the number of matching symbols.
+     *
+     * @return the number of symbols
+     */
+    int size() {
+      return matches.length;
+    }
+
+    /**
+     * Gets a page of the matching symbols.
+     *
+     * @param start the index of the first symbol of the page
+     * @param count the maximum number of symbols in the page
+     * @return the symbols, which are fewer than the count at the end of the results
+     */
+    List<SymbolStyleSearchResult> page(int start, int count) {
+      int end = Math.min(start + count, matches.length);
+      List<SymbolStyleSearchResult> page = new ArrayList<>(Math.max(0, end - start));
+      for (int i = start; i < end; i++) {
+        page.add(symbols.get(matches[i]));
+      }
+      return page;
+    }
+  }
+
+  /**
+   * The sorted distinct words of a field, with the numbers of the symbols containing each word in ascending order.
+   */
+  private static class FieldIndex {
+
+    private final String[] words;
+    private final int[][] postings;
+    private final int symbolCount;
+
+    /**
+     * Indexes the words of a field of each symbol.
+     */
+    FieldIndex(List<SymbolStyleSearchResult> symbols, Function<SymbolStyleSearchResult, String> field) {
+      symbolCount = symbols.size();
+      Map<String, List<Integer>> symbolsByWord = new HashMap<>();
+      for (int i = 0; i < symbols.size(); i++) {
+        for (String word : words(field.apply(symbols.get(i)))) {
+          List<Integer> wordSymbols = symbolsByWord.computeIfAbsent(word, w -> new ArrayList<>());
+          // a word repeated in the same field is only indexed once
+          if (wordSymbols.isEmpty() || wordSymbols.get(wordSymbols.size() - 1) != i) {
+            wordSymbols.add(i);
+          }
+        }
+      }
+      words = symbolsByWord.keySet().toArray(new String[0]);
+      Arrays.sort(words);
+      postings = new int[words.length][];
+      for (int i = 0; i < words.length; i++) {
+        postings[i] = symbolsByWord.get(words[i]).stream().mapToInt(Integer::intValue).toArray();
+      }
+    }
+
+    /**
+     * Gets the symbols with a word in this field starting with a prefix.
+     */
+    BitSet startingWith(String prefix) {
+      int i = Arrays.binarySearch(words, prefix);
+      if (i < 0) {
+        // the first word after the prefix, which is the first word that can start with it
+        i = -i - 1;
+      }
+      var matches = new BitSet(symbolCount);
+      for (; i < words.length && words[i].startsWith(prefix); i++) {
+        for (int symbol : postings[i]) {
+          matches.set(symbol);
+        }
+      }
+      return matches;
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.symbol_dictionary;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import javafx.application.Platform;
+
+import com.esri.arcgisruntime.loadable.LoadStatus;
+import com.esri.arcgisruntime.symbology.DictionarySymbolStyle;
+import com.esri.arcgisruntime.symbology.SymbolStyleSearchParameters;
+import com.esri.arcgisruntime.symbology.SymbolStyleSearchResult;
+
+/**
+ * Compares the time taken to search the mil2525d style with {@code searchSymbolsAsync} and with a {@link SymbolIndex},
+ * for the kinds of text typed into the sample's search fields. The index matches the start of words, so the number of
+ * results can differ from the style's search for the same text.
+ */
+public class SymbolIndexBenchmark {
+
+  // the number of times each search is repeated to find its mean time
+  private static final int STYLE_RUNS = 5;
+  private static final int INDEX_RUNS = 1000;
+
+  /**
+   * Runs the benchmark and prints the mean time of each search.
+   *
+   * @param args not used
+   * @throws Exception if the style cannot be loaded or searched
+   */
+  public static void main(String[] args) throws Exception {
+    // the style's callbacks are run on the JavaFX application thread, so start it without showing any window
+    Platform.startup(() -> {});
+    try {
+      run();
+    } finally {
+      Platform.exit();
+    }
+  }
+
+  /**
+   * Loads the style, indexes its symbols and times each search.
+   */
+  private static void run() throws Exception {
+    var stylxFile = new File(System.getProperty("data.dir"), Path.of("samples-data", "stylx", "mil2525d.stylx").toString());
+    var dictionarySymbol = DictionarySymbolStyle.createFromFile(stylxFile.getAbsolutePath());
+    // wait for the style to finish loading, whether or not it loaded
+    var loaded = new CountDownLatch(1);
+    dictionarySymbol.addDoneLoadingListener(loaded::countDown);
+    dictionarySymbol.loadAsync();
+    loaded.await();
+    if (dictionarySymbol.getLoadStatus() != LoadStatus.LOADED) {
+      throw dictionarySymbol.getLoadError();
+    }
+
+    long start = System.nanoTime();
+    List<SymbolStyleSearchResult> symbols =
+      dictionarySymbol.searchSymbolsAsync(new SymbolStyleSearchParameters()).toCompletableFuture().get();
+    long fetched = System.nanoTime();
+    var symbolIndex = new SymbolIndex(symbols);
+    long indexed = System.nanoTime();
+    System.out.printf("Fetched %d symbols in %.1f ms, indexed in %.1f ms%n", symbolIndex.size(),
+      (fetched - start) / 1e6, (indexed - fetched) / 1e6);
+
+    System.out.printf("%-30s %10s %10s %10s %10s%n", "search", "style ms", "results", "index ms", "results");
+    benchmark(dictionarySymbol, symbolIndex, "name: i", SymbolIndex.SearchField.NAME, "i");
+    benchmark(dictionarySymbol, symbolIndex, "name: inf", SymbolIndex.SearchField.NAME, "inf");
+    benchmark(dictionarySymbol, symbolIndex, "name: infantry", SymbolIndex.SearchField.NAME, "infantry");
+    benchmark(dictionarySymbol, symbolIndex, "tag: air", SymbolIndex.SearchField.TAG, "air");
+    benchmark(dictionarySymbol, symbolIndex, "category: main", SymbolIndex.SearchField.CATEGORY, "main");
+    benchmark(dictionarySymbol, symbolIndex, "key: 1", SymbolIndex.SearchField.KEY, "1");
+    benchmark(dictionarySymbol, symbolIndex, "key: 1211", SymbolIndex.SearchField.KEY, "1211");
+  }
+
+  /**
+   * Times a search of one field with the style and with the index, and prints the mean times.
+   */
+  private static void benchmark(DictionarySymbolStyle dictionarySymbol, SymbolIndex symbolIndex, String description,
+                                SymbolIndex.SearchField field, String text) throws Exception {
+    var searchParameters = new SymbolStyleSearchParameters();
+    switch (field) {
+      case NAME -> searchParameters.getNames().add(text);
+      case TAG -> searchParameters.getTags().add(text);
+      case SYMBOL_CLASS -> searchParameters.getSymbolClasses().add(text);
+      case CATEGORY -> searchParameters.getCategories().add(text);
+      case KEY -> searchParameters.getKeys().add(text);
+    }
+    int styleResults = 0;
+    long start = System.nanoTime();
+    for (int i = 0; i < STYLE_RUNS; i++) {
+      styleResults = dictionarySymbol.searchSymbolsAsync(searchParameters).toCompletableFuture().get().size();
+    }
+    double styleTime = (System.nanoTime() - start) / 1e6 / STYLE_RUNS;
+
+    Map<SymbolIndex.SearchField, String> searchText = new EnumMap<>(SymbolIndex.SearchField.class);
+    searchText.put(field, text);
+    int indexResults = 0;
+    start = System.nanoTime();
+    for (int i = 0; i < INDEX_RUNS; i++) {
+      indexResults = symbolIndex.search(searchText).size();
+    }
+    double indexTime = (System.nanoTime() - start) / 1e6 / INDEX_RUNS;
+
+    System.out.printf("%-30s %10.3f %10d %10.3f %10d%n", description, styleTime, styleResults, indexTime, indexResults);
+  }
+}
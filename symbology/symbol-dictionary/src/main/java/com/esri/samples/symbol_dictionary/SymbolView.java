@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.net.URL;
 import java.util.ResourceBundle;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
@@ -27,9 +28,7 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Label;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
-import javafx.scene.paint.Color;
 
-import com.esri.arcgisruntime.geometry.Point;
 import com.esri.arcgisruntime.symbology.SymbolStyleSearchResult;
 
 class SymbolView extends HBox implements Initializable {
@@ -41,15 +40,21 @@ class SymbolView extends HBox implements Initializable {
   @FXML private Label category;
   @FXML private Label key;
 
+  // the width and height of the symbol pictures
+  static final int SWATCH_SIZE = 40;
+
   private final SymbolStyleSearchResult styleSymbolSearchResult;
+  private final SwatchCache swatchCache;
 
   /**
    * Creates a view of a symbol with a picture and description.
    *
    * @param symbolResult symbol result from a symbol dictionary search
+   * @param swatchCache cache to get the picture of the symbol from
    */
-  SymbolView(SymbolStyleSearchResult symbolResult) {
+  SymbolView(SymbolStyleSearchResult symbolResult, SwatchCache swatchCache) {
     styleSymbolSearchResult = symbolResult;
+    this.swatchCache = swatchCache;
 
     // Set the view of this component to the fxml file
     var loader = new FXMLLoader(getClass().getResource("/symbol_dictionary/symbol_view.fxml"));
@@ -73,12 +78,10 @@ class SymbolView extends HBox implements Initializable {
     key.setText(styleSymbolSearchResult.getKey());
 
     // set image for non-text symbols
-    if (!category.getText().startsWith("Text")) {
-      // get the symbol and create a swatch from it
-      styleSymbolSearchResult.getSymbolAsync().toCompletableFuture()
-        .thenCompose(symbol ->
-          symbol.createSwatchAsync(40, 40, Color.color(1.0, 1.0, 1.0, 0.0), new Point(0, 0, 0)).toCompletableFuture())
-        .whenComplete((image, ex) -> {
+    if (hasSwatch(styleSymbolSearchResult)) {
+      // get the swatch of the symbol from the cache, which creates it if it is not cached
+      swatchCache.getSwatchAsync(styleSymbolSearchResult, SWATCH_SIZE)
+        .whenCompleteAsync((image, ex) -> {
           if (ex == null) {
             // if the symbol fetch and swatch creation complete successfully, add the resulting image to the ImageView
             imageView.setImage(image);
@@ -86,7 +89,17 @@ class SymbolView extends HBox implements Initializable {
             // display an error if the symbol search or swatch creation completed with an exception
             new Alert(Alert.AlertType.ERROR, "Error creating swatch from symbol" + ex.getMessage()).show();
           }
-        });
+        }, Platform::runLater);
     }
   }
+
+  /**
+   * Gets whether a symbol is shown with a picture, which text symbols are not.
+   *
+   * @param symbolResult symbol result from a symbol dictionary search
+   * @return true if the symbol has a swatch
+   */
+  static boolean hasSwatch(SymbolStyleSearchResult symbolResult) {
+    return !symbolResult.getCategory().startsWith("Text");
+  }
 }
@@ -25,6 +25,7 @@ module com.esri.samples.symbol_dictionary {
   requires javafx.graphics;
   requires javafx.controls;
   requires javafx.fxml;
+  requires javafx.swing;
 
   // make all @FXML annotated objects reflectively accessible to the javafx.fxml module
   opens com.esri.samples.symbol_dictionary to javafx.fxml;